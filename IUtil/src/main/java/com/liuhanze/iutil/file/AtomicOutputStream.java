@@ -0,0 +1,231 @@
+package com.liuhanze.iutil.file;
+
+import com.liuhanze.iutil.lang.BufferPool;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 原子写输出流
+ * <p>数据先写入目标文件同目录下的临时文件，{@link #commit()} 时 fsync 后重命名为目标文件，
+ * 读者只会看到旧文件或完整的新文件。未调用 {@link #commit()} 就 {@link #close()} 会丢弃临时文件，
+ * 目标文件保持不变，因此可以放心地放在 try-with-resources 中。</p>
+ * <p>只 fsync 了文件内容，没有 fsync 所在目录（minSdk 下无法以 Java 打开目录），
+ * 提交后随即断电时重命名可能丢失而看到旧文件，但不会看到写了一半的文件。</p>
+ */
+public final class AtomicOutputStream extends OutputStream {
+
+    private static final int BUFFER_LEN = 64 * 1024;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    static final AtomicLong TOTAL_FILES = new AtomicLong();
+    static final AtomicLong TOTAL_BYTES = new AtomicLong();
+    static final AtomicLong TOTAL_WRITE_NANOS = new AtomicLong();
+    static final AtomicLong TOTAL_FSYNC_NANOS = new AtomicLong();
+    static final AtomicLong MAX_FSYNC_NANOS = new AtomicLong();
+
+    private final File file;
+    private final File tempFile;
+    private final FileOutputStream fos;
+    private final FileChannel channel;
+    private ByteBuffer buffer;
+    private final long startNanos;
+    private long written;
+    private long fsyncNanos;
+    private boolean synced;
+    private boolean closed;
+
+    /**
+     * @param file 目标文件，父目录不存在时自动创建
+     * @throws IOException 无法创建临时文件时抛出
+     */
+    public AtomicOutputStream(final File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (!IFile.createOrExistsDir(parent)) {
+            throw new IOException("can not create directory: " + parent);
+        }
+        this.file = file;
+        this.startNanos = System.nanoTime();
+        // 临时文件与目标文件在同一目录，保证重命名不跨文件系统
+        this.tempFile = File.createTempFile("." + file.getName() + ".", TEMP_SUFFIX, parent);
+        FileOutputStream out = null;
+        try {
+            out = new FileOutputStream(tempFile);
+            this.channel = out.getChannel();
+        } catch (IOException | RuntimeException e) {
+            // 临时文件已经创建，打开失败时不能留在目录里
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException ignored) {
+                    // 以原始异常为准
+                }
+            }
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+            throw e;
+        }
+        this.fos = out;
+        // 直接缓冲区写入 FileChannel 时不再经过 JDK 内部的临时缓冲
+        this.buffer = BufferPool.acquireDirect(BUFFER_LEN);
+    }
+
+    /**
+     * 目标文件
+     */
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        ensureOpen();
+        if (!buffer.hasRemaining()) {
+            flushBuffer();
+        }
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        ensureOpen();
+        if (len >= BUFFER_LEN) {
+            // 大块数据不经过缓冲区，直接写入通道
+            flushBuffer();
+            writeFully(ByteBuffer.wrap(b, off, len));
+            return;
+        }
+        if (len > buffer.remaining()) {
+            flushBuffer();
+        }
+        buffer.put(b, off, len);
+    }
+
+    /**
+     * 写入 buffer 中剩余的数据，不改变 buffer 的 position
+     *
+     * @param src 数据
+     * @throws IOException IO 错误时抛出
+     */
+    public void write(final ByteBuffer src) throws IOException {
+        ensureOpen();
+        flushBuffer();
+        writeFully(src.duplicate());
+    }
+
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        flushBuffer();
+    }
+
+    /**
+     * 提交：写出缓冲、fsync、关闭并重命名为目标文件
+     *
+     * @throws IOException 任何一步失败时抛出，此时临时文件已删除，目标文件保持不变
+     */
+    public void commit() throws IOException {
+        sync();
+        publish();
+    }
+
+    /**
+     * 放弃写入并删除临时文件，目标文件保持不变
+     */
+    public void abort() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        releaseBuffer();
+        try {
+            fos.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        //noinspection ResultOfMethodCallIgnored
+        tempFile.delete();
+    }
+
+    /**
+     * 未提交时等同于 {@link #abort()}
+     */
+    @Override
+    public void close() {
+        abort();
+    }
+
+    /**
+     * 第一阶段：写出缓冲并 fsync 后关闭临时文件
+     */
+    void sync() throws IOException {
+        ensureOpen();
+        try {
+            flushBuffer();
+            releaseBuffer();
+            long fsyncStart = System.nanoTime();
+            channel.force(true);
+            fsyncNanos = System.nanoTime() - fsyncStart;
+            fos.close();
+            synced = true;
+        } catch (IOException e) {
+            abort();
+            throw e;
+        }
+    }
+
+    /**
+     * 第二阶段：重命名为目标文件，成功后与文件数一起计入统计
+     */
+    void publish() throws IOException {
+        if (!synced || closed) {
+            throw new IOException("stream not synced or already closed");
+        }
+        closed = true;
+        if (!tempFile.renameTo(file)) {
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+            throw new IOException("can not rename " + tempFile + " to " + file);
+        }
+        TOTAL_FILES.incrementAndGet();
+        TOTAL_BYTES.addAndGet(written);
+        TOTAL_WRITE_NANOS.addAndGet(System.nanoTime() - startNanos);
+        TOTAL_FSYNC_NANOS.addAndGet(fsyncNanos);
+        long max;
+        while (fsyncNanos > (max = MAX_FSYNC_NANOS.get())
+                && !MAX_FSYNC_NANOS.compareAndSet(max, fsyncNanos)) {
+            // 重试
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed || synced) {
+            throw new IOException("stream already closed");
+        }
+    }
+
+    private void releaseBuffer() {
+        BufferPool.release(buffer);
+        buffer = null;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(final ByteBuffer src) throws IOException {
+        while (src.hasRemaining()) {
+            written += channel.write(src);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.liuhanze.iutil.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量原子写
+ * <p>{@link #commit()} 先把所有文件写入各自的临时文件并逐个 fsync，全部成功后才依次重命名；
+ * 写入阶段任何一个失败都不会改动任何目标文件。每个文件的替换都是原子的，
+ * 但多个文件之间的重命名不是一个整体，重命名阶段失败时已替换的文件不会回滚。</p>
+ */
+public final class AtomicWriteBatch {
+
+    private final List<File> files = new ArrayList<>();
+    private final List<byte[]> contents = new ArrayList<>();
+
+    /**
+     * 加入一个待写文件
+     *
+     * @param file 目标文件
+     * @param data 文件内容
+     * @return this
+     */
+    public AtomicWriteBatch add(final File file, final byte[] data) {
+        files.add(file);
+        contents.add(data);
+        return this;
+    }
+
+    /**
+     * 待写文件数
+     */
+    public int size() {
+        return files.size();
+    }
+
+    /**
+     * 提交所有文件，提交后批次被清空
+     *
+     * @return {@code true}: 全部写入成功<br>{@code false}: 写入失败
+     */
+    public boolean commit() {
+        int n = files.size();
+        List<AtomicOutputStream> streams = new ArrayList<>(n);
+        try {
+            for (int i = 0; i < n; i++) {
+                AtomicOutputStream os = new AtomicOutputStream(files.get(i));
+                streams.add(os);
+                byte[] data = contents.get(i);
+                if (data != null) {
+                    os.write(data, 0, data.length);
+                }
+                os.sync();
+            }
+            for (AtomicOutputStream os : streams) {
+                os.publish();
+            }
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            for (AtomicOutputStream os : streams) {
+                os.abort();
+            }
+            files.clear();
+            contents.clear();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.liuhanze.iutil.file;
+
+/**
+ * 原子写统计快照
+ */
+public final class AtomicWriteStat {
+
+    private final long fileCount;
+    private final long totalBytes;
+    private final long writeNanos;
+    private final long fsyncNanos;
+    private final long maxFsyncNanos;
+
+    AtomicWriteStat(final long fileCount, final long totalBytes, final long writeNanos,
+                    final long fsyncNanos, final long maxFsyncNanos) {
+        this.fileCount = fileCount;
+        this.totalBytes = totalBytes;
+        this.writeNanos = writeNanos;
+        this.fsyncNanos = fsyncNanos;
+        this.maxFsyncNanos = maxFsyncNanos;
+    }
+
+    static AtomicWriteStat snapshot() {
+        return new AtomicWriteStat(AtomicOutputStream.TOTAL_FILES.get(),
+                AtomicOutputStream.TOTAL_BYTES.get(),
+                AtomicOutputStream.TOTAL_WRITE_NANOS.get(),
+                AtomicOutputStream.TOTAL_FSYNC_NANOS.get(),
+                AtomicOutputStream.MAX_FSYNC_NANOS.get());
+    }
+
+    static void reset() {
+        AtomicOutputStream.TOTAL_FILES.set(0);
+        AtomicOutputStream.TOTAL_BYTES.set(0);
+        AtomicOutputStream.TOTAL_WRITE_NANOS.set(0);
+        AtomicOutputStream.TOTAL_FSYNC_NANOS.set(0);
+        AtomicOutputStream.MAX_FSYNC_NANOS.set(0);
+    }
+
+    /**
+     * 已提交的文件数
+     */
+    public long getFileCount() {
+        return fileCount;
+    }
+
+    /**
+     * 已提交的总字节数
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * 吞吐量，从打开到重命名完成的总时间计算
+     *
+     * @return 字节/秒
+     */
+    public long getThroughput() {
+        return writeNanos <= 0 ? 0 : (long) (totalBytes * 1e9 / writeNanos);
+    }
+
+    /**
+     * 平均 fsync 耗时（微秒）
+     */
+    public long getAverageFsyncMicros() {
+        return fileCount <= 0 ? 0 : fsyncNanos / fileCount / 1000;
+    }
+
+    /**
+     * 最长 fsync 耗时（微秒）
+     */
+    public long getMaxFsyncMicros() {
+        return maxFsyncNanos / 1000;
+    }
+
+    @Override
+    public String toString() {
+        return "AtomicWriteStat{" +
+                "fileCount=" + fileCount +
+                ", totalBytes=" + totalBytes +
+                ", throughput=" + getThroughput() +
+                ", averageFsyncMicros=" + getAverageFsyncMicros() +
+                ", maxFsyncMicros=" + getMaxFsyncMicros() +
+                '}';
+    }
+}
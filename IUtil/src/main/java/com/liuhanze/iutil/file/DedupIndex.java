@@ -0,0 +1,402 @@
+package com.liuhanze.iutil.file;
+
+import com.liuhanze.iutil.lang.IHex;
+import com.liuhanze.iutil.security.DigestService;
+import com.liuhanze.iutil.security.IFastHash;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 重复文件索引
+ * <p>按三级筛选找出内容相同的文件：先按大小分组，再对同大小的文件计算首尾块的快速哈希，
+ * 只有首尾块也相同的文件才计算完整 MD5。每个文件的哈希结果按路径记录并以修改时间和大小校验，
+ * 可以持久化到磁盘，再次查找时只需计算新增或改动过的文件。</p>
+ * <p>空文件不参与比较。实例不是线程安全的。</p>
+ */
+public final class DedupIndex {
+
+    private static final int MAGIC = 0x44445831;
+    private static final int VERSION = 1;
+    /**
+     * 首尾块大小
+     */
+    private static final int PARTIAL_BLOCK = 4096;
+    private static final int FLAG_PARTIAL = 0x01;
+    private static final int FLAG_FULL = 0x02;
+    private static final int MD5_LEN = 16;
+
+    private final File indexFile;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final byte[] partialBuffer = new byte[PARTIAL_BLOCK * 2];
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+    private int partialHashCount;
+    private int fullHashCount;
+    private int cacheHitCount;
+    private boolean dirty;
+
+    /**
+     * @param indexFile 索引文件，为 {@code null} 时只在内存中记录
+     */
+    public DedupIndex(final File indexFile) {
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * 计算完整 MD5 时的线程数，默认 CPU 核数
+     *
+     * @param threadCount 线程数
+     * @return this
+     */
+    public DedupIndex setThreadCount(final int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+        return this;
+    }
+
+    /**
+     * 从索引文件载入
+     *
+     * @return {@code true}: 载入成功<br>{@code false}: 文件不存在或格式不正确，索引保持为空
+     */
+    public boolean load() {
+        if (!IFile.isFile(indexFile)) {
+            return false;
+        }
+        Map<String, Entry> loaded = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return false;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                Entry entry = new Entry(in.readLong(), in.readLong());
+                entry.flags = in.readUnsignedByte();
+                if ((entry.flags & FLAG_PARTIAL) != 0) {
+                    entry.partial = in.readLong();
+                }
+                if ((entry.flags & FLAG_FULL) != 0) {
+                    entry.md5 = new byte[MD5_LEN];
+                    in.readFully(entry.md5);
+                }
+                loaded.put(path, entry);
+            }
+        } catch (EOFException e) {
+            return false;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        entries.clear();
+        entries.putAll(loaded);
+        dirty = false;
+        return true;
+    }
+
+    /**
+     * 原子地写回索引文件，没有变化时不写
+     *
+     * @return {@code true}: 写入成功或无需写入<br>{@code false}: 写入失败
+     */
+    public boolean save() {
+        if (indexFile == null || !dirty) {
+            return true;
+        }
+        try (AtomicOutputStream os = new AtomicOutputStream(indexFile)) {
+            DataOutputStream out = new DataOutputStream(os);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                Entry entry = e.getValue();
+                out.writeUTF(e.getKey());
+                out.writeLong(entry.lastModified);
+                out.writeLong(entry.length);
+                out.writeByte(entry.flags);
+                if ((entry.flags & FLAG_PARTIAL) != 0) {
+                    out.writeLong(entry.partial);
+                }
+                if ((entry.flags & FLAG_FULL) != 0) {
+                    out.write(entry.md5);
+                }
+            }
+            out.flush();
+            os.commit();
+            dirty = false;
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * 移除已不存在的文件的记录
+     *
+     * @return 移除的记录数
+     */
+    public int prune() {
+        int removed = 0;
+        Iterator<String> it = entries.keySet().iterator();
+        while (it.hasNext()) {
+            if (!new File(it.next()).isFile()) {
+                it.remove();
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            dirty = true;
+        }
+        return removed;
+    }
+
+    /**
+     * 索引中的记录数
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 累计计算首尾块哈希的文件数
+     */
+    public int getPartialHashCount() {
+        return partialHashCount;
+    }
+
+    /**
+     * 累计计算完整 MD5 的文件数
+     */
+    public int getFullHashCount() {
+        return fullHashCount;
+    }
+
+    /**
+     * 累计直接使用索引记录、未读文件的次数
+     */
+    public int getCacheHitCount() {
+        return cacheHitCount;
+    }
+
+    /**
+     * 查找目录下（递归）的重复文件
+     *
+     * @param dir 目录
+     * @return 重复文件组，每组至少两个文件，按文件大小降序
+     */
+    public List<List<File>> findDuplicates(final File dir) {
+        List<File> files = new FileWalker(dir).setFileFilter(new FileFilter() {
+            @Override
+            public boolean accept(File pathname) {
+                return pathname.isFile();
+            }
+        }).list();
+        return findDuplicates(files);
+    }
+
+    /**
+     * 查找重复文件
+     *
+     * @param files 文件集合
+     * @return 重复文件组，每组至少两个文件，按文件大小降序
+     */
+    public List<List<File>> findDuplicates(final Collection<File> files) {
+        // 第一级：按大小分组，只 stat 不读文件；同一文件以相对、绝对路径重复出现时只算一次
+        Map<Long, List<Candidate>> bySize = new HashMap<>();
+        Set<String> seen = new HashSet<>();
+        for (File file : files) {
+            if (!seen.add(file.getAbsolutePath())) {
+                continue;
+            }
+            long length = file.length();
+            if (length <= 0 || !file.isFile()) {
+                continue;
+            }
+            List<Candidate> group = bySize.get(length);
+            if (group == null) {
+                group = new ArrayList<>(2);
+                bySize.put(length, group);
+            }
+            group.add(new Candidate(file, length));
+        }
+
+        // 第二级：同大小的文件比较首尾块哈希
+        List<List<Candidate>> partialGroups = new ArrayList<>();
+        for (List<Candidate> group : bySize.values()) {
+            if (group.size() < 2) {
+                continue;
+            }
+            Map<Long, List<Candidate>> byPartial = new LinkedHashMap<>();
+            for (Candidate c : group) {
+                Long partial = partialHash(c);
+                if (partial == null) {
+                    continue;
+                }
+                List<Candidate> list = byPartial.get(partial);
+                if (list == null) {
+                    list = new ArrayList<>(2);
+                    byPartial.put(partial, list);
+                }
+                list.add(c);
+            }
+            for (List<Candidate> list : byPartial.values()) {
+                if (list.size() >= 2) {
+                    partialGroups.add(list);
+                }
+            }
+        }
+
+        // 第三级：首尾块相同的文件计算完整 MD5
+        fullHash(partialGroups);
+
+        List<List<File>> result = new ArrayList<>();
+        final Map<List<File>, Long> groupSize = new IdentityHashMap<>();
+        for (List<Candidate> group : partialGroups) {
+            Map<String, List<File>> byMd5 = new LinkedHashMap<>();
+            for (Candidate c : group) {
+                if (c.entry.md5 == null) {
+                    continue;
+                }
+                String key = IHex.encode(c.entry.md5);
+                List<File> list = byMd5.get(key);
+                if (list == null) {
+                    list = new ArrayList<>(2);
+                    byMd5.put(key, list);
+                }
+                list.add(c.file);
+            }
+            for (List<File> list : byMd5.values()) {
+                if (list.size() >= 2) {
+                    result.add(list);
+                    groupSize.put(list, group.get(0).length);
+                }
+            }
+        }
+        Collections.sort(result, new Comparator<List<File>>() {
+            @Override
+            public int compare(List<File> o1, List<File> o2) {
+                long l1 = groupSize.get(o1);
+                long l2 = groupSize.get(o2);
+                return l1 > l2 ? -1 : (l1 == l2 ? 0 : 1);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 取得与当前修改时间、大小一致的记录，不一致时新建
+     */
+    private Entry entryFor(final Candidate c) {
+        String path = c.file.getAbsolutePath();
+        long lastModified = c.file.lastModified();
+        Entry entry = entries.get(path);
+        if (entry == null || entry.lastModified != lastModified || entry.length != c.length) {
+            entry = new Entry(lastModified, c.length);
+            entries.put(path, entry);
+            dirty = true;
+        }
+        c.entry = entry;
+        return entry;
+    }
+
+    private Long partialHash(final Candidate c) {
+        Entry entry = entryFor(c);
+        if ((entry.flags & FLAG_PARTIAL) != 0) {
+            cacheHitCount++;
+            return entry.partial;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(c.file, "r")) {
+            int len;
+            if (c.length <= partialBuffer.length) {
+                len = (int) c.length;
+                raf.readFully(partialBuffer, 0, len);
+            } else {
+                raf.readFully(partialBuffer, 0, PARTIAL_BLOCK);
+                raf.seek(c.length - PARTIAL_BLOCK);
+                raf.readFully(partialBuffer, PARTIAL_BLOCK, PARTIAL_BLOCK);
+                len = partialBuffer.length;
+            }
+            entry.partial = IFastHash.xxHash64(partialBuffer, 0, len, c.length);
+            entry.flags |= FLAG_PARTIAL;
+            dirty = true;
+            partialHashCount++;
+            return entry.partial;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private void fullHash(final List<List<Candidate>> groups) {
+        final Map<File, Candidate> pending = new HashMap<>();
+        for (List<Candidate> group : groups) {
+            for (Candidate c : group) {
+                if ((c.entry.flags & FLAG_FULL) != 0) {
+                    cacheHitCount++;
+                } else {
+                    pending.put(c.file, c);
+                }
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        new DigestService(DigestService.MD5, threadCount).digest(pending.keySet(),
+                new DigestService.OnDigestListener() {
+                    @Override
+                    public void onDigest(File file, byte[] digest) {
+                        if (digest == null) {
+                            return;
+                        }
+                        Entry entry = pending.get(file).entry;
+                        entry.md5 = digest;
+                        entry.flags |= FLAG_FULL;
+                        dirty = true;
+                        fullHashCount++;
+                    }
+                });
+    }
+
+    private static final class Entry {
+        final long lastModified;
+        final long length;
+        int flags;
+        long partial;
+        byte[] md5;
+
+        Entry(final long lastModified, final long length) {
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+    }
+
+    private static final class Candidate {
+        final File file;
+        final long length;
+        Entry entry;
+
+        Candidate(final File file, final long length) {
+            this.file = file;
+            this.length = length;
+        }
+    }
+}
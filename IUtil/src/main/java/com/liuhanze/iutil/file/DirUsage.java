@@ -0,0 +1,135 @@
+package com.liuhanze.iutil.file;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 目录占用统计
+ */
+public final class DirUsage {
+
+    private final File dir;
+    private final long totalBytes;
+    private final long fileCount;
+    private final long dirCount;
+    private final List<Item> largestFiles;
+    private final int scannedDirCount;
+    private final int cachedDirCount;
+    private final long elapsedMillis;
+
+    DirUsage(final File dir, final long totalBytes, final long fileCount, final long dirCount,
+             final List<Item> largestFiles, final int scannedDirCount, final int cachedDirCount,
+             final long elapsedMillis) {
+        this.dir = dir;
+        this.totalBytes = totalBytes;
+        this.fileCount = fileCount;
+        this.dirCount = dirCount;
+        this.largestFiles = Collections.unmodifiableList(largestFiles);
+        this.scannedDirCount = scannedDirCount;
+        this.cachedDirCount = cachedDirCount;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * 统计的目录
+     */
+    public File getDir() {
+        return dir;
+    }
+
+    /**
+     * 文件总字节数
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * 文件数
+     */
+    public long getFileCount() {
+        return fileCount;
+    }
+
+    /**
+     * 子目录数（不含统计的目录本身）
+     */
+    public long getDirCount() {
+        return dirCount;
+    }
+
+    /**
+     * 最大的若干个文件，按大小降序
+     */
+    public List<Item> getLargestFiles() {
+        return largestFiles;
+    }
+
+    /**
+     * 本次重新读取的目录数
+     */
+    public int getScannedDirCount() {
+        return scannedDirCount;
+    }
+
+    /**
+     * 本次直接使用缓存的目录数
+     */
+    public int getCachedDirCount() {
+        return cachedDirCount;
+    }
+
+    /**
+     * 耗时（毫秒）
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "DirUsage{" +
+                "dir=" + dir +
+                ", totalBytes=" + totalBytes +
+                ", fileCount=" + fileCount +
+                ", dirCount=" + dirCount +
+                ", scannedDirCount=" + scannedDirCount +
+                ", cachedDirCount=" + cachedDirCount +
+                ", elapsedMillis=" + elapsedMillis +
+                '}';
+    }
+
+    /**
+     * 文件与大小
+     */
+    public static final class Item {
+
+        private final File file;
+        private final long length;
+
+        Item(final File file, final long length) {
+            this.file = file;
+            this.length = length;
+        }
+
+        /**
+         * 文件
+         */
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * 文件大小
+         */
+        public long getLength() {
+            return length;
+        }
+
+        @Override
+        public String toString() {
+            return file + "(" + length + ")";
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.liuhanze.iutil.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 目录占用统计引擎
+ * <p>每个目录只记录自身直接包含的文件大小、文件数、子目录名与最大的若干文件，按目录路径缓存并以目录修改时间校验。
+ * 再次统计时每个目录只需一次 stat，修改时间未变的目录不再列目录、不再逐个 stat 文件。</p>
+ * <p>目录修改时间只在增删、重命名子项时变化，原地改写已有文件的内容不会使缓存失效。</p>
+ */
+final class DirUsageScanner {
+
+    private static final int MAX_CACHED_DIRS = 16 * 1024;
+    /**
+     * 修改时间距今不足该值的目录不缓存，避免文件系统时间精度不足导致同一秒内的修改被漏掉
+     */
+    private static final long RACY_MILLIS = 2000;
+
+    private static final LinkedHashMap<String, Node> CACHE = new LinkedHashMap<>(16, 0.75f, true);
+
+    private DirUsageScanner() {
+
+    }
+
+    static DirUsage scan(final File dir, final int topN, final int threadCount)
+            throws IOException, InterruptedException {
+        long start = System.currentTimeMillis();
+        int limit = Math.max(0, topN);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threadCount));
+        CompletionService<Result> service = new ExecutorCompletionService<>(executor);
+        long totalBytes = 0;
+        long fileCount = 0;
+        long dirCount = 0;
+        int scanned = 0;
+        int cached = 0;
+        PriorityQueue<DirUsage.Item> top = new PriorityQueue<>(Math.max(1, limit), ASCENDING);
+        try {
+            service.submit(task(dir, limit));
+            int outstanding = 1;
+            while (outstanding > 0) {
+                Result result;
+                try {
+                    result = service.take().get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    }
+                    throw new IOException(cause);
+                }
+                outstanding--;
+                Node node = result.node;
+                if (node == null) {
+                    continue;
+                }
+                if (result.cached) {
+                    cached++;
+                } else {
+                    scanned++;
+                }
+                totalBytes += node.bytes;
+                fileCount += node.files;
+                dirCount += node.childDirs.length;
+                for (int i = 0; i < node.topNames.length && i < limit; i++) {
+                    long length = node.topLengths[i];
+                    if (top.size() < limit) {
+                        top.add(new DirUsage.Item(new File(result.dir, node.topNames[i]), length));
+                    } else if (top.peek().getLength() < length) {
+                        top.poll();
+                        top.add(new DirUsage.Item(new File(result.dir, node.topNames[i]), length));
+                    } else {
+                        // 每个目录的列表已降序，后面的更小
+                        break;
+                    }
+                }
+                for (String child : node.childDirs) {
+                    service.submit(task(new File(result.dir, child), limit));
+                    outstanding++;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        List<DirUsage.Item> largest = new ArrayList<>(top);
+        Collections.sort(largest, Collections.reverseOrder(ASCENDING));
+        return new DirUsage(dir, totalBytes, fileCount, dirCount, largest, scanned, cached,
+                System.currentTimeMillis() - start);
+    }
+
+    static void clear() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+    private static Callable<Result> task(final File dir, final int limit) {
+        return new Callable<Result>() {
+            @Override
+            public Result call() throws Exception {
+                return load(dir, limit);
+            }
+        };
+    }
+
+    private static Result load(final File dir, final int limit) throws IOException {
+        String path = dir.getAbsolutePath();
+        long lastModified = dir.lastModified();
+        if (lastModified == 0) {
+            // 统计过程中被删除
+            return new Result(dir, null, false);
+        }
+        synchronized (CACHE) {
+            Node node = CACHE.get(path);
+            if (node != null && node.lastModified == lastModified
+                    && (node.topLimit >= limit || node.topNames.length == node.files)) {
+                return new Result(dir, node, true);
+            }
+        }
+        String[] names = dir.list();
+        if (names == null) {
+            return new Result(dir, null, false);
+        }
+        String canonical = dir.getCanonicalPath();
+        List<String> childDirs = new ArrayList<>();
+        long bytes = 0;
+        int files = 0;
+        // 小顶堆保留本目录最大的 limit 个文件
+        PriorityQueue<DirUsage.Item> top = new PriorityQueue<>(Math.max(1, limit), ASCENDING);
+        for (String name : names) {
+            File child = new File(dir, name);
+            if (child.isDirectory()) {
+                // 不进入符号链接，避免重复统计与成环
+                if (isRealDir(child, canonical, name)) {
+                    childDirs.add(name);
+                }
+            } else {
+                long length = child.length();
+                bytes += length;
+                files++;
+                if (limit == 0) {
+                    continue;
+                }
+                if (top.size() < limit) {
+                    top.add(new DirUsage.Item(child, length));
+                } else if (top.peek().getLength() < length) {
+                    top.poll();
+                    top.add(new DirUsage.Item(child, length));
+                }
+            }
+        }
+        int n = top.size();
+        String[] topNames = new String[n];
+        long[] topLengths = new long[n];
+        for (int i = n - 1; i >= 0; i--) {
+            DirUsage.Item item = top.poll();
+            topNames[i] = item.getFile().getName();
+            topLengths[i] = item.getLength();
+        }
+        Node node = new Node(lastModified, bytes, files,
+                childDirs.toArray(new String[childDirs.size()]), topNames, topLengths, limit);
+        if (System.currentTimeMillis() - lastModified >= RACY_MILLIS) {
+            synchronized (CACHE) {
+                CACHE.put(path, node);
+                if (CACHE.size() > MAX_CACHED_DIRS) {
+                    Iterator<String> it = CACHE.keySet().iterator();
+                    it.next();
+                    it.remove();
+                }
+            }
+        }
+        return new Result(dir, node, false);
+    }
+
+    /**
+     * 子目录的规范路径是否就是其在父目录下的路径，即不是符号链接
+     */
+    static boolean isRealDir(final File child, final String dirCanonical, final String name) throws IOException {
+        // 根目录 "/" 的规范路径已以分隔符结尾，不能直接拼接
+        return child.getCanonicalPath().equals(new File(dirCanonical, name).getPath());
+    }
+
+    private static final Comparator<DirUsage.Item> ASCENDING = new Comparator<DirUsage.Item>() {
+        @Override
+        public int compare(DirUsage.Item o1, DirUsage.Item o2) {
+            return o1.getLength() < o2.getLength() ? -1 : (o1.getLength() == o2.getLength() ? 0 : 1);
+        }
+    };
+
+    /**
+     * 单个目录自身的统计，不含子目录
+     */
+    private static final class Node {
+        final long lastModified;
+        final long bytes;
+        final int files;
+        final String[] childDirs;
+        final String[] topNames;
+        final long[] topLengths;
+        final int topLimit;
+
+        Node(final long lastModified, final long bytes, final int files, final String[] childDirs,
+             final String[] topNames, final long[] topLengths, final int topLimit) {
+            this.lastModified = lastModified;
+            this.bytes = bytes;
+            this.files = files;
+            this.childDirs = childDirs;
+            this.topNames = topNames;
+            this.topLengths = topLengths;
+            this.topLimit = topLimit;
+        }
+    }
+
+    private static final class Result {
+        final File dir;
+        final Node node;
+        final boolean cached;
+
+        Result(final File dir, final Node node, final boolean cached) {
+            this.dir = dir;
+            this.node = node;
+            this.cached = cached;
+        }
+    }
+}
@@ -0,0 +1,521 @@
+package com.liuhanze.iutil.file;
+
+import com.liuhanze.iutil.lang.CancelToken;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 目录遍历器
+ * <p>先序遍历，结果通过回调或 {@link Iterator} 逐个返回，不在内存中累积整棵树。</p>
+ * <p>名称过滤器只看文件名，在任何 stat 之前执行；文件过滤器在名称过滤通过后执行。</p>
+ * <p>默认不进入指向目录的符号链接；开启 {@link #setFollowLinks(boolean)} 后按规范路径去重，避免链接成环。</p>
+ */
+public final class FileWalker {
+
+    private final File root;
+    private int maxDepth = Integer.MAX_VALUE;
+    private FilenameFilter nameFilter;
+    private FileFilter fileFilter;
+    private FilenameFilter dirFilter;
+    private boolean followLinks;
+    private int parallelism = 1;
+    private CancelToken token;
+
+    /**
+     * @param root 遍历的根目录，根目录本身不会被返回
+     */
+    public FileWalker(final File root) {
+        this.root = root;
+    }
+
+    /**
+     * 最大深度，根目录的直接子项深度为 1，默认不限
+     *
+     * @param maxDepth 最大深度
+     * @return this
+     */
+    public FileWalker setMaxDepth(final int maxDepth) {
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    /**
+     * 名称过滤器，决定是否返回某项，不影响是否进入子目录
+     *
+     * @param nameFilter 名称过滤器
+     * @return this
+     */
+    public FileWalker setNameFilter(final FilenameFilter nameFilter) {
+        this.nameFilter = nameFilter;
+        return this;
+    }
+
+    /**
+     * 文件过滤器，决定是否返回某项，不影响是否进入子目录
+     *
+     * @param fileFilter 文件过滤器
+     * @return this
+     */
+    public FileWalker setFileFilter(final FileFilter fileFilter) {
+        this.fileFilter = fileFilter;
+        return this;
+    }
+
+    /**
+     * 目录过滤器，按目录名决定是否进入该目录
+     *
+     * @param dirFilter 目录过滤器
+     * @return this
+     */
+    public FileWalker setDirectoryFilter(final FilenameFilter dirFilter) {
+        this.dirFilter = dirFilter;
+        return this;
+    }
+
+    /**
+     * 是否进入指向目录的符号链接，默认否
+     *
+     * @param followLinks 是否跟随链接
+     * @return this
+     */
+    public FileWalker setFollowLinks(final boolean followLinks) {
+        this.followLinks = followLinks;
+        return this;
+    }
+
+    /**
+     * 并行度，大于 1 时按目录拆分到线程池中遍历，回调会在多个线程中同时执行，返回顺序不再确定
+     *
+     * @param parallelism 线程数
+     * @return this
+     */
+    public FileWalker setParallelism(final int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        return this;
+    }
+
+    /**
+     * 取消标记
+     *
+     * @param token 取消标记
+     * @return this
+     */
+    public FileWalker setCancelToken(final CancelToken token) {
+        this.token = token;
+        return this;
+    }
+
+    /**
+     * 遍历并回调每一项
+     *
+     * @param listener 回调，返回 {@code false} 时提前结束遍历
+     */
+    public void walk(final OnFileVisitListener listener) {
+        if (!IFile.isDir(root)) {
+            return;
+        }
+        if (parallelism <= 1) {
+            Iterator<File> it = iterator();
+            while (it.hasNext()) {
+                if (!listener.onVisit(it.next())) {
+                    return;
+                }
+            }
+        } else {
+            new ParallelWalk(new Visitor() {
+                @Override
+                public boolean visit(File file, boolean isDir) {
+                    return listener.onVisit(file);
+                }
+            }).run();
+        }
+    }
+
+    /**
+     * 顺序遍历的迭代器，每次 next 时才读取需要的目录，忽略并行度设置
+     *
+     * @return 迭代器
+     */
+    public Iterator<File> iterator() {
+        return new WalkIterator();
+    }
+
+    /**
+     * 遍历结果收集到链表
+     *
+     * @return 文件链表，根目录不存在时返回空链表
+     */
+    public List<File> list() {
+        final List<File> result = parallelism <= 1 ? new ArrayList<File>()
+                : Collections.synchronizedList(new ArrayList<File>());
+        walk(new OnFileVisitListener() {
+            @Override
+            public boolean onVisit(File file) {
+                result.add(file);
+                return true;
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 只统计数量与大小，不构建结果链表
+     *
+     * @return 统计结果
+     */
+    public WalkResult count() {
+        final AtomicLong files = new AtomicLong();
+        final AtomicLong dirs = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+        if (IFile.isDir(root)) {
+            Visitor visitor = new Visitor() {
+                @Override
+                public boolean visit(File file, boolean isDir) {
+                    if (isDir) {
+                        dirs.incrementAndGet();
+                    } else {
+                        files.incrementAndGet();
+                        bytes.addAndGet(file.length());
+                    }
+                    return true;
+                }
+            };
+            if (parallelism <= 1) {
+                WalkIterator it = new WalkIterator();
+                while (it.hasNext()) {
+                    File file = it.next();
+                    visitor.visit(file, it.lastIsDir);
+                }
+            } else {
+                new ParallelWalk(visitor).run();
+            }
+        }
+        return new WalkResult(files.get(), dirs.get(), bytes.get());
+    }
+
+    private boolean isCanceled() {
+        return token != null && token.isCanceled();
+    }
+
+    private boolean acceptName(final File dir, final String name) {
+        return nameFilter == null || nameFilter.accept(dir, name);
+    }
+
+    /**
+     * 计算可以进入的子目录的规范路径，不可进入时返回 {@code null}
+     */
+    private String enterable(final File dir, final String dirCanonical, final String name, final File child,
+                             final Set<String> visited) {
+        if (dirFilter != null && !dirFilter.accept(dir, name)) {
+            return null;
+        }
+        String canonical;
+        try {
+            canonical = child.getCanonicalPath();
+        } catch (IOException e) {
+            return null;
+        }
+        // 根目录 "/" 的规范路径已以分隔符结尾，不能直接拼接
+        boolean isLink = !canonical.equals(new File(dirCanonical, name).getPath());
+        if (isLink && !followLinks) {
+            return null;
+        }
+        if (visited != null && !visited.add(canonical)) {
+            return null;
+        }
+        return canonical;
+    }
+
+    private static String canonicalOf(final File dir) {
+        try {
+            return dir.getCanonicalPath();
+        } catch (IOException e) {
+            return dir.getAbsolutePath();
+        }
+    }
+
+    /**
+     * 目录栈帧
+     */
+    private static final class Frame {
+        final File dir;
+        final String canonical;
+        final String[] names;
+        final int depth;
+        int index;
+
+        Frame(final File dir, final String canonical, final int depth) {
+            this.dir = dir;
+            this.canonical = canonical;
+            this.depth = depth;
+            String[] list = dir.list();
+            this.names = list == null ? new String[0] : list;
+        }
+    }
+
+    private final class WalkIterator implements Iterator<File> {
+
+        private final ArrayDeque<Frame> stack = new ArrayDeque<>();
+        private final Set<String> visited;
+        private File next;
+        private boolean nextIsDir;
+        boolean lastIsDir;
+
+        WalkIterator() {
+            visited = followLinks ? Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>()) : null;
+            if (IFile.isDir(root) && maxDepth > 0) {
+                String canonical = canonicalOf(root);
+                if (visited != null) {
+                    visited.add(canonical);
+                }
+                stack.push(new Frame(root, canonical, 1));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                advance();
+            }
+            return next != null;
+        }
+
+        @Override
+        public File next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            File file = next;
+            lastIsDir = nextIsDir;
+            next = null;
+            return file;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private void advance() {
+            while (!stack.isEmpty()) {
+                if (isCanceled()) {
+                    stack.clear();
+                    return;
+                }
+                Frame frame = stack.peek();
+                if (frame.index >= frame.names.length) {
+                    stack.pop();
+                    continue;
+                }
+                String name = frame.names[frame.index++];
+                boolean report = acceptName(frame.dir, name);
+                boolean canDescend = frame.depth < maxDepth;
+                if (!report && !canDescend) {
+                    // 名称未通过且不会再往下走，不需要 stat
+                    continue;
+                }
+                File child = new File(frame.dir, name);
+                boolean isDir = child.isDirectory();
+                if (report && fileFilter != null) {
+                    report = fileFilter.accept(child);
+                }
+                if (isDir && canDescend) {
+                    String canonical = enterable(frame.dir, frame.canonical, name, child, visited);
+                    if (canonical != null) {
+                        stack.push(new Frame(child, canonical, frame.depth + 1));
+                    }
+                }
+                if (report) {
+                    next = child;
+                    nextIsDir = isDir;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 每个目录一个任务的并行遍历，pending 归零时结束
+     */
+    private final class ParallelWalk {
+
+        private final Visitor visitor;
+        private final Set<String> visited;
+        private final AtomicInteger pending = new AtomicInteger();
+        private final Object lock = new Object();
+        private final ExecutorService executor;
+        private volatile boolean stopped;
+        private RuntimeException error;
+
+        ParallelWalk(final Visitor visitor) {
+            this.visitor = visitor;
+            this.visited = followLinks ? Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>()) : null;
+            this.executor = Executors.newFixedThreadPool(parallelism);
+        }
+
+        void run() {
+            if (maxDepth <= 0) {
+                executor.shutdown();
+                return;
+            }
+            String canonical = canonicalOf(root);
+            if (visited != null) {
+                visited.add(canonical);
+            }
+            submit(root, canonical, 1);
+            synchronized (lock) {
+                while (pending.get() > 0) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        stopped = true;
+                        break;
+                    }
+                }
+            }
+            executor.shutdownNow();
+            if (error != null) {
+                throw error;
+            }
+        }
+
+        private void submit(final File dir, final String canonical, final int depth) {
+            pending.incrementAndGet();
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (!stopped && !isCanceled()) {
+                            process(new Frame(dir, canonical, depth));
+                        }
+                    } catch (RuntimeException e) {
+                        synchronized (lock) {
+                            if (error == null) {
+                                error = e;
+                            }
+                        }
+                        stopped = true;
+                    } finally {
+                        finishOne();
+                    }
+                }
+            });
+        }
+
+        private void finishOne() {
+            if (pending.decrementAndGet() == 0) {
+                synchronized (lock) {
+                    lock.notifyAll();
+                }
+            }
+        }
+
+        private void process(final Frame frame) {
+            for (String name : frame.names) {
+                if (stopped || isCanceled()) {
+                    return;
+                }
+                boolean report = acceptName(frame.dir, name);
+                boolean canDescend = frame.depth < maxDepth;
+                if (!report && !canDescend) {
+                    continue;
+                }
+                File child = new File(frame.dir, name);
+                boolean isDir = child.isDirectory();
+                if (report && fileFilter != null) {
+                    report = fileFilter.accept(child);
+                }
+                if (isDir && canDescend) {
+                    String canonical = enterable(frame.dir, frame.canonical, name, child, visited);
+                    if (canonical != null) {
+                        submit(child, canonical, frame.depth + 1);
+                    }
+                }
+                if (report && !visitor.visit(child, isDir)) {
+                    stopped = true;
+                    return;
+                }
+            }
+        }
+    }
+
+    private interface Visitor {
+        boolean visit(File file, boolean isDir);
+    }
+
+    /**
+     * 遍历回调
+     */
+    public interface OnFileVisitListener {
+
+        /**
+         * 访问到一项
+         *
+         * @param file 文件或目录
+         * @return {@code true}: 继续<br>{@code false}: 结束遍历
+         */
+        boolean onVisit(File file);
+    }
+
+    /**
+     * 统计结果
+     */
+    public static final class WalkResult {
+
+        private final long fileCount;
+        private final long dirCount;
+        private final long totalBytes;
+
+        WalkResult(final long fileCount, final long dirCount, final long totalBytes) {
+            this.fileCount = fileCount;
+            this.dirCount = dirCount;
+            this.totalBytes = totalBytes;
+        }
+
+        /**
+         * 文件数
+         */
+        public long getFileCount() {
+            return fileCount;
+        }
+
+        /**
+         * 目录数
+         */
+        public long getDirCount() {
+            return dirCount;
+        }
+
+        /**
+         * 文件总字节数
+         */
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "WalkResult{" +
+                    "fileCount=" + fileCount +
+                    ", dirCount=" + dirCount +
+                    ", totalBytes=" + totalBytes +
+                    '}';
+        }
+    }
+}
@@ -4,16 +4,25 @@ import static com.liuhanze.iutil.lang.IString.EMPTY;
 
 import androidx.annotation.Nullable;
 
+import com.liuhanze.iutil.lang.BufferPool;
 import com.liuhanze.iutil.lang.IString;
 import com.liuhanze.iutil.log.ILog;
 
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.util.List;
 
 public final class IFile {
@@ -24,6 +33,8 @@ public final class IFile {
      * 换行符
      */
     private static final String LINE_BREAK = "\r\n";
+    private static final int CHAR_BUFFER_LEN = 8192;
+    private static final int BYTE_BUFFER_LEN = 64 * 1024;
     /**
      * 文件类型
      */
@@ -243,6 +254,246 @@ public final class IFile {
         return readInputStream(inputStream,true,READ_NORMAL);
     }
 
+    /**
+     * 读取输入流转字符串，按块解码，不按行拆分，保留原有换行符
+     *
+     * @param inputStream 输入流，读取后关闭
+     * @param charset     字符集
+     * @return 字符串，读取失败返回 {@code null}
+     */
+    public static String readString(final InputStream inputStream, final Charset charset) {
+        if (inputStream == null || charset == null) {
+            return null;
+        }
+        try (Reader reader = new InputStreamReader(inputStream, charset)) {
+            StringBuilder sb = new StringBuilder(Math.max(16, inputStream.available()));
+            char[] buffer = new char[CHAR_BUFFER_LEN];
+            int len;
+            while ((len = reader.read(buffer)) != -1) {
+                sb.append(buffer, 0, len);
+            }
+            return sb.toString();
+        } catch (IOException e) {
+            e.printStackTrace();
+            ILog.LogError(e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * 读取文件转字符串，整个文件一次读入后解码
+     *
+     * @param file    文件
+     * @param charset 字符集
+     * @return 字符串，读取失败返回 {@code null}
+     */
+    public static String readString(final File file, final Charset charset) {
+        if (charset == null) {
+            return null;
+        }
+        byte[] bytes = readFileToBytes(file);
+        return bytes == null ? null : new String(bytes, charset);
+    }
+
+    /**
+     * 读取文件到字节数组，数组按文件长度一次分配
+     *
+     * @param file 文件
+     * @return 文件内容，读取失败或文件超过 2GB 返回 {@code null}
+     */
+    public static byte[] readFileToBytes(final File file) {
+        if (!isFile(file)) {
+            return null;
+        }
+        try (FileInputStream fis = new FileInputStream(file)) {
+            FileChannel channel = fis.getChannel();
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                return null;
+            }
+            byte[] bytes = new byte[(int) size];
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+            if (buffer.hasRemaining()) {
+                // 读取过程中文件被截断
+                byte[] truncated = new byte[buffer.position()];
+                System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+                return truncated;
+            }
+            return bytes;
+        } catch (IOException e) {
+            e.printStackTrace();
+            ILog.LogError(e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * 以内存映射方式只读打开文件
+     * <p>适合大文件：内容按需从页缓存载入，不占用 Java 堆。映射在 buffer 被回收前一直有效，
+     * 文件被其他进程截断后访问会出错。</p>
+     *
+     * @param file 文件
+     * @return 只读的映射缓冲区，失败或文件超过 2GB 返回 {@code null}
+     */
+    public static MappedByteBuffer readFileToByteBuffer(final File file) {
+        if (!isFile(file)) {
+            return null;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                return null;
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (IOException e) {
+            e.printStackTrace();
+            ILog.LogError(e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * 复制文件，使用 {@link FileChannel#transferTo} 由内核直接拷贝
+     *
+     * @param srcFile  源文件
+     * @param destFile 目标文件，已存在时覆盖
+     * @return {@code true}: 复制成功<br>{@code false}: 复制失败
+     */
+    public static boolean copyFile(final File srcFile, final File destFile) {
+        if (!isFile(srcFile) || destFile == null) {
+            return false;
+        }
+        if (srcFile.getAbsoluteFile().equals(destFile.getAbsoluteFile())) {
+            return false;
+        }
+        // 相对路径 "out.bin" 的 getParentFile() 为 null，需先转为绝对路径
+        if (!createOrExistsDir(destFile.getAbsoluteFile().getParentFile())) {
+            return false;
+        }
+        try (FileInputStream in = new FileInputStream(srcFile);
+             FileOutputStream out = new FileOutputStream(destFile)) {
+            FileChannel src = in.getChannel();
+            FileChannel dest = out.getChannel();
+            long size = src.size();
+            long position = 0;
+            while (position < size) {
+                long n = src.transferTo(position, size - position, dest);
+                if (n <= 0) {
+                    break;
+                }
+                position += n;
+            }
+            return position == size;
+        } catch (IOException e) {
+            e.printStackTrace();
+            ILog.LogError(e.toString());
+            return false;
+        }
+    }
+
+    /**
+     * 复制流，不关闭输入输出流
+     *
+     * @param in  输入流
+     * @param out 输出流
+     * @return 复制的字节数
+     * @throws IOException IO 错误时抛出
+     */
+    public static long copyStream(final InputStream in, final OutputStream out) throws IOException {
+        byte[] buffer = BufferPool.acquire(BYTE_BUFFER_LEN);
+        try {
+            long total = 0;
+            int len;
+            while ((len = in.read(buffer, 0, BYTE_BUFFER_LEN)) != -1) {
+                out.write(buffer, 0, len);
+                total += len;
+            }
+            return total;
+        } finally {
+            BufferPool.release(buffer);
+        }
+    }
+
+    /**
+     * 原子写文件：先写同目录临时文件并 fsync，再重命名为目标文件，中途崩溃不会留下写了一半的文件；
+     * 目录未 fsync，提交后随即断电可能仍是旧文件
+     *
+     * @param file 目标文件，已存在时替换
+     * @param data 文件内容
+     * @return {@code true}: 写入成功<br>{@code false}: 写入失败，目标文件保持不变
+     */
+    public static boolean writeFileAtomic(final File file, final byte[] data) {
+        if (file == null || data == null) {
+            return false;
+        }
+        try (AtomicOutputStream os = new AtomicOutputStream(file)) {
+            os.write(data, 0, data.length);
+            os.commit();
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            ILog.LogError(e.toString());
+            return false;
+        }
+    }
+
+    /**
+     * 原子写文件
+     *
+     * @param file    目标文件，已存在时替换
+     * @param content 文件内容
+     * @param charset 编码
+     * @return {@code true}: 写入成功<br>{@code false}: 写入失败，目标文件保持不变
+     */
+    public static boolean writeFileAtomic(final File file, final String content, final Charset charset) {
+        if (content == null) {
+            return false;
+        }
+        return writeFileAtomic(file, content.getBytes(charset));
+    }
+
+    /**
+     * 打开原子写输出流，写完后调用 {@link AtomicOutputStream#commit()} 提交，
+     * 未提交就关闭会丢弃写入的内容
+     *
+     * @param file 目标文件
+     * @return 输出流，无法创建临时文件时返回 {@code null}
+     */
+    public static AtomicOutputStream openAtomicOutputStream(final File file) {
+        if (file == null) {
+            return null;
+        }
+        try {
+            return new AtomicOutputStream(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+            ILog.LogError(e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * 获取原子写的累计统计（吞吐量、fsync 耗时）
+     *
+     * @return 统计快照
+     */
+    public static AtomicWriteStat getAtomicWriteStat() {
+        return AtomicWriteStat.snapshot();
+    }
+
+    /**
+     * 清零原子写的累计统计
+     */
+    public static void resetAtomicWriteStat() {
+        AtomicWriteStat.reset();
+    }
+
     /**
      * 获取目录下所有文件
      * <p>不递归进子目录</p>
@@ -306,20 +557,64 @@ public final class IFile {
         if (!isDir(dir)) {
             return null;
         }
-        List<File> list = new ArrayList<>();
-        File[] files = dir.listFiles();
-        if (files != null && files.length != 0) {
-            for (File file : files) {
-                if (filter.accept(file)) {
-                    list.add(file);
-                }
-                if (isRecursive && file.isDirectory()) {
-                    //noinspection ConstantConditions
-                    list.addAll(listFilesInDirWithFilter(file, filter, true));
-                }
-            }
+        // 显式栈遍历，深层目录不会栈溢出；沿用原来跟随链接的行为，成环的链接只进入一次
+        return new FileWalker(dir)
+                .setFileFilter(filter)
+                .setMaxDepth(isRecursive ? Integer.MAX_VALUE : 1)
+                .setFollowLinks(true)
+                .list();
+    }
+
+    /**
+     * 统计目录占用，线程数为 CPU 核数，返回最大的 10 个文件
+     *
+     * @param dirPath 目录路径
+     * @return 统计结果，目录不存在或统计失败返回 {@code null}
+     */
+    public static DirUsage getDirUsage(final String dirPath) {
+        return getDirUsage(getFileByPath(dirPath));
+    }
+
+    /**
+     * 统计目录占用，线程数为 CPU 核数，返回最大的 10 个文件
+     *
+     * @param dir 目录
+     * @return 统计结果，目录不存在或统计失败返回 {@code null}
+     */
+    public static DirUsage getDirUsage(final File dir) {
+        return getDirUsage(dir, 10, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 统计目录占用
+     * <p>结果按目录缓存并以目录修改时间校验，再次统计同一目录时只重新读取有变化的目录；
+     * 原地改写文件内容不会改变目录修改时间，需要时先调用 {@link #clearDirUsageCache()}。
+     * 不进入指向目录的符号链接。</p>
+     *
+     * @param dir         目录
+     * @param topN        返回最大文件的个数
+     * @param threadCount 工作线程数
+     * @return 统计结果，目录不存在或统计失败返回 {@code null}
+     */
+    public static DirUsage getDirUsage(final File dir, final int topN, final int threadCount) {
+        if (!isDir(dir)) {
+            return null;
+        }
+        try {
+            return DirUsageScanner.scan(dir, topN, threadCount);
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
-        return list;
+        return null;
+    }
+
+    /**
+     * 清空目录占用统计的缓存
+     */
+    public static void clearDirUsageCache() {
+        DirUsageScanner.clear();
     }
 
     /**
@@ -485,37 +780,7 @@ public final class IFile {
      * @return
      */
     public static String getMIMEType(File file) {
-
-        String type="*/*";
-
-        String fName = file.getName();
-
-        //获取后缀名前的分隔符"."在fName中的位置。
-
-        int dotIndex = fName.lastIndexOf(".");
-
-        if(dotIndex < 0)
-
-            return type;
-
-        /* 获取文件的后缀名 */
-
-        String fileType = fName.substring(dotIndex,fName.length()).toLowerCase();
-
-        if(fileType == null || "".equals(fileType))
-
-            return type;
-
-        //在MIME和文件类型的匹配表中找到对应的MIME类型。
-        for(int i=0;i<MIME_MapTable.length;i++){
-
-            if(fileType.equals(MIME_MapTable[i][0]))
-                type = MIME_MapTable[i][1];
-            return type;
-        }
-
-        return type;
-
+        return IMime.getMimeType(file.getName());
     }
 
 }
@@ -0,0 +1,316 @@
+package com.liuhanze.iutil.file;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * MIME 类型查询
+ * <p>由 {@link IFile#MIME_MapTable} 预先构建的只读散列索引，查询时直接在文件名上计算后缀的散列，
+ * 不截取子串也不转小写。</p>
+ * <p>没有后缀或后缀未知时可以读取文件头的魔数来判断，判断结果按路径缓存。</p>
+ */
+public final class IMime {
+
+    /**
+     * 未知类型
+     */
+    public static final String UNKNOWN = "*/*";
+
+    private static final int SNIFF_LEN = 16;
+    private static final int SNIFF_CACHE_SIZE = 256;
+
+    /**
+     * 开放寻址表，键为不带 '.' 的小写后缀
+     */
+    private static final String[] KEYS;
+    private static final String[] VALUES;
+    private static final int MASK;
+    private static final Map<String, List<String>> EXTENSIONS;
+
+    private static final LinkedHashMap<String, SniffResult> SNIFF_CACHE =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    static {
+        String[][] table = IFile.MIME_MapTable;
+        int capacity = Integer.highestOneBit(table.length * 2 - 1) << 1;
+        KEYS = new String[capacity];
+        VALUES = new String[capacity];
+        MASK = capacity - 1;
+        Map<String, List<String>> reverse = new HashMap<>();
+        for (String[] row : table) {
+            String ext = row[0];
+            if (ext.length() < 2) {
+                continue;
+            }
+            String key = ext.substring(1).toLowerCase(Locale.ROOT);
+            int i = hash(key, 0, key.length()) & MASK;
+            while (KEYS[i] != null && !KEYS[i].equals(key)) {
+                i = (i + 1) & MASK;
+            }
+            if (KEYS[i] == null) {
+                // 与原线性查找一致，重复的后缀以先出现的为准
+                KEYS[i] = key;
+                VALUES[i] = row[1];
+            }
+            List<String> list = reverse.get(row[1]);
+            if (list == null) {
+                list = new ArrayList<>();
+                reverse.put(row[1], list);
+            }
+            list.add(ext);
+        }
+        for (Map.Entry<String, List<String>> entry : reverse.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        EXTENSIONS = Collections.unmodifiableMap(reverse);
+    }
+
+    private IMime() {
+
+    }
+
+    /**
+     * 按文件名后缀获取 MIME 类型
+     *
+     * @param fileName 文件名或路径
+     * @return MIME 类型，未知时返回 {@link #UNKNOWN}
+     */
+    public static String getMimeType(final String fileName) {
+        String type = lookup(fileName);
+        return type == null ? UNKNOWN : type;
+    }
+
+    /**
+     * 按文件名后缀获取 MIME 类型
+     *
+     * @param file  文件
+     * @param sniff 没有后缀或后缀未知时是否读取文件头判断
+     * @return MIME 类型，未知时返回 {@link #UNKNOWN}
+     */
+    public static String getMimeType(final File file, final boolean sniff) {
+        if (file == null) {
+            return UNKNOWN;
+        }
+        String type = lookup(file.getName());
+        if (type == null && sniff) {
+            type = sniff(file);
+        }
+        return type == null ? UNKNOWN : type;
+    }
+
+    /**
+     * 获取 MIME 类型对应的所有后缀
+     *
+     * @param mimeType MIME 类型
+     * @return 带 '.' 的后缀链表，顺序与 {@link IFile#MIME_MapTable} 一致，未知时返回空链表
+     */
+    public static List<String> getExtensions(final String mimeType) {
+        List<String> list = mimeType == null ? null : EXTENSIONS.get(mimeType.toLowerCase(Locale.ROOT));
+        return list == null ? Collections.<String>emptyList() : list;
+    }
+
+    /**
+     * 读取文件头的魔数判断 MIME 类型，结果按路径缓存，文件修改时间或大小变化后重新读取
+     *
+     * @param file 文件
+     * @return MIME 类型，无法判断时返回 {@code null}
+     */
+    public static String sniff(final File file) {
+        if (!IFile.isFile(file)) {
+            return null;
+        }
+        String path = file.getAbsolutePath();
+        long lastModified = file.lastModified();
+        long length = file.length();
+        synchronized (SNIFF_CACHE) {
+            SniffResult cached = SNIFF_CACHE.get(path);
+            if (cached != null && cached.lastModified == lastModified && cached.length == length) {
+                return cached.type;
+            }
+        }
+        byte[] head = new byte[SNIFF_LEN];
+        int len = 0;
+        InputStream is = null;
+        try {
+            is = new FileInputStream(file);
+            int n;
+            while (len < SNIFF_LEN && (n = is.read(head, len, SNIFF_LEN - len)) != -1) {
+                len += n;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            try {
+                if (is != null) {
+                    is.close();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        String type = sniff(head, len);
+        synchronized (SNIFF_CACHE) {
+            SNIFF_CACHE.put(path, new SniffResult(type, lastModified, length));
+            if (SNIFF_CACHE.size() > SNIFF_CACHE_SIZE) {
+                Iterator<String> it = SNIFF_CACHE.keySet().iterator();
+                it.next();
+                it.remove();
+            }
+        }
+        return type;
+    }
+
+    /**
+     * 按魔数判断 MIME 类型
+     *
+     * @param head 文件开头的数据
+     * @param len  数据长度
+     * @return MIME 类型，无法判断时返回 {@code null}
+     */
+    public static String sniff(final byte[] head, final int len) {
+        if (head == null || len < 2) {
+            return null;
+        }
+        if (startsWith(head, len, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return "image/png";
+        }
+        if (startsWith(head, len, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(head, len, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        }
+        if (startsWith(head, len, '%', 'P', 'D', 'F', '-')) {
+            return "application/pdf";
+        }
+        if (startsWith(head, len, 'P', 'K', 0x03, 0x04)) {
+            return "application/zip";
+        }
+        if (startsWith(head, len, 0x1F, 0x8B)) {
+            return "application/x-gzip";
+        }
+        if (startsWith(head, len, 'R', 'a', 'r', '!', 0x1A, 0x07)) {
+            return "application/x-rar-compressed";
+        }
+        if (startsWith(head, len, 0xCA, 0xFE, 0xBA, 0xBE)) {
+            return "application/octet-stream";
+        }
+        if (startsWith(head, len, 'O', 'g', 'g', 'S')) {
+            return "audio/ogg";
+        }
+        if (startsWith(head, len, 'I', 'D', '3')
+                || ((head[0] & 0xFF) == 0xFF && (head[1] & 0xE0) == 0xE0)) {
+            return "audio/x-mpeg";
+        }
+        if (len >= 12 && startsWith(head, len, 'R', 'I', 'F', 'F')) {
+            if (head[8] == 'W' && head[9] == 'A' && head[10] == 'V' && head[11] == 'E') {
+                return "audio/x-wav";
+            }
+            if (head[8] == 'A' && head[9] == 'V' && head[10] == 'I' && head[11] == ' ') {
+                return "video/x-msvideo";
+            }
+            return null;
+        }
+        if (len >= 12 && head[4] == 'f' && head[5] == 't' && head[6] == 'y' && head[7] == 'p') {
+            if (head[8] == '3' && head[9] == 'g') {
+                return "video/3gpp";
+            }
+            if (head[8] == 'q' && head[9] == 't') {
+                return "video/quicktime";
+            }
+            if (head[8] == 'M' && head[9] == '4' && head[10] == 'A') {
+                return "audio/mp4a-latm";
+            }
+            return "video/mp4";
+        }
+        if (startsWith(head, len, 'B', 'M')) {
+            return "image/bmp";
+        }
+        if (startsWith(head, len, 'M', 'Z')) {
+            return "application/octet-stream";
+        }
+        return null;
+    }
+
+    /**
+     * 清空魔数判断结果缓存
+     */
+    public static void clearSniffCache() {
+        synchronized (SNIFF_CACHE) {
+            SNIFF_CACHE.clear();
+        }
+    }
+
+    private static String lookup(final String fileName) {
+        if (fileName == null) {
+            return null;
+        }
+        int dotIndex = fileName.lastIndexOf('.');
+        int start = dotIndex + 1;
+        int end = fileName.length();
+        if (dotIndex < 0 || start == end || fileName.indexOf('/', start) >= 0
+                || fileName.indexOf(File.separatorChar, start) >= 0) {
+            return null;
+        }
+        int len = end - start;
+        int i = hash(fileName, start, end) & MASK;
+        String key;
+        while ((key = KEYS[i]) != null) {
+            if (key.length() == len && fileName.regionMatches(true, start, key, 0, len)) {
+                return VALUES[i];
+            }
+            i = (i + 1) & MASK;
+        }
+        return null;
+    }
+
+    /**
+     * 按 ASCII 小写计算的散列
+     */
+    private static int hash(final String s, final int start, final int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            }
+            h = 31 * h + c;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean startsWith(final byte[] head, final int len, final int... magic) {
+        if (len < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((head[i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class SniffResult {
+        final String type;
+        final long lastModified;
+        final long length;
+
+        SniffResult(final String type, final long lastModified, final long length) {
+            this.type = type;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+    }
+}
@@ -1,9 +1,10 @@
 package com.liuhanze.iutil.file;
 
+import com.liuhanze.iutil.lang.BufferPool;
+import com.liuhanze.iutil.lang.CancelToken;
 import com.liuhanze.iutil.lang.IString;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -11,8 +12,10 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.zip.ZipEntry;
@@ -111,6 +114,161 @@ public final class IZip {
         return false;
     }
 
+    /**
+     * 并行批量压缩文件，线程数为 CPU 核数
+     *
+     * @param resFilePaths 待压缩文件路径集合
+     * @param zipFilePath  压缩文件路径
+     * @param comment      压缩文件的注释
+     * @return 压缩统计（含吞吐量），压缩失败返回 {@code null}
+     */
+    public static ZipStat zipFilesParallel(final Collection<String> resFilePaths,
+                                           final String zipFilePath,
+                                           final String comment) {
+        if (resFilePaths == null || zipFilePath == null) {
+            return null;
+        }
+        List<File> resFiles = new ArrayList<>(resFilePaths.size());
+        for (String resFilePath : resFilePaths) {
+            resFiles.add(IFile.getFileByPath(resFilePath));
+        }
+        return zipFilesParallel(resFiles, IFile.getFileByPath(zipFilePath), comment);
+    }
+
+    /**
+     * 并行批量压缩文件，线程数为 CPU 核数
+     *
+     * @param resFiles 待压缩文件集合
+     * @param zipFile  压缩文件
+     * @param comment  压缩文件的注释
+     * @return 压缩统计（含吞吐量），压缩失败返回 {@code null}
+     */
+    public static ZipStat zipFilesParallel(final Collection<File> resFiles,
+                                           final File zipFile,
+                                           final String comment) {
+        return zipFilesParallel(resFiles, zipFile, comment, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 并行批量压缩文件
+     * <p>各条目在线程池中独立压缩，再按与 {@link #zipFiles(Collection, File, String)} 相同的条目顺序写入，
+     * 输出为标准 ZIP（不支持 ZIP64，条目数不超过 65535，单个条目与总大小不超过 4GB）。</p>
+     *
+     * @param resFiles    待压缩文件集合
+     * @param zipFile     压缩文件
+     * @param comment     压缩文件的注释
+     * @param threadCount 工作线程数
+     * @return 压缩统计（含吞吐量），压缩失败返回 {@code null}
+     */
+    public static ZipStat zipFilesParallel(final Collection<File> resFiles,
+                                           final File zipFile,
+                                           final String comment,
+                                           final int threadCount) {
+        return zipFilesParallel(resFiles, zipFile, comment, threadCount, ZipProfile.DEFAULT);
+    }
+
+    /**
+     * 并行批量压缩文件，按指定配置压缩
+     *
+     * @param resFiles    待压缩文件集合
+     * @param zipFile     压缩文件
+     * @param comment     压缩文件的注释
+     * @param threadCount 工作线程数
+     * @param profile     压缩配置，见 {@link ZipProfile}
+     * @return 压缩统计（含吞吐量与每个条目的压缩率），压缩失败返回 {@code null}
+     */
+    public static ZipStat zipFilesParallel(final Collection<File> resFiles,
+                                           final File zipFile,
+                                           final String comment,
+                                           final int threadCount,
+                                           @ZipProfile.Profile final int profile) {
+        if (resFiles == null || zipFile == null) {
+            return null;
+        }
+        for (File resFile : resFiles) {
+            if (resFile == null) {
+                return null;
+            }
+        }
+        try {
+            return ParallelZipper.zip(resFiles, zipFile, comment, threadCount, profile);
+        } catch (IOException e) {
+            e.printStackTrace();
+            //noinspection ResultOfMethodCallIgnored
+            zipFile.delete();
+        }
+        return null;
+    }
+
+    /**
+     * 增量压缩文件
+     *
+     * @param resFile 待压缩文件
+     * @param zipFile 压缩文件，不存在时全量压缩
+     * @param comment 压缩文件的注释
+     * @return 压缩统计，压缩失败返回 {@code null}
+     */
+    public static ZipStat zipFileIncremental(final File resFile,
+                                             final File zipFile,
+                                             final String comment) {
+        if (resFile == null) {
+            return null;
+        }
+        return zipFilesIncremental(Collections.singletonList(resFile), zipFile, comment, false);
+    }
+
+    /**
+     * 批量增量压缩文件
+     * <p>对比已有压缩文件的中央目录，大小与修改时间都未变化的条目（verifyCrc 为 {@code true} 时还要求 CRC 一致）
+     * 直接拷贝原压缩数据，只有新增或变化的文件才重新压缩；源中已不存在的条目不会保留。</p>
+     * <p>修改时间按 ZIP 的 2 秒精度比较。由 {@link #zipFiles(Collection, File, String)} 生成的压缩文件
+     * 未记录修改时间，首次增量压缩会全部重新压缩。</p>
+     *
+     * @param resFiles  待压缩文件集合
+     * @param zipFile   压缩文件，不存在时全量压缩
+     * @param comment   压缩文件的注释
+     * @param verifyCrc 是否额外校验 CRC，需要读一遍源文件，但仍不必重新压缩
+     * @return 压缩统计（{@link ZipStat#getReusedEntryCount()} 为直接拷贝的条目数），压缩失败返回 {@code null}
+     */
+    public static ZipStat zipFilesIncremental(final Collection<File> resFiles,
+                                              final File zipFile,
+                                              final String comment,
+                                              final boolean verifyCrc) {
+        return zipFilesIncremental(resFiles, zipFile, comment, verifyCrc, ZipProfile.DEFAULT);
+    }
+
+    /**
+     * 批量增量压缩文件，新增或变化的文件按指定配置压缩
+     *
+     * @param resFiles  待压缩文件集合
+     * @param zipFile   压缩文件，不存在时全量压缩
+     * @param comment   压缩文件的注释
+     * @param verifyCrc 是否额外校验 CRC
+     * @param profile   压缩配置，见 {@link ZipProfile}
+     * @return 压缩统计，压缩失败返回 {@code null}
+     */
+    public static ZipStat zipFilesIncremental(final Collection<File> resFiles,
+                                              final File zipFile,
+                                              final String comment,
+                                              final boolean verifyCrc,
+                                              @ZipProfile.Profile final int profile) {
+        if (resFiles == null || zipFile == null) {
+            return null;
+        }
+        for (File resFile : resFiles) {
+            if (resFile == null) {
+                return null;
+            }
+        }
+        try {
+            return ParallelZipper.zipIncremental(resFiles, zipFile, comment,
+                    Runtime.getRuntime().availableProcessors(), profile, verifyCrc);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
     /**
      * 压缩文件
      *
@@ -217,10 +375,14 @@ public final class IZip {
                 ZipEntry entry = new ZipEntry(rootPath);
                 entry.setComment(comment);
                 zos.putNextEntry(entry);
-                byte[] buffer = new byte[BUFFER_LEN];
-                int len;
-                while ((len = is.read(buffer, 0, BUFFER_LEN)) != -1) {
-                    zos.write(buffer, 0, len);
+                byte[] buffer = BufferPool.acquire(BUFFER_LEN);
+                try {
+                    int len;
+                    while ((len = is.read(buffer, 0, BUFFER_LEN)) != -1) {
+                        zos.write(buffer, 0, len);
+                    }
+                } finally {
+                    BufferPool.release(buffer);
                 }
                 zos.closeEntry();
 
@@ -319,6 +481,73 @@ public final class IZip {
     }
 
 
+    /**
+     * 并行解压带有关键字的文件，线程数为 CPU 核数
+     *
+     * @param zipFile 待解压文件
+     * @param destDir 目标目录
+     * @param keyword 关键字
+     * @return 返回带有关键字的文件链表
+     * @throws IOException IO 错误时抛出
+     */
+    public static List<File> unzipFileByKeywordParallel(final File zipFile,
+                                                        final File destDir,
+                                                        final String keyword)
+            throws IOException {
+        return unzipFileByKeywordParallel(zipFile, destDir, keyword,
+                Runtime.getRuntime().availableProcessors(), null, null);
+    }
+
+    /**
+     * 并行解压带有关键字的文件
+     *
+     * @param zipFilePath 待解压文件路径
+     * @param destDirPath 目标目录路径
+     * @param keyword     关键字
+     * @param threadCount 工作线程数
+     * @param token       取消标记，可为 {@code null}
+     * @param listener    进度回调，可为 {@code null}
+     * @return 返回带有关键字的文件链表
+     * @throws IOException IO 错误时抛出
+     */
+    public static List<File> unzipFileByKeywordParallel(final String zipFilePath,
+                                                        final String destDirPath,
+                                                        final String keyword,
+                                                        final int threadCount,
+                                                        final CancelToken token,
+                                                        final OnUnzipProgressListener listener)
+            throws IOException {
+        return unzipFileByKeywordParallel(IFile.getFileByPath(zipFilePath), IFile.getFileByPath(destDirPath),
+                keyword, threadCount, token, listener);
+    }
+
+    /**
+     * 并行解压带有关键字的文件
+     * <p>每个工作线程持有独立的 {@link ZipFile} 句柄，目录骨架在解压前一次性创建。</p>
+     * <p>返回的链表与 {@link #unzipFileByKeyword(File, File, String)} 顺序一致；取消时只包含已完成的条目。</p>
+     *
+     * @param zipFile     待解压文件
+     * @param destDir     目标目录
+     * @param keyword     关键字
+     * @param threadCount 工作线程数
+     * @param token       取消标记，可为 {@code null}
+     * @param listener    进度回调，在工作线程中调用，可为 {@code null}
+     * @return 返回带有关键字的文件链表
+     * @throws IOException IO 错误时抛出
+     */
+    public static List<File> unzipFileByKeywordParallel(final File zipFile,
+                                                        final File destDir,
+                                                        final String keyword,
+                                                        final int threadCount,
+                                                        final CancelToken token,
+                                                        final OnUnzipProgressListener listener)
+            throws IOException {
+        if (zipFile == null || destDir == null) {
+            return null;
+        }
+        return ParallelUnzipper.unzip(zipFile, destDir, keyword, threadCount, token, listener);
+    }
+
     private static boolean unzipChildFile(final File destDir,
                                           final List<File> files,
                                           final ZipFile zf,
@@ -333,15 +562,11 @@ public final class IZip {
             if (!IFile.createOrExistsFile(file)) {
                 return false;
             }
-            try( InputStream  in = new BufferedInputStream(zf.getInputStream(entry));
-                    OutputStream  out = new BufferedOutputStream(new FileOutputStream(file))
+            try( InputStream  in = zf.getInputStream(entry);
+                    OutputStream  out = new FileOutputStream(file)
                 ) {
 
-                byte[] buffer = new byte[BUFFER_LEN];
-                int len;
-                while ((len = in.read(buffer)) != -1) {
-                    out.write(buffer, 0, len);
-                }
+                IFile.copyStream(in, out);
 
             } catch (FileNotFoundException e) {
                 e.printStackTrace();
@@ -352,6 +577,65 @@ public final class IZip {
         return true;
     }
 
+    /**
+     * 拷贝带有关键字的条目到新的压缩文件
+     *
+     * @param srcZipFilePath  源压缩文件路径
+     * @param destZipFilePath 目标压缩文件路径
+     * @param keyword         关键字，为空时拷贝全部条目
+     * @return 拷贝统计，失败返回 {@code null}
+     */
+    public static ZipStat copyEntriesByKeyword(final String srcZipFilePath,
+                                               final String destZipFilePath,
+                                               final String keyword) {
+        return copyEntriesByKeyword(IFile.getFileByPath(srcZipFilePath), IFile.getFileByPath(destZipFilePath), keyword);
+    }
+
+    /**
+     * 拷贝带有关键字的条目到新的压缩文件
+     * <p>筛选规则与 {@link #unzipFileByKeyword(File, File, String)} 相同。条目的压缩数据原样拷贝，
+     * 不解压也不重新压缩，条目名、注释、修改时间保持不变。选中的条目中有加密条目时拷贝失败。</p>
+     *
+     * @param srcZipFile  源压缩文件
+     * @param destZipFile 目标压缩文件，不能与源压缩文件相同
+     * @param keyword     关键字，为空时拷贝全部条目
+     * @return 拷贝统计，失败返回 {@code null}
+     */
+    public static ZipStat copyEntriesByKeyword(final File srcZipFile,
+                                               final File destZipFile,
+                                               final String keyword) {
+        if (srcZipFile == null || destZipFile == null
+                || srcZipFile.getAbsoluteFile().equals(destZipFile.getAbsoluteFile())) {
+            return null;
+        }
+        long start = System.currentTimeMillis();
+        ZipStat stat = new ZipStat();
+        stat.setThreadCount(1);
+        try {
+            ZipIndex index = ZipIndexCache.get(srcZipFile);
+            try (RandomAccessFile src = new RandomAccessFile(srcZipFile, "r");
+                 ZipRawWriter writer = new ZipRawWriter(new FileOutputStream(destZipFile))) {
+                for (int i = 0; i < index.size(); i++) {
+                    String name = index.getName(i);
+                    if (IString.isEmpty(keyword) || name.contains(keyword)) {
+                        writer.writeRawEntry(name, index.getComment(i), index, i, src);
+                        stat.addEntry(name, index.getMethod(i), index.getSize(i), index.getCompressedSize(i));
+                    }
+                }
+                writer.finish(null);
+                stat.setEntryCount(writer.getEntryCount());
+                stat.setReusedEntryCount(writer.getEntryCount());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            //noinspection ResultOfMethodCallIgnored
+            destZipFile.delete();
+            return null;
+        }
+        stat.setElapsedMillis(System.currentTimeMillis() - start);
+        return stat;
+    }
+
     /**
      * 获取压缩文件中的文件路径链表
      *
@@ -376,12 +660,7 @@ public final class IZip {
         if (zipFile == null) {
             return null;
         }
-        List<String> paths = new ArrayList<>();
-        Enumeration<?> entries = new ZipFile(zipFile).entries();
-        while (entries.hasMoreElements()) {
-            paths.add(((ZipEntry) entries.nextElement()).getName());
-        }
-        return paths;
+        return ZipIndexCache.get(zipFile).getNames();
     }
 
     /**
@@ -408,13 +687,67 @@ public final class IZip {
         if (zipFile == null) {
             return null;
         }
-        List<String> comments = new ArrayList<>();
-        Enumeration<?> entries = new ZipFile(zipFile).entries();
-        while (entries.hasMoreElements()) {
-            ZipEntry entry = ((ZipEntry) entries.nextElement());
-            comments.add(entry.getComment());
+        return ZipIndexCache.get(zipFile).getComments();
+    }
+
+    /**
+     * 获取压缩文件的中央目录索引
+     * <p>索引按 路径 + 修改时间 + 大小 缓存，文件未变化时不再重新解析。</p>
+     *
+     * @param zipFilePath 压缩文件路径
+     * @return 中央目录索引
+     * @throws IOException IO 错误时抛出
+     */
+    public static ZipIndex getIndex(final String zipFilePath)
+            throws IOException {
+        return getIndex(IFile.getFileByPath(zipFilePath));
+    }
+
+    /**
+     * 获取压缩文件的中央目录索引
+     * <p>索引按 路径 + 修改时间 + 大小 缓存，文件未变化时不再重新解析。</p>
+     *
+     * @param zipFile 压缩文件
+     * @return 中央目录索引
+     * @throws IOException IO 错误时抛出
+     */
+    public static ZipIndex getIndex(final File zipFile)
+            throws IOException {
+        if (zipFile == null) {
+            return null;
         }
-        return comments;
+        return ZipIndexCache.get(zipFile);
+    }
+
+    /**
+     * 设置中央目录索引缓存的内存上限，默认 8MB
+     *
+     * @param maxBytes 内存上限（字节）
+     */
+    public static void setIndexCacheSize(final long maxBytes) {
+        ZipIndexCache.setMaxBytes(maxBytes);
+    }
+
+    /**
+     * 清空中央目录索引缓存
+     */
+    public static void clearIndexCache() {
+        ZipIndexCache.clear();
+    }
+
+    /**
+     * 解压进度回调
+     */
+    public interface OnUnzipProgressListener {
+
+        /**
+         * 一个条目解压完成
+         *
+         * @param current 已完成条目数（含目录）
+         * @param total   条目总数
+         * @param file    刚完成的文件
+         */
+        void onProgress(int current, int total, File file);
     }
 
 }
@@ -0,0 +1,299 @@
+package com.liuhanze.iutil.file;
+
+import com.liuhanze.iutil.lang.BufferPool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 基于流的 ZIP 读写
+ * <p>数据来源与去向都不要求是文件，适合内存数据直接压缩上传、或边下载边解析压缩包。</p>
+ */
+public final class IZipStream {
+
+    private static final int BUFFER_LEN = 8192;
+
+    private IZipStream() {
+
+    }
+
+    /**
+     * 创建写入到输出流的压缩器
+     *
+     * @param out 输出流，{@link Writer#close()} 时一并关闭
+     * @return 压缩器
+     */
+    public static Writer newWriter(final OutputStream out) {
+        return new Writer(out);
+    }
+
+    /**
+     * 创建写入到通道的压缩器
+     *
+     * @param channel 通道，{@link Writer#close()} 时一并关闭
+     * @return 压缩器
+     */
+    public static Writer newWriter(final WritableByteChannel channel) {
+        return new Writer(Channels.newOutputStream(channel));
+    }
+
+    /**
+     * 创建从输入流读取的解压器
+     *
+     * @param in 输入流，{@link Reader#close()} 时一并关闭
+     * @return 解压器
+     */
+    public static Reader newReader(final InputStream in) {
+        return new Reader(in);
+    }
+
+    /**
+     * 创建从通道读取的解压器
+     *
+     * @param channel 通道，{@link Reader#close()} 时一并关闭
+     * @return 解压器
+     */
+    public static Reader newReader(final ReadableByteChannel channel) {
+        return new Reader(Channels.newInputStream(channel));
+    }
+
+    /**
+     * 流式压缩器
+     * <p>每次 putEntry 写入一个完整条目，最后调用 {@link #finish()} 或 {@link #close()} 写出中央目录。</p>
+     */
+    public static final class Writer implements Closeable {
+
+        private final ZipOutputStream zos;
+        private byte[] buffer;
+
+        private Writer(final OutputStream out) {
+            zos = new ZipOutputStream(out);
+        }
+
+        /**
+         * 设置压缩文件的注释
+         *
+         * @param comment 注释
+         * @return this
+         */
+        public Writer setComment(final String comment) {
+            zos.setComment(comment);
+            return this;
+        }
+
+        /**
+         * 设置后续条目的压缩级别
+         *
+         * @param level 0 ~ 9，-1 为默认级别
+         * @return this
+         */
+        public Writer setLevel(final int level) {
+            zos.setLevel(level);
+            return this;
+        }
+
+        /**
+         * 写入字节数组条目
+         *
+         * @param name 条目名
+         * @param data 数据
+         * @return this
+         * @throws IOException IO 错误时抛出
+         */
+        public Writer putEntry(final String name, final byte[] data) throws IOException {
+            return putEntry(name, data, 0, data.length);
+        }
+
+        /**
+         * 写入字节数组条目
+         *
+         * @param name 条目名
+         * @param data 数据
+         * @param off  起始位置
+         * @param len  长度
+         * @return this
+         * @throws IOException IO 错误时抛出
+         */
+        public Writer putEntry(final String name, final byte[] data, final int off, final int len)
+                throws IOException {
+            zos.putNextEntry(new ZipEntry(name));
+            zos.write(data, off, len);
+            zos.closeEntry();
+            return this;
+        }
+
+        /**
+         * 写入 ByteBuffer 条目
+         * <p>读取 position 到 limit 之间的数据，不改变 buffer 的 position。</p>
+         *
+         * @param name 条目名
+         * @param data 数据
+         * @return this
+         * @throws IOException IO 错误时抛出
+         */
+        public Writer putEntry(final String name, final ByteBuffer data) throws IOException {
+            if (data.hasArray()) {
+                return putEntry(name, data.array(), data.arrayOffset() + data.position(), data.remaining());
+            }
+            ByteBuffer src = data.duplicate();
+            byte[] buf = buffer();
+            zos.putNextEntry(new ZipEntry(name));
+            while (src.hasRemaining()) {
+                int len = Math.min(buf.length, src.remaining());
+                src.get(buf, 0, len);
+                zos.write(buf, 0, len);
+            }
+            zos.closeEntry();
+            return this;
+        }
+
+        /**
+         * 写入输入流条目，读到流结束为止，不关闭输入流
+         *
+         * @param name 条目名
+         * @param in   数据流
+         * @return this
+         * @throws IOException IO 错误时抛出
+         */
+        public Writer putEntry(final String name, final InputStream in) throws IOException {
+            byte[] buf = buffer();
+            zos.putNextEntry(new ZipEntry(name));
+            int len;
+            while ((len = in.read(buf)) != -1) {
+                zos.write(buf, 0, len);
+            }
+            zos.closeEntry();
+            return this;
+        }
+
+        /**
+         * 写入目录条目
+         *
+         * @param name 目录名，不以 '/' 结尾时自动补上
+         * @return this
+         * @throws IOException IO 错误时抛出
+         */
+        public Writer putDirectory(final String name) throws IOException {
+            zos.putNextEntry(new ZipEntry(name.endsWith("/") ? name : name + '/'));
+            zos.closeEntry();
+            return this;
+        }
+
+        /**
+         * 写出中央目录，但不关闭底层输出流
+         *
+         * @throws IOException IO 错误时抛出
+         */
+        public void finish() throws IOException {
+            zos.finish();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                zos.close();
+            } finally {
+                BufferPool.release(buffer);
+                buffer = null;
+            }
+        }
+
+        private byte[] buffer() {
+            if (buffer == null) {
+                buffer = BufferPool.acquire(BUFFER_LEN);
+            }
+            return buffer;
+        }
+    }
+
+    /**
+     * 流式解压器
+     * <p>按压缩包内顺序逐个返回条目，条目内容在调用方读取时才解压。</p>
+     */
+    public static final class Reader implements Closeable {
+
+        private final ZipInputStream zis;
+        private final InputStream entryStream;
+        private ZipEntry current;
+
+        private Reader(final InputStream in) {
+            zis = new ZipInputStream(in);
+            entryStream = new FilterInputStream(zis) {
+                @Override
+                public void close() {
+                    // 只结束当前条目的读取，由 Reader 负责关闭底层流
+                }
+            };
+        }
+
+        /**
+         * 移动到下一个条目，未读完的上一个条目内容将被跳过
+         *
+         * @return 条目，没有更多条目时返回 {@code null}
+         * @throws IOException IO 错误时抛出
+         */
+        public ZipEntry nextEntry() throws IOException {
+            current = zis.getNextEntry();
+            return current;
+        }
+
+        /**
+         * 当前条目
+         *
+         * @return 条目，未开始或已结束时返回 {@code null}
+         */
+        public ZipEntry getEntry() {
+            return current;
+        }
+
+        /**
+         * 当前条目的内容流，读到条目末尾返回 -1，关闭它不会关闭 Reader
+         *
+         * @return 内容流
+         */
+        public InputStream getInputStream() {
+            return entryStream;
+        }
+
+        /**
+         * 读取当前条目的全部内容
+         *
+         * @return 内容，没有当前条目时返回 {@code null}
+         * @throws IOException IO 错误时抛出
+         */
+        public byte[] readBytes() throws IOException {
+            if (current == null) {
+                return null;
+            }
+            long size = current.getSize();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(
+                    size > 0 && size < Integer.MAX_VALUE ? (int) size : BUFFER_LEN);
+            byte[] buf = BufferPool.acquire(BUFFER_LEN);
+            try {
+                int len;
+                while ((len = zis.read(buf, 0, BUFFER_LEN)) != -1) {
+                    out.write(buf, 0, len);
+                }
+            } finally {
+                BufferPool.release(buf);
+            }
+            return out.toByteArray();
+        }
+
+        @Override
+        public void close() throws IOException {
+            zis.close();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.liuhanze.iutil.file;
+
+import com.liuhanze.iutil.lang.BufferPool;
+import com.liuhanze.iutil.lang.CancelToken;
+import com.liuhanze.iutil.lang.IString;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * 并行解压引擎
+ * <p>先按关键字筛选条目并一次性建好目录骨架，再由各工作线程用各自的 {@link ZipFile} 句柄领取条目解压。</p>
+ */
+final class ParallelUnzipper {
+
+    private static final int COPY_BUFFER_LEN = 64 * 1024;
+
+    private ParallelUnzipper() {
+
+    }
+
+    static List<File> unzip(final File zipFile,
+                            final File destDir,
+                            final String keyword,
+                            final int threadCount,
+                            final CancelToken token,
+                            final IZip.OnUnzipProgressListener listener) throws IOException {
+        final List<ZipEntry> entries = new ArrayList<>();
+        try (ZipFile zf = new ZipFile(zipFile)) {
+            Enumeration<? extends ZipEntry> e = zf.entries();
+            while (e.hasMoreElements()) {
+                ZipEntry entry = e.nextElement();
+                if (IString.isEmpty(keyword) || entry.getName().contains(keyword)) {
+                    entries.add(entry);
+                }
+            }
+        }
+        final int total = entries.size();
+        final File[] files = new File[total];
+        final boolean[] done = new boolean[total];
+        final AtomicInteger doneCount = new AtomicInteger();
+
+        // 目录骨架只建一次，工作线程写文件时不再检查父目录
+        Set<File> dirs = new HashSet<>();
+        for (int i = 0; i < total; i++) {
+            ZipEntry entry = entries.get(i);
+            files[i] = new File(destDir + File.separator + entry.getName());
+            dirs.add(entry.isDirectory() ? files[i] : files[i].getParentFile());
+        }
+        for (File dir : dirs) {
+            if (!IFile.createOrExistsDir(dir)) {
+                throw new IOException("can not create directory: " + dir);
+            }
+        }
+        for (int i = 0; i < total; i++) {
+            if (entries.get(i).isDirectory()) {
+                done[i] = true;
+                doneCount.incrementAndGet();
+            }
+        }
+
+        final AtomicInteger next = new AtomicInteger();
+        int threads = Math.max(1, Math.min(threadCount, total));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Void>> futures = new ArrayList<>(threads);
+        try {
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        byte[] buffer = BufferPool.acquire(COPY_BUFFER_LEN);
+                        try (ZipFile zf = new ZipFile(zipFile)) {
+                            int i;
+                            while ((i = next.getAndIncrement()) < total) {
+                                if (token != null && token.isCanceled()) {
+                                    return null;
+                                }
+                                if (done[i]) {
+                                    continue;
+                                }
+                                extract(zf, entries.get(i), files[i], buffer);
+                                done[i] = true;
+                                int current = doneCount.incrementAndGet();
+                                if (listener != null) {
+                                    listener.onProgress(current, total, files[i]);
+                                }
+                            }
+                        } finally {
+                            BufferPool.release(buffer);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                await(future);
+            }
+        } catch (IOException e) {
+            // 让其余工作线程写完手头的条目后停下
+            next.set(total);
+            throw e;
+        } finally {
+            executor.shutdownNow();
+            awaitTermination(executor);
+        }
+
+        // future.get() 之后 done[] 的写入对当前线程可见
+        List<File> result = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            if (done[i]) {
+                result.add(files[i]);
+            }
+        }
+        return result;
+    }
+
+    private static void extract(final ZipFile zf, final ZipEntry entry, final File file, final byte[] buffer)
+            throws IOException {
+        try (InputStream in = zf.getInputStream(entry);
+             OutputStream out = new FileOutputStream(file)) {
+            int len;
+            while ((len = in.read(buffer, 0, COPY_BUFFER_LEN)) != -1) {
+                out.write(buffer, 0, len);
+            }
+        }
+    }
+
+    /**
+     * 等待全部工作线程退出，返回时不会再有线程写目标目录或持有压缩文件句柄
+     */
+    private static void awaitTermination(final ExecutorService executor) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(final Future<Void> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while extracting", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
@@ -0,0 +1,513 @@
+package com.liuhanze.iutil.file;
+
+import com.liuhanze.iutil.lang.BufferPool;
+import com.liuhanze.iutil.lang.IString;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * 并行压缩引擎
+ * <p>各条目在线程池中独立压缩为内存块或临时分段文件，再由调用线程按原顺序拼接成标准 ZIP。</p>
+ * <p>同时在途的条目数限制为线程数的两倍，内存占用有上界。</p>
+ * <p>增量模式下未变化的条目从原压缩文件拷贝压缩数据，不经过 Deflater。</p>
+ */
+final class ParallelZipper {
+
+    /**
+     * 超过该大小的条目压缩到临时分段文件，否则压缩到内存
+     */
+    private static final long SEGMENT_MEMORY_LIMIT = 1024 * 1024;
+    private static final int READ_BUFFER_LEN = 64 * 1024;
+    private static final int ENTROPY_SAMPLE_LEN = 4096;
+    private static final int ENTROPY_MIN_SAMPLE_LEN = 512;
+    /**
+     * 首块字节熵（bit/字节）不低于该值时认为数据已压缩或加密
+     */
+    private static final double ENTROPY_STORE_THRESHOLD = 7.5;
+    private static final Set<String> COMPRESSED_MIME_TYPES = new HashSet<>(Arrays.asList(
+            "application/zip", "application/java-archive", "application/vnd.android.package-archive",
+            "application/x-gzip", "application/x-gtar", "application/x-rar-compressed",
+            "application/x-compressed", "application/x-compress"));
+    private static final Set<String> STORED_EXTENSIONS = storedExtensions();
+
+    private ParallelZipper() {
+
+    }
+
+    static ZipStat zip(final Collection<File> resFiles,
+                       final File zipFile,
+                       final String comment,
+                       final int threadCount,
+                       final int profile) throws IOException {
+        return zip(resFiles, zipFile, comment, threadCount, profile, null, null, false);
+    }
+
+    /**
+     * 增量压缩：已有压缩文件中大小、修改时间（可选 CRC）一致的条目直接拷贝压缩数据，其余条目重新压缩
+     * <p>新压缩文件先写到同目录的临时文件，成功后替换原文件。</p>
+     */
+    static ZipStat zipIncremental(final Collection<File> resFiles,
+                                  final File zipFile,
+                                  final String comment,
+                                  final int threadCount,
+                                  final int profile,
+                                  final boolean verifyCrc) throws IOException {
+        ZipIndex base = null;
+        if (IFile.isFile(zipFile)) {
+            try {
+                base = ZipIndexCache.get(zipFile);
+            } catch (ZipException e) {
+                // 原文件不是有效的压缩文件，按全量压缩处理
+                base = null;
+            }
+        }
+        if (base == null) {
+            return zip(resFiles, zipFile, comment, threadCount, profile);
+        }
+        File temp = File.createTempFile("izip", ".tmp", zipFile.getAbsoluteFile().getParentFile());
+        ZipStat stat;
+        try (RandomAccessFile baseFile = new RandomAccessFile(zipFile, "r")) {
+            stat = zip(resFiles, temp, comment, threadCount, profile, base, baseFile, verifyCrc);
+        } catch (IOException e) {
+            //noinspection ResultOfMethodCallIgnored
+            temp.delete();
+            throw e;
+        }
+        if (!temp.renameTo(zipFile) && !(zipFile.delete() && temp.renameTo(zipFile))) {
+            //noinspection ResultOfMethodCallIgnored
+            temp.delete();
+            throw new IOException("can not replace " + zipFile);
+        }
+        return stat;
+    }
+
+    private static ZipStat zip(final Collection<File> resFiles,
+                               final File zipFile,
+                               final String comment,
+                               final int threadCount,
+                               final int profile,
+                               final ZipIndex base,
+                               final RandomAccessFile baseFile,
+                               final boolean verifyCrc) throws IOException {
+        long start = System.currentTimeMillis();
+        final List<Source> sources = new ArrayList<>();
+        for (File resFile : resFiles) {
+            collect(resFile, "", sources);
+        }
+        final File segmentDir = zipFile.getAbsoluteFile().getParentFile();
+        int threads = Math.max(1, threadCount);
+        int window = threads * 2;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        ArrayDeque<Future<Segment>> inFlight = new ArrayDeque<>(window);
+        ZipStat stat = new ZipStat();
+        stat.setThreadCount(threads);
+        try (ZipRawWriter writer = new ZipRawWriter(new FileOutputStream(zipFile))) {
+            int next = 0;
+            while (next < sources.size() || !inFlight.isEmpty()) {
+                while (next < sources.size() && inFlight.size() < window) {
+                    final Source source = sources.get(next++);
+                    inFlight.add(executor.submit(new Callable<Segment>() {
+                        @Override
+                        public Segment call() throws Exception {
+                            if (base != null) {
+                                int i = base.indexOf(source.name);
+                                if (i >= 0 && isUnchanged(source, base, i, verifyCrc)) {
+                                    return reuse(source, comment, base, i);
+                                }
+                            }
+                            return compress(source, comment, segmentDir, profile);
+                        }
+                    }));
+                }
+                Segment segment = await(inFlight.poll());
+                try {
+                    if (segment.baseIndex >= 0) {
+                        writer.writeRawEntry(segment.name, segment.comment, base, segment.baseIndex, baseFile);
+                        stat.setReusedEntryCount(stat.getReusedEntryCount() + 1);
+                    } else {
+                        segment.writeTo(writer);
+                    }
+                } finally {
+                    segment.release();
+                }
+                stat.addEntry(segment.name, segment.method, segment.size, segment.compressedSize);
+            }
+            writer.finish(null);
+            stat.setEntryCount(writer.getEntryCount());
+        } finally {
+            executor.shutdownNow();
+            if (!inFlight.isEmpty()) {
+                releaseAll(executor, inFlight);
+            }
+        }
+        stat.setElapsedMillis(System.currentTimeMillis() - start);
+        return stat;
+    }
+
+    private static boolean isUnchanged(final Source source, final ZipIndex base, final int i,
+                                       final boolean verifyCrc) throws IOException {
+        if (source.directory) {
+            return base.isDirectory(i);
+        }
+        if (base.isDirectory(i)
+                || base.isEncrypted(i)
+                || base.getSize(i) != source.file.length()
+                || base.getDosTime(i) != ZipRawWriter.javaToDosTime(source.file.lastModified())) {
+            return false;
+        }
+        if (!verifyCrc) {
+            return true;
+        }
+        CRC32 crc = new CRC32();
+        byte[] buffer = BufferPool.acquire(READ_BUFFER_LEN);
+        try (InputStream is = new FileInputStream(source.file)) {
+            int len;
+            while ((len = is.read(buffer, 0, READ_BUFFER_LEN)) != -1) {
+                crc.update(buffer, 0, len);
+            }
+        } finally {
+            BufferPool.release(buffer);
+        }
+        return crc.getValue() == base.getCrc(i);
+    }
+
+    private static Segment reuse(final Source source, final String comment, final ZipIndex base, final int i) {
+        Segment segment = new Segment();
+        segment.name = source.name;
+        segment.comment = comment;
+        segment.baseIndex = i;
+        segment.method = base.getMethod(i);
+        segment.size = base.getSize(i);
+        segment.compressedSize = base.getCompressedSize(i);
+        return segment;
+    }
+
+    /**
+     * 按 {@link IZip} 串行压缩相同的规则展开条目
+     */
+    private static void collect(final File resFile, String rootPath, final List<Source> sources) {
+        rootPath = rootPath + (IString.isEmpty(rootPath) ? "" : File.separator) + resFile.getName();
+        if (resFile.isDirectory()) {
+            File[] fileList = resFile.listFiles();
+            if (fileList == null || fileList.length <= 0) {
+                sources.add(new Source(resFile, rootPath + '/', true));
+            } else {
+                for (File file : fileList) {
+                    collect(file, rootPath, sources);
+                }
+            }
+        } else {
+            sources.add(new Source(resFile, rootPath, false));
+        }
+    }
+
+    /**
+     * 失败时清理已经产出的分段，尚未开始的任务已被 shutdownNow 移除
+     */
+    private static void releaseAll(final ExecutorService executor, final ArrayDeque<Future<Segment>> inFlight) {
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Future<Segment> future : inFlight) {
+            if (future.isDone()) {
+                try {
+                    future.get().release();
+                } catch (Exception ignored) {
+                    // 任务本身失败，没有需要清理的分段
+                }
+            }
+        }
+    }
+
+    private static Segment await(final Future<Segment> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while compressing", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static Segment compress(final Source source, final String comment, final File segmentDir,
+                                    final int profile) throws IOException {
+        Segment segment = new Segment();
+        segment.name = source.name;
+        segment.comment = comment;
+        segment.time = source.file.lastModified();
+        if (source.directory) {
+            segment.directory = true;
+            return segment;
+        }
+        int level;
+        switch (profile) {
+            case ZipProfile.STORE:
+                return store(segment, source.file);
+            case ZipProfile.FASTEST:
+                level = Deflater.BEST_SPEED;
+                break;
+            case ZipProfile.BEST:
+                level = Deflater.BEST_COMPRESSION;
+                break;
+            case ZipProfile.ADAPTIVE:
+                if (isIncompressible(source.file)) {
+                    return store(segment, source.file);
+                }
+                level = Deflater.DEFAULT_COMPRESSION;
+                break;
+            default:
+                level = Deflater.DEFAULT_COMPRESSION;
+                break;
+        }
+        deflate(segment, source.file, segmentDir, level);
+        if (profile == ZipProfile.ADAPTIVE && segment.compressedSize >= segment.size) {
+            segment.release();
+            return store(segment, source.file);
+        }
+        return segment;
+    }
+
+    private static void deflate(final Segment segment, final File file, final File segmentDir, final int level)
+            throws IOException {
+        segment.method = ZipEntry.DEFLATED;
+        long length = file.length();
+        ByteArrayOutputStream memory = null;
+        OutputStream sink;
+        if (length > SEGMENT_MEMORY_LIMIT) {
+            segment.tempFile = File.createTempFile("izip", ".seg", segmentDir);
+            sink = new BufferedOutputStream(new FileOutputStream(segment.tempFile), READ_BUFFER_LEN);
+        } else {
+            memory = new ByteArrayOutputStream((int) Math.max(64, length / 2));
+            sink = memory;
+        }
+        Deflater deflater = new Deflater(level, true);
+        CRC32 crc = new CRC32();
+        byte[] in = BufferPool.acquire(READ_BUFFER_LEN);
+        byte[] out = BufferPool.acquire(READ_BUFFER_LEN);
+        try (InputStream is = new FileInputStream(file)) {
+            int len;
+            while ((len = is.read(in, 0, READ_BUFFER_LEN)) != -1) {
+                crc.update(in, 0, len);
+                deflater.setInput(in, 0, len);
+                while (!deflater.needsInput()) {
+                    int n = deflater.deflate(out);
+                    sink.write(out, 0, n);
+                }
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                int n = deflater.deflate(out);
+                sink.write(out, 0, n);
+            }
+            sink.close();
+            segment.crc = crc.getValue();
+            segment.size = deflater.getBytesRead();
+            segment.compressedSize = deflater.getBytesWritten();
+            if (memory != null) {
+                segment.data = memory.toByteArray();
+            }
+        } catch (IOException e) {
+            sink.close();
+            segment.release();
+            throw e;
+        } finally {
+            deflater.end();
+            BufferPool.release(in);
+            BufferPool.release(out);
+        }
+    }
+
+    /**
+     * 存储条目：小文件读入内存，大文件只计算 CRC，写入时再从源文件直接拷贝并校验 CRC
+     */
+    private static Segment store(final Segment segment, final File file) throws IOException {
+        segment.method = ZipEntry.STORED;
+        long length = file.length();
+        CRC32 crc = new CRC32();
+        try (InputStream is = new FileInputStream(file)) {
+            if (length <= SEGMENT_MEMORY_LIMIT) {
+                byte[] data = new byte[(int) length];
+                int off = 0;
+                int len;
+                while (off < data.length && (len = is.read(data, off, data.length - off)) != -1) {
+                    off += len;
+                }
+                if (off != data.length || is.read() != -1) {
+                    throw new IOException("file changed while compressing: " + file);
+                }
+                crc.update(data, 0, data.length);
+                segment.data = data;
+            } else {
+                byte[] buffer = BufferPool.acquire(READ_BUFFER_LEN);
+                long total = 0;
+                try {
+                    int len;
+                    while ((len = is.read(buffer, 0, READ_BUFFER_LEN)) != -1) {
+                        crc.update(buffer, 0, len);
+                        total += len;
+                    }
+                } finally {
+                    BufferPool.release(buffer);
+                }
+                if (total != length) {
+                    throw new IOException("file changed while compressing: " + file);
+                }
+                segment.sourceFile = file;
+            }
+        }
+        segment.crc = crc.getValue();
+        segment.size = length;
+        segment.compressedSize = length;
+        return segment;
+    }
+
+    /**
+     * 判断文件是否值得压缩：已知的压缩格式扩展名，或首块数据的字节熵接近 8 bit
+     */
+    private static boolean isIncompressible(final File file) throws IOException {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        if (dot >= 0 && STORED_EXTENSIONS.contains(name.substring(dot).toLowerCase(Locale.ROOT))) {
+            return true;
+        }
+        byte[] sample = BufferPool.acquire(ENTROPY_SAMPLE_LEN);
+        int n = 0;
+        int[] counts = new int[256];
+        try {
+            try (InputStream is = new FileInputStream(file)) {
+                int len;
+                while (n < ENTROPY_SAMPLE_LEN && (len = is.read(sample, n, ENTROPY_SAMPLE_LEN - n)) != -1) {
+                    n += len;
+                }
+            }
+            if (n < ENTROPY_MIN_SAMPLE_LEN) {
+                return false;
+            }
+            for (int i = 0; i < n; i++) {
+                counts[sample[i] & 0xFF]++;
+            }
+        } finally {
+            BufferPool.release(sample);
+        }
+        double entropy = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                double p = (double) count / n;
+                entropy -= p * Math.log(p);
+            }
+        }
+        return entropy / Math.log(2) >= ENTROPY_STORE_THRESHOLD;
+    }
+
+    /**
+     * 从 {@link IFile#MIME_MapTable} 中挑出本身已压缩的格式
+     */
+    private static Set<String> storedExtensions() {
+        Set<String> extensions = new HashSet<>();
+        for (String[] row : IFile.MIME_MapTable) {
+            String ext = row[0];
+            String mime = row[1];
+            if (ext.isEmpty() || "image/bmp".equals(mime) || "audio/x-wav".equals(mime)) {
+                continue;
+            }
+            if (mime.startsWith("image/") || mime.startsWith("video/") || mime.startsWith("audio/")
+                    || COMPRESSED_MIME_TYPES.contains(mime)) {
+                extensions.add(ext);
+            }
+        }
+        return extensions;
+    }
+
+    private static final class Source {
+        final File file;
+        final String name;
+        final boolean directory;
+
+        Source(final File file, final String name, final boolean directory) {
+            this.file = file;
+            this.name = name;
+            this.directory = directory;
+        }
+    }
+
+    private static final class Segment {
+        String name;
+        String comment;
+        int method;
+        long time;
+        long crc;
+        long size;
+        long compressedSize;
+        boolean directory;
+        byte[] data;
+        File tempFile;
+        /**
+         * 存储方式的大文件，写入时直接从源文件拷贝，拷贝时校验 CRC
+         */
+        File sourceFile;
+        /**
+         * 增量压缩时直接拷贝的原压缩文件条目下标，-1 表示需要写入新数据
+         */
+        int baseIndex = -1;
+
+        void writeTo(final ZipRawWriter writer) throws IOException {
+            if (directory) {
+                writer.writeDirectory(name, comment, time);
+            } else if (sourceFile != null) {
+                // 源文件在计算 CRC 之后可能被改写，写入时再校验一次
+                try (InputStream is = new FileInputStream(sourceFile)) {
+                    writer.writeStoredEntry(name, comment, time, crc, size, is);
+                }
+            } else if (tempFile != null) {
+                try (InputStream is = new FileInputStream(tempFile)) {
+                    writer.writeEntry(name, comment, method, time, crc, size, compressedSize, is);
+                }
+            } else {
+                writer.writeEntry(name, comment, method, time, crc, size, data, 0, data.length);
+            }
+        }
+
+        void release() {
+            if (tempFile != null) {
+                //noinspection ResultOfMethodCallIgnored
+                tempFile.delete();
+                tempFile = null;
+            }
+            sourceFile = null;
+            data = null;
+        }
+    }
+}
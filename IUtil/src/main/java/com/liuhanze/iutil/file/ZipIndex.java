@@ -0,0 +1,394 @@
+package com.liuhanze.iutil.file;
+
+import com.liuhanze.iutil.lang.IByte;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.ZipException;
+
+/**
+ * 压缩文件中央目录索引
+ * <p>条目信息按下标存放在并行的基本类型数组中，另有一份按名称排序的下标用于二分查找。</p>
+ * <p>实例不可变，可以在线程间共享。</p>
+ */
+public final class ZipIndex {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int END_SIG = 0x06054b50;
+    private static final int ZIP64_LOCATOR_SIG = 0x07064b50;
+    private static final int ZIP64_END_SIG = 0x06064b50;
+    private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+    private static final int END_LEN = 22;
+    private static final int CENTRAL_HEADER_LEN = 46;
+    private static final int MAX_COMMENT_LEN = 0xFFFF;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+    private final String path;
+    private final long lastModified;
+    private final long length;
+
+    private final String[] names;
+    private final String[] comments;
+    private final long[] sizes;
+    private final long[] compressedSizes;
+    private final int[] crcs;
+    private final long[] offsets;
+    private final short[] methods;
+    private final short[] flags;
+    private final int[] dosTimes;
+    /**
+     * 按名称排序后的条目下标
+     */
+    private final int[] sorted;
+    private long memorySize;
+
+    private ZipIndex(final File file, final long lastModified, final long length, final int count) {
+        this.path = file.getAbsolutePath();
+        this.lastModified = lastModified;
+        this.length = length;
+        names = new String[count];
+        comments = new String[count];
+        sizes = new long[count];
+        compressedSizes = new long[count];
+        crcs = new int[count];
+        offsets = new long[count];
+        methods = new short[count];
+        flags = new short[count];
+        dosTimes = new int[count];
+        sorted = new int[count];
+    }
+
+    /**
+     * 解析压缩文件的中央目录
+     *
+     * @param file 压缩文件
+     * @return 索引
+     * @throws IOException IO 错误或格式错误时抛出
+     */
+    static ZipIndex read(final File file) throws IOException {
+        // 先取时间戳再打开文件：解析期间文件被替换时，索引只会比磁盘上的旧，下次校验即失效
+        long lastModified = file.lastModified();
+        long length = file.length();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            long fileLength = raf.length();
+            if (fileLength < END_LEN) {
+                throw new ZipException("not a zip file: " + file);
+            }
+            // 结束记录位于文件末尾，其后最多跟 65535 字节注释
+            int tailLen = (int) Math.min(fileLength, END_LEN + MAX_COMMENT_LEN);
+            byte[] tail = new byte[tailLen];
+            raf.seek(fileLength - tailLen);
+            raf.readFully(tail);
+            int end = -1;
+            for (int i = tailLen - END_LEN; i >= 0; i--) {
+                if (getInt(tail, i) == END_SIG) {
+                    end = i;
+                    break;
+                }
+            }
+            if (end < 0) {
+                throw new ZipException("end of central directory not found: " + file);
+            }
+            long count = getShort(tail, end + 10);
+            long cdSize = getInt(tail, end + 12) & ZIP64_MAGIC;
+            long cdOffset = getInt(tail, end + 16) & ZIP64_MAGIC;
+            long endPos = fileLength - tailLen + end;
+            if ((count == 0xFFFF || cdSize == ZIP64_MAGIC || cdOffset == ZIP64_MAGIC) && endPos >= 20) {
+                byte[] locator = new byte[20];
+                raf.seek(endPos - 20);
+                raf.readFully(locator);
+                if (getInt(locator, 0) == ZIP64_LOCATOR_SIG) {
+                    byte[] end64 = new byte[56];
+                    raf.seek(getLong(locator, 8));
+                    raf.readFully(end64);
+                    if (getInt(end64, 0) != ZIP64_END_SIG) {
+                        throw new ZipException("invalid zip64 end record: " + file);
+                    }
+                    count = getLong(end64, 32);
+                    cdSize = getLong(end64, 40);
+                    cdOffset = getLong(end64, 48);
+                }
+            }
+            if (count > Integer.MAX_VALUE || cdSize > Integer.MAX_VALUE || cdOffset + cdSize > fileLength) {
+                throw new ZipException("invalid central directory: " + file);
+            }
+            byte[] cd = new byte[(int) cdSize];
+            raf.seek(cdOffset);
+            raf.readFully(cd);
+            return parse(file, lastModified, length, cd, (int) count);
+        }
+    }
+
+    private static ZipIndex parse(final File file, final long lastModified, final long length,
+                                  final byte[] cd, final int count) throws ZipException {
+        ZipIndex index = new ZipIndex(file, lastModified, length, count);
+        long memory = 64 + count * (8L * 4 + 4 * 3 + 2 * 2 + 16L);
+        int p = 0;
+        for (int i = 0; i < count; i++) {
+            if (p + CENTRAL_HEADER_LEN > cd.length || getInt(cd, p) != CENTRAL_HEADER_SIG) {
+                throw new ZipException("invalid central directory header at entry " + i);
+            }
+            index.flags[i] = (short) getShort(cd, p + 8);
+            index.methods[i] = (short) getShort(cd, p + 10);
+            index.dosTimes[i] = getInt(cd, p + 12);
+            index.crcs[i] = getInt(cd, p + 16);
+            long compressedSize = getInt(cd, p + 20) & ZIP64_MAGIC;
+            long size = getInt(cd, p + 24) & ZIP64_MAGIC;
+            int nameLen = getShort(cd, p + 28);
+            int extraLen = getShort(cd, p + 30);
+            int commentLen = getShort(cd, p + 32);
+            long offset = getInt(cd, p + 42) & ZIP64_MAGIC;
+            int nameStart = p + CENTRAL_HEADER_LEN;
+            int extraStart = nameStart + nameLen;
+            int commentStart = extraStart + extraLen;
+            if (commentStart + commentLen > cd.length) {
+                throw new ZipException("truncated central directory at entry " + i);
+            }
+            // ZIP64 扩展字段按 原始大小、压缩大小、偏移 的顺序只存放溢出的值
+            if (size == ZIP64_MAGIC || compressedSize == ZIP64_MAGIC || offset == ZIP64_MAGIC) {
+                int e = extraStart;
+                while (e + 4 <= commentStart) {
+                    int tag = getShort(cd, e);
+                    int len = getShort(cd, e + 2);
+                    if (tag == 0x0001) {
+                        int q = e + 4;
+                        if (size == ZIP64_MAGIC && q + 8 <= e + 4 + len) {
+                            size = getLong(cd, q);
+                            q += 8;
+                        }
+                        if (compressedSize == ZIP64_MAGIC && q + 8 <= e + 4 + len) {
+                            compressedSize = getLong(cd, q);
+                            q += 8;
+                        }
+                        if (offset == ZIP64_MAGIC && q + 8 <= e + 4 + len) {
+                            offset = getLong(cd, q);
+                        }
+                        break;
+                    }
+                    e += 4 + len;
+                }
+            }
+            index.sizes[i] = size;
+            index.compressedSizes[i] = compressedSize;
+            index.offsets[i] = offset;
+            index.names[i] = new String(cd, nameStart, nameLen, UTF_8);
+            memory += 40 + nameLen * 2L;
+            if (commentLen > 0) {
+                index.comments[i] = new String(cd, commentStart, commentLen, UTF_8);
+                memory += 40 + commentLen * 2L;
+            }
+            p = commentStart + commentLen;
+        }
+        final String[] names = index.names;
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return names[a].compareTo(names[b]);
+            }
+        });
+        for (int i = 0; i < count; i++) {
+            index.sorted[i] = order[i];
+        }
+        index.memorySize = memory;
+        return index;
+    }
+
+    /**
+     * 索引是否仍对应磁盘上的文件（路径、修改时间、大小均一致）
+     */
+    boolean isValidFor(final File file) {
+        return path.equals(file.getAbsolutePath())
+                && lastModified == file.lastModified()
+                && length == file.length();
+    }
+
+    /**
+     * 估算的索引内存占用（字节）
+     */
+    long getMemorySize() {
+        return memorySize;
+    }
+
+    /**
+     * 压缩文件绝对路径
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * 条目数
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * 条目名
+     */
+    public String getName(final int index) {
+        return names[index];
+    }
+
+    /**
+     * 条目注释，没有注释时返回 {@code null}
+     */
+    public String getComment(final int index) {
+        return comments[index];
+    }
+
+    /**
+     * 原始大小
+     */
+    public long getSize(final int index) {
+        return sizes[index];
+    }
+
+    /**
+     * 压缩后大小
+     */
+    public long getCompressedSize(final int index) {
+        return compressedSizes[index];
+    }
+
+    /**
+     * CRC32 校验值
+     */
+    public long getCrc(final int index) {
+        return crcs[index] & ZIP64_MAGIC;
+    }
+
+    /**
+     * 本地文件头在压缩文件中的偏移
+     */
+    public long getLocalHeaderOffset(final int index) {
+        return offsets[index];
+    }
+
+    /**
+     * 压缩方式，{@link java.util.zip.ZipEntry#STORED} 或 {@link java.util.zip.ZipEntry#DEFLATED}
+     */
+    public int getMethod(final int index) {
+        return methods[index] & 0xFFFF;
+    }
+
+    /**
+     * 通用标志位
+     */
+    public int getFlags(final int index) {
+        return flags[index] & 0xFFFF;
+    }
+
+    /**
+     * 是否是加密条目（通用标志位第 0 位）
+     */
+    public boolean isEncrypted(final int index) {
+        return (flags[index] & 1) != 0;
+    }
+
+    /**
+     * MS-DOS 格式的修改时间
+     */
+    public int getDosTime(final int index) {
+        return dosTimes[index];
+    }
+
+    /**
+     * 是否是目录条目
+     */
+    public boolean isDirectory(final int index) {
+        return names[index].endsWith("/");
+    }
+
+    /**
+     * 按名称查找条目下标
+     *
+     * @param name 条目名
+     * @return 下标，不存在返回 -1
+     */
+    public int indexOf(final String name) {
+        int i = lowerBound(name);
+        return i < sorted.length && names[sorted[i]].equals(name) ? sorted[i] : -1;
+    }
+
+    /**
+     * 获取全部条目名，顺序与中央目录一致
+     */
+    public List<String> getNames() {
+        return new ArrayList<>(Arrays.asList(names));
+    }
+
+    /**
+     * 获取全部条目注释，顺序与中央目录一致
+     */
+    public List<String> getComments() {
+        return new ArrayList<>(Arrays.asList(comments));
+    }
+
+    /**
+     * 获取以 prefix 开头的条目名，按名称排序
+     *
+     * @param prefix 前缀
+     * @return 条目名链表
+     */
+    public List<String> getNamesByPrefix(final String prefix) {
+        List<String> result = new ArrayList<>();
+        for (int i = lowerBound(prefix); i < sorted.length && names[sorted[i]].startsWith(prefix); i++) {
+            result.add(names[sorted[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * 获取包含关键字的条目名，顺序与中央目录一致
+     *
+     * @param keyword 关键字
+     * @return 条目名链表
+     */
+    public List<String> getNamesByKeyword(final String keyword) {
+        List<String> result = new ArrayList<>();
+        for (String name : names) {
+            if (name.contains(keyword)) {
+                result.add(name);
+            }
+        }
+        return result;
+    }
+
+    private int lowerBound(final String key) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (names[sorted[mid]].compareTo(key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int getShort(final byte[] b, final int p) {
+        return (b[p] & 0xFF) | (b[p + 1] & 0xFF) << 8;
+    }
+
+    private static int getInt(final byte[] b, final int p) {
+        return IByte.bytesToIntLittleEndian(b, p);
+    }
+
+    private static long getLong(final byte[] b, final int p) {
+        return (getInt(b, p) & ZIP64_MAGIC) | (long) getInt(b, p + 4) << 32;
+    }
+}
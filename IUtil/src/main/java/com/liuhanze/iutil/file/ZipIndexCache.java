@@ -0,0 +1,77 @@
+package com.liuhanze.iutil.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 中央目录索引缓存
+ * <p>按压缩文件绝对路径存放，命中时再比对修改时间与大小；按 LRU 淘汰，总内存不超过上限。</p>
+ */
+final class ZipIndexCache {
+
+    private static final long DEFAULT_MAX_BYTES = 8 * 1024 * 1024;
+
+    private static final LinkedHashMap<String, ZipIndex> CACHE = new LinkedHashMap<>(16, 0.75f, true);
+    private static long maxBytes = DEFAULT_MAX_BYTES;
+    private static long totalBytes;
+
+    private ZipIndexCache() {
+
+    }
+
+    static ZipIndex get(final File zipFile) throws IOException {
+        String path = zipFile.getAbsolutePath();
+        synchronized (CACHE) {
+            ZipIndex index = CACHE.get(path);
+            if (index != null) {
+                if (index.isValidFor(zipFile)) {
+                    return index;
+                }
+                remove(path);
+            }
+        }
+        // 解析放在锁外，不同压缩文件可以同时解析
+        ZipIndex index = ZipIndex.read(zipFile);
+        synchronized (CACHE) {
+            ZipIndex old = CACHE.put(path, index);
+            if (old != null) {
+                totalBytes -= old.getMemorySize();
+            }
+            totalBytes += index.getMemorySize();
+            trim();
+        }
+        return index;
+    }
+
+    static void setMaxBytes(final long bytes) {
+        synchronized (CACHE) {
+            maxBytes = bytes;
+            trim();
+        }
+    }
+
+    static void clear() {
+        synchronized (CACHE) {
+            CACHE.clear();
+            totalBytes = 0;
+        }
+    }
+
+    private static void remove(final String path) {
+        ZipIndex old = CACHE.remove(path);
+        if (old != null) {
+            totalBytes -= old.getMemorySize();
+        }
+    }
+
+    private static void trim() {
+        Iterator<Map.Entry<String, ZipIndex>> it = CACHE.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            totalBytes -= it.next().getValue().getMemorySize();
+            it.remove();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.liuhanze.iutil.file;
+
+import androidx.annotation.IntDef;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 压缩配置常量
+ */
+public final class ZipProfile {
+
+    /**
+     * 最快速度，对应 Deflater.BEST_SPEED
+     */
+    public static final int FASTEST = 1;
+    /**
+     * 默认级别，对应 Deflater.DEFAULT_COMPRESSION
+     */
+    public static final int DEFAULT = 2;
+    /**
+     * 最高压缩率，对应 Deflater.BEST_COMPRESSION
+     */
+    public static final int BEST = 3;
+    /**
+     * 只存储不压缩
+     */
+    public static final int STORE = 4;
+    /**
+     * 自适应：已压缩格式（按扩展名查 {@link IFile#MIME_MapTable}）或首块数据熵很高的文件只存储，
+     * 其余按默认级别压缩，压缩后反而变大的条目也改为存储
+     */
+    public static final int ADAPTIVE = 5;
+
+    private ZipProfile() {
+
+    }
+
+    @IntDef({FASTEST, DEFAULT, BEST, STORE, ADAPTIVE})
+    @Target(ElementType.PARAMETER)
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface Profile {
+    }
+
+}
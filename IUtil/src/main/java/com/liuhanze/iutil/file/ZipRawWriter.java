@@ -0,0 +1,374 @@
+package com.liuhanze.iutil.file;
+
+import com.liuhanze.iutil.lang.BufferPool;
+import com.liuhanze.iutil.lang.IByte;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * 直接写 ZIP 结构的输出器
+ * <p>条目的 CRC、原始大小、压缩后大小必须事先算好，数据原样写入，不再经过 Deflater。</p>
+ * <p>用于并行压缩后的顺序拼接以及条目原始字节拷贝，不支持写出 ZIP64。</p>
+ */
+final class ZipRawWriter implements Closeable {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int LOCAL_HEADER_SIG = 0x04034b50;
+    private static final int LOCAL_HEADER_LEN = 30;
+    private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+    private static final int END_SIG = 0x06054b50;
+    private static final int VERSION = 20;
+    /**
+     * 通用标记位 11：文件名与注释使用 UTF-8，与 ZipOutputStream 的默认行为一致
+     */
+    private static final int FLAG_UTF8 = 0x0800;
+    private static final int COPY_BUFFER_LEN = 8192;
+    private static final long MAX_U32 = 0xFFFFFFFFL;
+    private static final int MAX_U16 = 0xFFFF;
+
+    private final OutputStream out;
+    private final List<Record> records = new ArrayList<>();
+    private final byte[] header = new byte[46];
+    private long offset;
+    private boolean finished;
+
+    ZipRawWriter(final OutputStream out) {
+        this.out = new BufferedOutputStream(out, COPY_BUFFER_LEN);
+    }
+
+    /**
+     * 写入一个数据已在内存中的条目
+     *
+     * @param name           条目名
+     * @param comment        条目注释
+     * @param method         {@link ZipEntry#STORED} 或 {@link ZipEntry#DEFLATED}
+     * @param time           修改时间（毫秒）
+     * @param crc            原始数据 CRC32
+     * @param size           原始大小
+     * @param data           已压缩（或存储）的数据
+     * @param off            数据起始位置
+     * @param len            数据长度
+     * @throws IOException IO 错误时抛出
+     */
+    void writeEntry(final String name, final String comment, final int method, final long time,
+                    final long crc, final long size,
+                    final byte[] data, final int off, final int len) throws IOException {
+        writeLocalHeader(name, comment, method, javaToDosTime(time), crc, size, len);
+        out.write(data, off, len);
+        offset += len;
+    }
+
+    /**
+     * 写入一个数据来自输入流的条目，从流中读取恰好 compressedSize 个字节
+     *
+     * @param name           条目名
+     * @param comment        条目注释
+     * @param method         {@link ZipEntry#STORED} 或 {@link ZipEntry#DEFLATED}
+     * @param time           修改时间（毫秒）
+     * @param crc            原始数据 CRC32
+     * @param size           原始大小
+     * @param compressedSize 压缩后大小
+     * @param data           已压缩（或存储）的数据流
+     * @throws IOException IO 错误或数据不足时抛出
+     */
+    void writeEntry(final String name, final String comment, final int method, final long time,
+                    final long crc, final long size, final long compressedSize,
+                    final InputStream data) throws IOException {
+        writeLocalHeader(name, comment, method, javaToDosTime(time), crc, size, compressedSize);
+        copy(name, data, compressedSize, null);
+    }
+
+    /**
+     * 写入一个存储方式的条目，数据来自仍可能被修改的源文件
+     * <p>拷贝时重新计算 CRC，与事先算好的 crc 不一致、或读完 size 个字节后还有数据时抛出，
+     * 避免写出 CRC 与数据不符的条目。</p>
+     *
+     * @param name    条目名
+     * @param comment 条目注释
+     * @param time    修改时间（毫秒）
+     * @param crc     事先计算的 CRC32
+     * @param size    事先读取的大小
+     * @param data    原始数据流
+     * @throws IOException IO 错误或数据与 crc、size 不一致时抛出
+     */
+    void writeStoredEntry(final String name, final String comment, final long time,
+                          final long crc, final long size, final InputStream data) throws IOException {
+        writeLocalHeader(name, comment, ZipEntry.STORED, javaToDosTime(time), crc, size, size);
+        CRC32 check = new CRC32();
+        copy(name, data, size, check);
+        if (check.getValue() != crc || data.read() != -1) {
+            throw new ZipException("entry data changed while writing: " + name);
+        }
+    }
+
+    /**
+     * 从另一个压缩文件原样拷贝条目的压缩数据，不解压也不重新压缩
+     *
+     * @param name    写入的条目名
+     * @param comment 写入的条目注释
+     * @param index   来源压缩文件的中央目录索引
+     * @param i       条目下标
+     * @param source  来源压缩文件
+     * @throws IOException IO 错误、本地文件头损坏或条目已加密时抛出
+     */
+    void writeRawEntry(final String name, final String comment,
+                       final ZipIndex index, final int i, final RandomAccessFile source) throws IOException {
+        if (index.isEncrypted(i)) {
+            // 新写的本地文件头不带加密标志与加密头信息，原样拷贝会得到无法读取的条目
+            throw new ZipException("encrypted entry not supported: " + index.getName(i));
+        }
+        long headerOffset = index.getLocalHeaderOffset(i);
+        source.seek(headerOffset);
+        source.readFully(header, 0, LOCAL_HEADER_LEN);
+        if (IByte.bytesToIntLittleEndian(header, 0) != LOCAL_HEADER_SIG) {
+            throw new ZipException("invalid local header: " + index.getName(i));
+        }
+        int nameLen = (header[26] & 0xFF) | (header[27] & 0xFF) << 8;
+        int extraLen = (header[28] & 0xFF) | (header[29] & 0xFF) << 8;
+        source.seek(headerOffset + LOCAL_HEADER_LEN + nameLen + extraLen);
+        writeLocalHeader(name, comment, index.getMethod(i), index.getDosTime(i),
+                index.getCrc(i), index.getSize(i), index.getCompressedSize(i));
+        copy(name, new RandomAccessInput(source), index.getCompressedSize(i), null);
+    }
+
+    /**
+     * 写入目录条目
+     *
+     * @param name    以 '/' 结尾的条目名
+     * @param comment 条目注释
+     * @param time    修改时间（毫秒）
+     * @throws IOException IO 错误时抛出
+     */
+    void writeDirectory(final String name, final String comment, final long time) throws IOException {
+        writeLocalHeader(name, comment, ZipEntry.STORED, javaToDosTime(time), 0, 0, 0);
+    }
+
+    /**
+     * 已写入的条目数
+     */
+    int getEntryCount() {
+        return records.size();
+    }
+
+    /**
+     * 已写入的字节数
+     */
+    long getOffset() {
+        return offset;
+    }
+
+    /**
+     * 写中央目录与结束记录
+     *
+     * @param archiveComment 压缩文件的注释
+     * @throws IOException IO 错误时抛出
+     */
+    void finish(final String archiveComment) throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (records.size() > MAX_U16) {
+            throw new ZipException("too many entries for a non-ZIP64 archive: " + records.size());
+        }
+        long centralOffset = offset;
+        for (Record r : records) {
+            int p = 0;
+            p = putInt(header, p, CENTRAL_HEADER_SIG);
+            p = putShort(header, p, VERSION);
+            p = putShort(header, p, VERSION);
+            p = putShort(header, p, FLAG_UTF8);
+            p = putShort(header, p, r.method);
+            p = putInt(header, p, r.dosTime);
+            p = putInt(header, p, (int) r.crc);
+            p = putInt(header, p, (int) r.compressedSize);
+            p = putInt(header, p, (int) r.size);
+            p = putShort(header, p, r.name.length);
+            p = putShort(header, p, 0);
+            p = putShort(header, p, r.comment == null ? 0 : r.comment.length);
+            p = putShort(header, p, 0);
+            p = putShort(header, p, 0);
+            p = putInt(header, p, r.directory ? 0x10 : 0);
+            p = putInt(header, p, (int) r.localOffset);
+            out.write(header, 0, p);
+            out.write(r.name);
+            offset += p + r.name.length;
+            if (r.comment != null) {
+                out.write(r.comment);
+                offset += r.comment.length;
+            }
+        }
+        long centralSize = offset - centralOffset;
+        if (centralOffset > MAX_U32 || centralSize > MAX_U32) {
+            throw new ZipException("archive too large for a non-ZIP64 archive");
+        }
+        byte[] comment = archiveComment == null ? null : archiveComment.getBytes(UTF_8);
+        if (comment != null && comment.length > MAX_U16) {
+            throw new ZipException("archive comment too long");
+        }
+        int p = 0;
+        p = putInt(header, p, END_SIG);
+        p = putShort(header, p, 0);
+        p = putShort(header, p, 0);
+        p = putShort(header, p, records.size());
+        p = putShort(header, p, records.size());
+        p = putInt(header, p, (int) centralSize);
+        p = putInt(header, p, (int) centralOffset);
+        p = putShort(header, p, comment == null ? 0 : comment.length);
+        out.write(header, 0, p);
+        offset += p;
+        if (comment != null) {
+            out.write(comment);
+            offset += comment.length;
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeLocalHeader(final String name, final String comment, final int method, final int dosTime,
+                                  final long crc, final long size, final long compressedSize) throws IOException {
+        if (finished) {
+            throw new IOException("writer already finished");
+        }
+        if (size > MAX_U32 || compressedSize > MAX_U32 || offset > MAX_U32) {
+            throw new ZipException("entry too large for a non-ZIP64 archive: " + name);
+        }
+        Record r = new Record();
+        r.name = name.getBytes(UTF_8);
+        r.comment = comment == null ? null : comment.getBytes(UTF_8);
+        if (r.name.length > MAX_U16 || (r.comment != null && r.comment.length > MAX_U16)) {
+            throw new ZipException("entry name or comment too long: " + name);
+        }
+        r.method = method;
+        r.dosTime = dosTime;
+        r.crc = crc;
+        r.size = size;
+        r.compressedSize = compressedSize;
+        r.localOffset = offset;
+        r.directory = name.endsWith("/");
+        records.add(r);
+
+        int p = 0;
+        p = putInt(header, p, LOCAL_HEADER_SIG);
+        p = putShort(header, p, VERSION);
+        p = putShort(header, p, FLAG_UTF8);
+        p = putShort(header, p, method);
+        p = putInt(header, p, r.dosTime);
+        p = putInt(header, p, (int) crc);
+        p = putInt(header, p, (int) compressedSize);
+        p = putInt(header, p, (int) size);
+        p = putShort(header, p, r.name.length);
+        p = putShort(header, p, 0);
+        out.write(header, 0, p);
+        out.write(r.name);
+        offset += p + r.name.length;
+    }
+
+    /**
+     * 从流中拷贝恰好 length 个字节，check 不为空时同时累计 CRC
+     */
+    private void copy(final String name, final InputStream data, final long length, final CRC32 check)
+            throws IOException {
+        byte[] buffer = BufferPool.acquire(COPY_BUFFER_LEN);
+        try {
+            long remaining = length;
+            while (remaining > 0) {
+                int len = data.read(buffer, 0, (int) Math.min(COPY_BUFFER_LEN, remaining));
+                if (len < 0) {
+                    throw new ZipException("unexpected end of entry data: " + name);
+                }
+                if (check != null) {
+                    check.update(buffer, 0, len);
+                }
+                out.write(buffer, 0, len);
+                remaining -= len;
+            }
+        } finally {
+            BufferPool.release(buffer);
+        }
+        offset += length;
+    }
+
+    /**
+     * 毫秒时间转 MS-DOS 时间格式，早于 1980 年的时间按 1980-01-01 处理
+     */
+    static int javaToDosTime(final long time) {
+        Calendar c = Calendar.getInstance();
+        c.setTimeInMillis(time);
+        int year = c.get(Calendar.YEAR);
+        if (year < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return (year - 1980) << 25
+                | (c.get(Calendar.MONTH) + 1) << 21
+                | c.get(Calendar.DAY_OF_MONTH) << 16
+                | c.get(Calendar.HOUR_OF_DAY) << 11
+                | c.get(Calendar.MINUTE) << 5
+                | c.get(Calendar.SECOND) >> 1;
+    }
+
+    private static int putShort(final byte[] b, final int p, final int v) {
+        b[p] = (byte) v;
+        b[p + 1] = (byte) (v >>> 8);
+        return p + 2;
+    }
+
+    private static int putInt(final byte[] b, final int p, final int v) {
+        b[p] = (byte) v;
+        b[p + 1] = (byte) (v >>> 8);
+        b[p + 2] = (byte) (v >>> 16);
+        b[p + 3] = (byte) (v >>> 24);
+        return p + 4;
+    }
+
+    /**
+     * 以 RandomAccessFile 当前位置为起点的输入流，不关闭底层文件
+     */
+    private static final class RandomAccessInput extends InputStream {
+
+        private final RandomAccessFile file;
+
+        RandomAccessInput(final RandomAccessFile file) {
+            this.file = file;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return file.read();
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            return file.read(b, off, len);
+        }
+    }
+
+    private static final class Record {
+        byte[] name;
+        byte[] comment;
+        int method;
+        int dosTime;
+        long crc;
+        long size;
+        long compressedSize;
+        long localOffset;
+        boolean directory;
+    }
+}
@@ -0,0 +1,204 @@
+package com.liuhanze.iutil.file;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+
+/**
+ * 压缩结果统计
+ */
+public final class ZipStat {
+
+    private int entryCount;
+    private long rawBytes;
+    private long compressedBytes;
+    private long elapsedMillis;
+    private int threadCount;
+    private int reusedEntryCount;
+    private int storedEntryCount;
+    private final List<EntryStat> entries = new ArrayList<>();
+
+    ZipStat() {
+
+    }
+
+    /**
+     * 写入的条目数（含目录）
+     */
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    void setEntryCount(final int entryCount) {
+        this.entryCount = entryCount;
+    }
+
+    /**
+     * 原始数据总字节数
+     */
+    public long getRawBytes() {
+        return rawBytes;
+    }
+
+    /**
+     * 压缩后数据总字节数（不含 ZIP 头部）
+     */
+    public long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    /**
+     * 总耗时（毫秒）
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    void setElapsedMillis(final long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * 使用的工作线程数
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    void setThreadCount(final int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * 增量压缩时未重新压缩、直接拷贝的条目数
+     */
+    public int getReusedEntryCount() {
+        return reusedEntryCount;
+    }
+
+    void setReusedEntryCount(final int reusedEntryCount) {
+        this.reusedEntryCount = reusedEntryCount;
+    }
+
+    /**
+     * 以存储方式（未压缩）写入的条目数
+     */
+    public int getStoredEntryCount() {
+        return storedEntryCount;
+    }
+
+    /**
+     * 每个文件条目的压缩统计，顺序与写入顺序一致，不含目录
+     */
+    public List<EntryStat> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * 记录一个条目并累加总量
+     */
+    void addEntry(final String name, final int method, final long size, final long compressedSize) {
+        rawBytes += size;
+        compressedBytes += compressedSize;
+        if (name.endsWith("/")) {
+            return;
+        }
+        if (method == ZipEntry.STORED) {
+            storedEntryCount++;
+        }
+        entries.add(new EntryStat(name, method, size, compressedSize));
+    }
+
+    /**
+     * 吞吐量，按原始数据计算
+     *
+     * @return 字节/秒
+     */
+    public long getThroughput() {
+        return elapsedMillis <= 0 ? rawBytes * 1000 : rawBytes * 1000 / elapsedMillis;
+    }
+
+    /**
+     * 压缩率
+     *
+     * @return 压缩后大小 / 原始大小，原始大小为 0 时返回 1
+     */
+    public double getRatio() {
+        return rawBytes <= 0 ? 1d : (double) compressedBytes / rawBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "ZipStat{" +
+                "entryCount=" + entryCount +
+                ", rawBytes=" + rawBytes +
+                ", compressedBytes=" + compressedBytes +
+                ", elapsedMillis=" + elapsedMillis +
+                ", threadCount=" + threadCount +
+                ", reusedEntryCount=" + reusedEntryCount +
+                ", storedEntryCount=" + storedEntryCount +
+                ", throughput=" + getThroughput() +
+                '}';
+    }
+
+    /**
+     * 单个条目的压缩统计
+     */
+    public static final class EntryStat {
+
+        private final String name;
+        private final int method;
+        private final long size;
+        private final long compressedSize;
+
+        EntryStat(final String name, final int method, final long size, final long compressedSize) {
+            this.name = name;
+            this.method = method;
+            this.size = size;
+            this.compressedSize = compressedSize;
+        }
+
+        /**
+         * 条目名
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 压缩方式，{@link ZipEntry#STORED} 或 {@link ZipEntry#DEFLATED}
+         */
+        public int getMethod() {
+            return method;
+        }
+
+        /**
+         * 原始大小
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * 压缩后大小
+         */
+        public long getCompressedSize() {
+            return compressedSize;
+        }
+
+        /**
+         * 压缩率
+         *
+         * @return 压缩后大小 / 原始大小，原始大小为 0 时返回 1
+         */
+        public double getRatio() {
+            return size <= 0 ? 1d : (double) compressedSize / size;
+        }
+
+        @Override
+        public String toString() {
+            return name + "{method=" + method + ", size=" + size + ", compressedSize=" + compressedSize + '}';
+        }
+    }
+}
@@ -0,0 +1,498 @@
+package com.liuhanze.iutil.lang;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 二进制读取游标
+ * <p>在 byte[] 或 ByteBuffer 上按当前字节序顺序读取各宽度的基本类型、无符号数与 LEB128 变长整数，
+ * 读取不分配对象，也不改变来源 ByteBuffer 的 position。默认大端，与 DataInputStream 一致。</p>
+ * <p>数据不足时抛出 {@link BufferUnderflowException}，变长整数格式错误时抛出 {@link IllegalArgumentException}，
+ * 输出数组范围错误时抛出 {@link IndexOutOfBoundsException}；任何一种失败位置都保持不变，可以回退后改用其他方式解析。
+ * 实例不是线程安全的。</p>
+ */
+public final class BinaryReader {
+
+    /**
+     * 堆数据，来源为直接缓冲区时为 {@code null}
+     */
+    private final byte[] array;
+    /**
+     * 直接缓冲区的副本，来源为堆数据时为 {@code null}
+     */
+    private final ByteBuffer buffer;
+    /**
+     * 数据在 array 或 buffer 中的起始下标
+     */
+    private final int base;
+    private final int length;
+    private int position;
+    private boolean bigEndian = true;
+
+    /**
+     * 读取整个数组，不复制数据
+     *
+     * @param data 数据
+     */
+    public BinaryReader(final byte[] data) {
+        this(data, 0, data.length);
+    }
+
+    /**
+     * 读取数组的一段，不复制数据
+     *
+     * @param data   数据
+     * @param offset 起始位置
+     * @param length 长度
+     * @throws IndexOutOfBoundsException offset、length 超出数组范围时抛出
+     */
+    public BinaryReader(final byte[] data, final int offset, final int length) {
+        if ((offset | length) < 0 || length > data.length - offset) {
+            throw new IndexOutOfBoundsException();
+        }
+        this.array = data;
+        this.buffer = null;
+        this.base = offset;
+        this.length = length;
+    }
+
+    /**
+     * 读取 buffer 中 position 到 limit 的数据，buffer 本身的 position 不变
+     *
+     * @param buffer 数据
+     */
+    public BinaryReader(final ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            this.array = buffer.array();
+            this.buffer = null;
+            this.base = buffer.arrayOffset() + buffer.position();
+        } else {
+            this.array = null;
+            this.buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+            this.base = buffer.position();
+        }
+        this.length = buffer.remaining();
+    }
+
+    /**
+     * 当前字节序
+     */
+    public ByteOrder order() {
+        return bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+    }
+
+    /**
+     * 设置之后读取使用的字节序
+     *
+     * @param order 字节序
+     * @return this
+     */
+    public BinaryReader order(final ByteOrder order) {
+        bigEndian = order == ByteOrder.BIG_ENDIAN;
+        if (buffer != null) {
+            buffer.order(order);
+        }
+        return this;
+    }
+
+    /**
+     * 当前位置，相对于数据起点
+     */
+    public int position() {
+        return position;
+    }
+
+    /**
+     * 移动到指定位置
+     *
+     * @param position 相对于数据起点的位置
+     * @return this
+     * @throws IllegalArgumentException position 不在 0 ~ length 之间时抛出
+     */
+    public BinaryReader position(final int position) {
+        if (position < 0 || position > length) {
+            throw new IllegalArgumentException("position out of range: " + position);
+        }
+        this.position = position;
+        return this;
+    }
+
+    /**
+     * 数据总长度
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * 剩余可读字节数
+     */
+    public int remaining() {
+        return length - position;
+    }
+
+    /**
+     * 是否还有可读数据
+     */
+    public boolean hasRemaining() {
+        return position < length;
+    }
+
+    /**
+     * 跳过 n 个字节
+     *
+     * @param n 字节数
+     * @return this
+     * @throws BufferUnderflowException n 为负数或超过剩余字节数时抛出，位置不变
+     */
+    public BinaryReader skip(final int n) {
+        advance(n);
+        return this;
+    }
+
+    /**
+     * 读取 1 字节
+     *
+     * @return 有符号字节
+     * @throws BufferUnderflowException 剩余不足 1 字节时抛出，位置不变
+     */
+    public byte readByte() {
+        int p = advance(1);
+        return array != null ? array[p] : buffer.get(p);
+    }
+
+    /**
+     * 读取 1 字节，按无符号处理
+     *
+     * @return 0 ~ 255
+     * @throws BufferUnderflowException 剩余不足 1 字节时抛出，位置不变
+     */
+    public int readUnsignedByte() {
+        return readByte() & 0xFF;
+    }
+
+    /**
+     * 读取 1 字节，非 0 为 {@code true}
+     *
+     * @return 布尔值
+     * @throws BufferUnderflowException 剩余不足 1 字节时抛出，位置不变
+     */
+    public boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    /**
+     * 按当前字节序读取 16 位整数
+     *
+     * @return 有符号 16 位整数
+     * @throws BufferUnderflowException 剩余不足 2 字节时抛出，位置不变
+     */
+    public short readShort() {
+        int p = advance(2);
+        if (array == null) {
+            return buffer.getShort(p);
+        }
+        return bigEndian ? IByte.bytesToShortBigEndian(array, p) : IByte.bytesToShortLittleEndian(array, p);
+    }
+
+    /**
+     * 按当前字节序读取 16 位整数，按无符号处理
+     *
+     * @return 0 ~ 65535
+     * @throws BufferUnderflowException 剩余不足 2 字节时抛出，位置不变
+     */
+    public int readUnsignedShort() {
+        return readShort() & 0xFFFF;
+    }
+
+    /**
+     * 按当前字节序读取 16 位 UTF-16 字符
+     *
+     * @return 字符
+     * @throws BufferUnderflowException 剩余不足 2 字节时抛出，位置不变
+     */
+    public char readChar() {
+        return (char) readShort();
+    }
+
+    /**
+     * 按当前字节序读取 32 位整数
+     *
+     * @return 有符号 32 位整数
+     * @throws BufferUnderflowException 剩余不足 4 字节时抛出，位置不变
+     */
+    public int readInt() {
+        int p = advance(4);
+        if (array == null) {
+            return buffer.getInt(p);
+        }
+        return bigEndian ? IByte.bytesToIntBigEndian(array, p) : IByte.bytesToIntLittleEndian(array, p);
+    }
+
+    /**
+     * 按当前字节序读取 32 位整数，按无符号处理
+     *
+     * @return 0 ~ 2^32-1
+     * @throws BufferUnderflowException 剩余不足 4 字节时抛出，位置不变
+     */
+    public long readUnsignedInt() {
+        return readInt() & 0xFFFFFFFFL;
+    }
+
+    /**
+     * 按当前字节序读取 64 位整数
+     *
+     * @return 有符号 64 位整数
+     * @throws BufferUnderflowException 剩余不足 8 字节时抛出，位置不变
+     */
+    public long readLong() {
+        int p = advance(8);
+        if (array == null) {
+            return buffer.getLong(p);
+        }
+        return bigEndian ? IByte.bytesToLongBigEndian(array, p) : IByte.bytesToLongLittleEndian(array, p);
+    }
+
+    /**
+     * 按当前字节序读取 IEEE 754 单精度浮点数
+     *
+     * @return 浮点数
+     * @throws BufferUnderflowException 剩余不足 4 字节时抛出，位置不变
+     */
+    public float readFloat() {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    /**
+     * 按当前字节序读取 IEEE 754 双精度浮点数
+     *
+     * @return 浮点数
+     * @throws BufferUnderflowException 剩余不足 8 字节时抛出，位置不变
+     */
+    public double readDouble() {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    /**
+     * 读取无符号 LEB128 变长整数，最多 5 字节
+     *
+     * @return 数值，超过 32 位的部分被截断
+     * @throws BufferUnderflowException 数据在变长整数结束前用完时抛出，位置不变
+     * @throws IllegalArgumentException  超过 5 字节仍未结束时抛出，位置不变
+     */
+    public int readVarInt() {
+        return (int) readVarLong(5);
+    }
+
+    /**
+     * 读取无符号 LEB128 变长整数，最多 10 字节
+     *
+     * @return 数值
+     * @throws BufferUnderflowException 数据在变长整数结束前用完时抛出，位置不变
+     * @throws IllegalArgumentException  超过 10 字节仍未结束时抛出，位置不变
+     */
+    public long readVarLong() {
+        return readVarLong(10);
+    }
+
+    /**
+     * 读取有符号 LEB128（SLEB128）变长整数，最多 10 字节
+     *
+     * @return 数值
+     * @throws BufferUnderflowException 数据在变长整数结束前用完时抛出，位置不变
+     * @throws IllegalArgumentException  超过 10 字节仍未结束时抛出，位置不变
+     */
+    public long readSignedVarLong() {
+        int start = position;
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift >= 70) {
+                position = start;
+                throw new IllegalArgumentException("malformed varint at " + start);
+            }
+            if (position == length) {
+                position = start;
+                throw new BufferUnderflowException();
+            }
+            b = get(position++);
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        if (shift < 64 && (b & 0x40) != 0) {
+            value |= -1L << shift;
+        }
+        return value;
+    }
+
+    /**
+     * 读取 len 个字节到调用方数组
+     *
+     * @param dst 输出数组
+     * @param off 输出起始位置
+     * @param len 字节数
+     * @return this
+     * @throws IndexOutOfBoundsException off、len 超出 dst 范围时抛出，位置不变
+     * @throws BufferUnderflowException  剩余不足 len 字节时抛出，位置不变
+     */
+    public BinaryReader readBytes(final byte[] dst, final int off, final int len) {
+        checkRange(dst.length, off, len);
+        int p = advance(len);
+        if (array != null) {
+            System.arraycopy(array, p, dst, off, len);
+        } else {
+            ByteBuffer view = buffer.duplicate();
+            view.position(p);
+            view.get(dst, off, len);
+        }
+        return this;
+    }
+
+    /**
+     * 按当前字节序连续读取 len 个16 位整数到调用方数组
+     *
+     * @param dst 输出数组
+     * @param off 输出起始位置
+     * @param len 个数
+     * @return this
+     * @throws IndexOutOfBoundsException off、len 超出 dst 范围时抛出，位置不变
+     * @throws BufferUnderflowException  剩余不足 2 * len 字节时抛出，位置不变
+     */
+    public BinaryReader readShorts(final short[] dst, final int off, final int len) {
+        checkRange(dst.length, off, len);
+        require(len, 2);
+        for (int i = off, end = off + len; i < end; i++) {
+            dst[i] = readShort();
+        }
+        return this;
+    }
+
+    /**
+     * 按当前字节序连续读取 len 个32 位整数到调用方数组
+     *
+     * @param dst 输出数组
+     * @param off 输出起始位置
+     * @param len 个数
+     * @return this
+     * @throws IndexOutOfBoundsException off、len 超出 dst 范围时抛出，位置不变
+     * @throws BufferUnderflowException  剩余不足 4 * len 字节时抛出，位置不变
+     */
+    public BinaryReader readInts(final int[] dst, final int off, final int len) {
+        checkRange(dst.length, off, len);
+        require(len, 4);
+        for (int i = off, end = off + len; i < end; i++) {
+            dst[i] = readInt();
+        }
+        return this;
+    }
+
+    /**
+     * 按当前字节序连续读取 len 个64 位整数到调用方数组
+     *
+     * @param dst 输出数组
+     * @param off 输出起始位置
+     * @param len 个数
+     * @return this
+     * @throws IndexOutOfBoundsException off、len 超出 dst 范围时抛出，位置不变
+     * @throws BufferUnderflowException  剩余不足 8 * len 字节时抛出，位置不变
+     */
+    public BinaryReader readLongs(final long[] dst, final int off, final int len) {
+        checkRange(dst.length, off, len);
+        require(len, 8);
+        for (int i = off, end = off + len; i < end; i++) {
+            dst[i] = readLong();
+        }
+        return this;
+    }
+
+    /**
+     * 按当前字节序连续读取 len 个单精度浮点数到调用方数组
+     *
+     * @param dst 输出数组
+     * @param off 输出起始位置
+     * @param len 个数
+     * @return this
+     * @throws IndexOutOfBoundsException off、len 超出 dst 范围时抛出，位置不变
+     * @throws BufferUnderflowException  剩余不足 4 * len 字节时抛出，位置不变
+     */
+    public BinaryReader readFloats(final float[] dst, final int off, final int len) {
+        checkRange(dst.length, off, len);
+        require(len, 4);
+        for (int i = off, end = off + len; i < end; i++) {
+            dst[i] = readFloat();
+        }
+        return this;
+    }
+
+    /**
+     * 按当前字节序连续读取 len 个双精度浮点数到调用方数组
+     *
+     * @param dst 输出数组
+     * @param off 输出起始位置
+     * @param len 个数
+     * @return this
+     * @throws IndexOutOfBoundsException off、len 超出 dst 范围时抛出，位置不变
+     * @throws BufferUnderflowException  剩余不足 8 * len 字节时抛出，位置不变
+     */
+    public BinaryReader readDoubles(final double[] dst, final int off, final int len) {
+        checkRange(dst.length, off, len);
+        require(len, 8);
+        for (int i = off, end = off + len; i < end; i++) {
+            dst[i] = readDouble();
+        }
+        return this;
+    }
+
+    private long readVarLong(final int maxBytes) {
+        int start = position;
+        long value = 0;
+        for (int i = 0, shift = 0; i < maxBytes; i++, shift += 7) {
+            if (position == length) {
+                position = start;
+                throw new BufferUnderflowException();
+            }
+            int b = get(position++);
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        position = start;
+        throw new IllegalArgumentException("malformed varint at " + start);
+    }
+
+    private byte get(final int pos) {
+        return array != null ? array[base + pos] : buffer.get(base + pos);
+    }
+
+    private static void checkRange(final int arrayLen, final int off, final int len) {
+        if ((off | len) < 0 || len > arrayLen - off) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    /**
+     * 批量读取前先检查长度，保证失败时不读入部分数据
+     */
+    private void require(final int count, final int width) {
+        if (count < 0 || (long) count * width > length - position) {
+            throw new BufferUnderflowException();
+        }
+    }
+
+    /**
+     * 前进 n 个字节
+     *
+     * @return 前进前的位置在 array 或 buffer 中的下标
+     */
+    private int advance(final int n) {
+        if (n < 0 || n > length - position) {
+            throw new BufferUnderflowException();
+        }
+        int p = base + position;
+        position += n;
+        return p;
+    }
+}
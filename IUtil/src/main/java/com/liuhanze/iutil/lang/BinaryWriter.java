@@ -0,0 +1,507 @@
+package com.liuhanze.iutil.lang;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * 二进制写入器
+ * <p>按当前字节序顺序写入各宽度的基本类型与 LEB128 变长整数，数据写在一串分段数组中，
+ * 当前段写满时追加新段（长度翻倍，最大 64KB），已写入的数据不会被复制。默认大端，与 DataOutputStream 一致。</p>
+ * <p>{@link #reset()} 后保留已分配的分段，复用同一个实例编码多条消息时不再分配。实例不是线程安全的。</p>
+ */
+public final class BinaryWriter {
+
+    private static final int DEFAULT_CAPACITY = 256;
+    private static final int MAX_SEGMENT_LEN = 64 * 1024;
+
+    private byte[][] segments = new byte[4][];
+    /**
+     * 每段已写入的长度，当前段为写入位置
+     */
+    private int[] lengths = new int[4];
+    private int segmentCount;
+    private int current;
+    private byte[] segment;
+    private int pos;
+    private int size;
+    private boolean bigEndian = true;
+
+    /**
+     * 第一段 256 字节
+     */
+    public BinaryWriter() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * 指定第一段的长度，不小于 16
+     *
+     * @param initialCapacity 第一段的长度
+     */
+    public BinaryWriter(final int initialCapacity) {
+        this(new byte[Math.max(16, initialCapacity)]);
+    }
+
+    /**
+     * 以调用方数组为第一段，写入不超过其长度时不分配
+     *
+     * @param first 第一段
+     */
+    public BinaryWriter(final byte[] first) {
+        segments[0] = first;
+        segmentCount = 1;
+        segment = first;
+    }
+
+    /**
+     * 当前字节序
+     */
+    public ByteOrder order() {
+        return bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+    }
+
+    /**
+     * 设置之后写入使用的字节序
+     *
+     * @param order 字节序
+     * @return this
+     */
+    public BinaryWriter order(final ByteOrder order) {
+        bigEndian = order == ByteOrder.BIG_ENDIAN;
+        return this;
+    }
+
+    /**
+     * 已写入的字节数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 清空数据，保留已分配的分段
+     *
+     * @return this
+     */
+    public BinaryWriter reset() {
+        for (int i = 0; i <= current; i++) {
+            lengths[i] = 0;
+        }
+        current = 0;
+        segment = segments[0];
+        pos = 0;
+        size = 0;
+        return this;
+    }
+
+    /**
+     * 写入 int 的低 8 位
+     *
+     * @param value 数值
+     * @return this
+     */
+    public BinaryWriter writeByte(final int value) {
+        int p = reserve(1);
+        segment[p] = (byte) value;
+        return this;
+    }
+
+    /**
+     * 写入 1 字节，{@code true} 为 1，{@code false} 为 0
+     *
+     * @param value 布尔值
+     * @return this
+     */
+    public BinaryWriter writeBoolean(final boolean value) {
+        return writeByte(value ? 1 : 0);
+    }
+
+    /**
+     * 按当前字节序写入 int 的低 16 位
+     *
+     * @param value 数值
+     * @return this
+     */
+    public BinaryWriter writeShort(final int value) {
+        int p = reserve(2);
+        if (bigEndian) {
+            IByte.fillShortToBytesBigEndian((short) value, segment, p);
+        } else {
+            IByte.fillShortToBytesLittleEndian((short) value, segment, p);
+        }
+        return this;
+    }
+
+    /**
+     * 按当前字节序写入 16 位 UTF-16 字符
+     *
+     * @param value 字符
+     * @return this
+     */
+    public BinaryWriter writeChar(final char value) {
+        return writeShort(value);
+    }
+
+    /**
+     * 按当前字节序写入 32 位整数
+     *
+     * @param value 数值
+     * @return this
+     */
+    public BinaryWriter writeInt(final int value) {
+        int p = reserve(4);
+        if (bigEndian) {
+            IByte.fillIntToBytesBigEndian(value, segment, p);
+        } else {
+            IByte.fillIntToBytesLittleEndian(value, segment, p);
+        }
+        return this;
+    }
+
+    /**
+     * 按当前字节序写入 long 的低 32 位，用于无符号 32 位整数
+     *
+     * @param value 数值
+     * @return this
+     */
+    public BinaryWriter writeUnsignedInt(final long value) {
+        return writeInt((int) value);
+    }
+
+    /**
+     * 按当前字节序写入 64 位整数
+     *
+     * @param value 数值
+     * @return this
+     */
+    public BinaryWriter writeLong(final long value) {
+        int p = reserve(8);
+        if (bigEndian) {
+            IByte.fillLongToBytesBigEndian(value, segment, p);
+        } else {
+            IByte.fillLongToBytesLittleEndian(value, segment, p);
+        }
+        return this;
+    }
+
+    /**
+     * 按当前字节序写入 IEEE 754 单精度浮点数
+     *
+     * @param value 浮点数
+     * @return this
+     */
+    public BinaryWriter writeFloat(final float value) {
+        return writeInt(Float.floatToRawIntBits(value));
+    }
+
+    /**
+     * 按当前字节序写入 IEEE 754 双精度浮点数
+     *
+     * @param value 浮点数
+     * @return this
+     */
+    public BinaryWriter writeDouble(final double value) {
+        return writeLong(Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * 写入无符号 LEB128 变长整数，value 按无符号 32 位处理，1 ~ 5 字节
+     *
+     * @param value 数值
+     * @return this
+     */
+    public BinaryWriter writeVarInt(final int value) {
+        return writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 写入无符号 LEB128 变长整数，value 按无符号 64 位处理，1 ~ 10 字节
+     *
+     * @param value 数值
+     * @return this
+     */
+    public BinaryWriter writeVarLong(long value) {
+        int p = reserve(varLongSize(value));
+        while ((value & ~0x7FL) != 0) {
+            segment[p++] = (byte) (value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        segment[p] = (byte) value;
+        return this;
+    }
+
+    /**
+     * 写入有符号 LEB128（SLEB128）变长整数，绝对值小的负数也只占很少的字节
+     *
+     * @param value 数值
+     * @return this
+     */
+    public BinaryWriter writeSignedVarLong(long value) {
+        int n = 1;
+        for (long v = value >> 6; v != 0 && v != -1; v >>= 7) {
+            n++;
+        }
+        int p = reserve(n);
+        for (int i = 1; i < n; i++) {
+            segment[p++] = (byte) (value & 0x7F | 0x80);
+            value >>= 7;
+        }
+        segment[p] = (byte) (value & 0x7F);
+        return this;
+    }
+
+    /**
+     * 写入整个数组
+     *
+     * @param src 数据
+     * @return this
+     */
+    public BinaryWriter writeBytes(final byte[] src) {
+        return writeBytes(src, 0, src.length);
+    }
+
+    /**
+     * 写入数组的一段，跨段时分开复制
+     *
+     * @param src 数据
+     * @param off 起始位置
+     * @param len 字节数
+     * @return this
+     * @throws IndexOutOfBoundsException off、len 超出 src 范围时抛出，不写入任何数据
+     */
+    public BinaryWriter writeBytes(final byte[] src, int off, int len) {
+        if ((off | len) < 0 || len > src.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        while (len > 0) {
+            if (pos == segment.length) {
+                nextSegment(len);
+            }
+            int n = Math.min(len, segment.length - pos);
+            System.arraycopy(src, off, segment, pos, n);
+            pos += n;
+            lengths[current] = pos;
+            size += n;
+            off += n;
+            len -= n;
+        }
+        return this;
+    }
+
+    /**
+     * 按当前字节序连续写入数组中 len 个16 位整数
+     *
+     * @param src 数据
+     * @param off 起始位置
+     * @param len 个数
+     * @return this
+     * @throws IndexOutOfBoundsException off、len 超出 src 范围时抛出，不写入任何数据
+     */
+    public BinaryWriter writeShorts(final short[] src, final int off, final int len) {
+        checkRange(src.length, off, len);
+        for (int i = off, end = off + len; i < end; i++) {
+            writeShort(src[i]);
+        }
+        return this;
+    }
+
+    /**
+     * 按当前字节序连续写入数组中 len 个32 位整数
+     *
+     * @param src 数据
+     * @param off 起始位置
+     * @param len 个数
+     * @return this
+     * @throws IndexOutOfBoundsException off、len 超出 src 范围时抛出，不写入任何数据
+     */
+    public BinaryWriter writeInts(final int[] src, final int off, final int len) {
+        checkRange(src.length, off, len);
+        for (int i = off, end = off + len; i < end; i++) {
+            writeInt(src[i]);
+        }
+        return this;
+    }
+
+    /**
+     * 按当前字节序连续写入数组中 len 个64 位整数
+     *
+     * @param src 数据
+     * @param off 起始位置
+     * @param len 个数
+     * @return this
+     * @throws IndexOutOfBoundsException off、len 超出 src 范围时抛出，不写入任何数据
+     */
+    public BinaryWriter writeLongs(final long[] src, final int off, final int len) {
+        checkRange(src.length, off, len);
+        for (int i = off, end = off + len; i < end; i++) {
+            writeLong(src[i]);
+        }
+        return this;
+    }
+
+    /**
+     * 按当前字节序连续写入数组中 len 个单精度浮点数
+     *
+     * @param src 数据
+     * @param off 起始位置
+     * @param len 个数
+     * @return this
+     * @throws IndexOutOfBoundsException off、len 超出 src 范围时抛出，不写入任何数据
+     */
+    public BinaryWriter writeFloats(final float[] src, final int off, final int len) {
+        checkRange(src.length, off, len);
+        for (int i = off, end = off + len; i < end; i++) {
+            writeFloat(src[i]);
+        }
+        return this;
+    }
+
+    /**
+     * 按当前字节序连续写入数组中 len 个双精度浮点数
+     *
+     * @param src 数据
+     * @param off 起始位置
+     * @param len 个数
+     * @return this
+     * @throws IndexOutOfBoundsException off、len 超出 src 范围时抛出，不写入任何数据
+     */
+    public BinaryWriter writeDoubles(final double[] src, final int off, final int len) {
+        checkRange(src.length, off, len);
+        for (int i = off, end = off + len; i < end; i++) {
+            writeDouble(src[i]);
+        }
+        return this;
+    }
+
+    /**
+     * 复制全部数据到新数组
+     *
+     * @return 长度为 {@link #size()} 的数组
+     */
+    public byte[] toByteArray() {
+        byte[] out = new byte[size];
+        copyTo(out, 0);
+        return out;
+    }
+
+    /**
+     * 复制全部数据到调用方数组
+     *
+     * @param dst    输出数组
+     * @param dstOff 输出起始位置
+     * @return 复制的字节数
+     * @throws IndexOutOfBoundsException 空间不足时抛出
+     */
+    public int copyTo(final byte[] dst, final int dstOff) {
+        if (dstOff < 0 || dst.length - dstOff < size) {
+            throw new IndexOutOfBoundsException();
+        }
+        int p = dstOff;
+        for (int i = 0; i <= current; i++) {
+            System.arraycopy(segments[i], 0, dst, p, lengths[i]);
+            p += lengths[i];
+        }
+        return size;
+    }
+
+    /**
+     * 复制全部数据到 ByteBuffer
+     *
+     * @param dst 输出缓冲区，从其 position 开始写
+     * @throws BufferOverflowException 空间不足时抛出
+     */
+    public void writeTo(final ByteBuffer dst) {
+        if (dst.remaining() < size) {
+            throw new BufferOverflowException();
+        }
+        for (int i = 0; i <= current; i++) {
+            dst.put(segments[i], 0, lengths[i]);
+        }
+    }
+
+    /**
+     * 逐段写到输出流
+     *
+     * @param out 输出流
+     * @throws IOException 写入失败时抛出
+     */
+    public void writeTo(final OutputStream out) throws IOException {
+        for (int i = 0; i <= current; i++) {
+            out.write(segments[i], 0, lengths[i]);
+        }
+    }
+
+    /**
+     * 逐段写到通道
+     *
+     * @param channel 通道
+     * @throws IOException 写入失败时抛出
+     */
+    public void writeTo(final WritableByteChannel channel) throws IOException {
+        for (int i = 0; i <= current; i++) {
+            ByteBuffer buffer = ByteBuffer.wrap(segments[i], 0, lengths[i]);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * 预留 n 个连续字节，当前段不够时整块放到下一段，基本类型不会跨段
+     *
+     * @return 预留区域在当前段中的起始位置
+     */
+    private int reserve(final int n) {
+        if (segment.length - pos < n) {
+            nextSegment(n);
+        }
+        int p = pos;
+        pos += n;
+        lengths[current] = pos;
+        size += n;
+        return p;
+    }
+
+    private void nextSegment(final int minLen) {
+        current++;
+        if (current < segmentCount && segments[current].length >= minLen) {
+            // reset 后复用已有分段
+            segment = segments[current];
+        } else {
+            if (current == segments.length) {
+                byte[][] s = new byte[current << 1][];
+                System.arraycopy(segments, 0, s, 0, current);
+                segments = s;
+                int[] l = new int[current << 1];
+                System.arraycopy(lengths, 0, l, 0, current);
+                lengths = l;
+            }
+            int len = Math.max(minLen, Math.min(MAX_SEGMENT_LEN, segment.length << 1));
+            // 已有分段太小时直接替换
+            segment = new byte[len];
+            segments[current] = segment;
+            segmentCount = Math.max(segmentCount, current + 1);
+        }
+        lengths[current] = 0;
+        pos = 0;
+    }
+
+    private static void checkRange(final int arrayLen, final int off, final int len) {
+        if ((off | len) < 0 || len > arrayLen - off) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    private static int varLongSize(long value) {
+        int n = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            n++;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,240 @@
+package com.liuhanze.iutil.lang;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 字节缓冲池
+ * <p>按 2 的幂分级（4KB ~ 1MB），堆数组与直接缓冲区各一套。取用时先查当前线程的缓存，再查全局共享池，
+ * 都没有才分配；归还时先放回线程缓存，满了再放入共享池，共享池每级最多保留约 4MB，超出的交给 GC。
+ * 超过 1MB 的请求直接分配，归还时丢弃。</p>
+ * <p>取得的缓冲区长度（容量）可能大于请求的长度。用完须在 finally 中归还，归还后不能再使用；
+ * 不归还只会让缓冲区被 GC 回收，不会泄漏。</p>
+ */
+public final class BufferPool {
+
+    private static final int MIN_SHIFT = 12;
+    private static final int MAX_SHIFT = 20;
+    private static final int CLASS_COUNT = MAX_SHIFT - MIN_SHIFT + 1;
+    /**
+     * 每个线程每级缓存的个数
+     */
+    private static final int LOCAL_SLOTS = 2;
+    private static final int SHARED_BYTES_PER_CLASS = 4 * 1024 * 1024;
+
+    static final AtomicLong HIT_COUNT = new AtomicLong();
+    static final AtomicLong MISS_COUNT = new AtomicLong();
+    static final AtomicLong OUTSTANDING_COUNT = new AtomicLong();
+
+    private static final SizeClass[] HEAP = newClasses();
+    private static final SizeClass[] DIRECT = newClasses();
+
+    private static final ThreadLocal<Object[][]> HEAP_LOCAL = newLocal();
+    private static final ThreadLocal<Object[][]> DIRECT_LOCAL = newLocal();
+
+    private BufferPool() {
+
+    }
+
+    /**
+     * 取得长度不小于 minLen 的堆数组，内容未清零
+     *
+     * @param minLen 最小长度
+     * @return 数组
+     */
+    public static byte[] acquire(final int minLen) {
+        int index = classOf(minLen);
+        OUTSTANDING_COUNT.incrementAndGet();
+        if (index < 0) {
+            MISS_COUNT.incrementAndGet();
+            return new byte[minLen];
+        }
+        byte[] array = (byte[]) take(HEAP, HEAP_LOCAL, index);
+        if (array != null) {
+            HIT_COUNT.incrementAndGet();
+            return array;
+        }
+        MISS_COUNT.incrementAndGet();
+        return new byte[1 << (index + MIN_SHIFT)];
+    }
+
+    /**
+     * 归还堆数组
+     *
+     * @param array 由 {@link #acquire(int)} 取得的数组，为 {@code null} 时忽略
+     */
+    public static void release(final byte[] array) {
+        if (array == null) {
+            return;
+        }
+        OUTSTANDING_COUNT.decrementAndGet();
+        int index = exactClassOf(array.length);
+        if (index >= 0) {
+            give(HEAP, HEAP_LOCAL, index, array);
+        }
+    }
+
+    /**
+     * 取得容量不小于 minLen 的直接缓冲区，已 clear，字节序为大端
+     *
+     * @param minLen 最小容量
+     * @return 缓冲区
+     */
+    public static ByteBuffer acquireDirect(final int minLen) {
+        int index = classOf(minLen);
+        OUTSTANDING_COUNT.incrementAndGet();
+        if (index < 0) {
+            MISS_COUNT.incrementAndGet();
+            return ByteBuffer.allocateDirect(minLen);
+        }
+        ByteBuffer buffer = (ByteBuffer) take(DIRECT, DIRECT_LOCAL, index);
+        if (buffer != null) {
+            HIT_COUNT.incrementAndGet();
+            buffer.clear();
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            return buffer;
+        }
+        MISS_COUNT.incrementAndGet();
+        return ByteBuffer.allocateDirect(1 << (index + MIN_SHIFT));
+    }
+
+    /**
+     * 归还直接缓冲区
+     *
+     * @param buffer 由 {@link #acquireDirect(int)} 取得的缓冲区，为 {@code null} 时忽略
+     */
+    public static void release(final ByteBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+        OUTSTANDING_COUNT.decrementAndGet();
+        int index = exactClassOf(buffer.capacity());
+        if (index >= 0 && buffer.isDirect()) {
+            give(DIRECT, DIRECT_LOCAL, index, buffer);
+        }
+    }
+
+    /**
+     * 清空共享池与当前线程的缓存，可在内存紧张（如 onTrimMemory）时调用
+     */
+    public static void clear() {
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            drain(HEAP[i]);
+            drain(DIRECT[i]);
+        }
+        HEAP_LOCAL.remove();
+        DIRECT_LOCAL.remove();
+    }
+
+    /**
+     * 获取累计统计
+     *
+     * @return 统计快照
+     */
+    public static BufferPoolStat getStat() {
+        return new BufferPoolStat(HIT_COUNT.get(), MISS_COUNT.get(), OUTSTANDING_COUNT.get());
+    }
+
+    /**
+     * 清零命中与未命中计数，未归还数反映实际持有情况，不清零
+     */
+    public static void resetStat() {
+        HIT_COUNT.set(0);
+        MISS_COUNT.set(0);
+    }
+
+    /**
+     * 请求长度所在的级别
+     *
+     * @return 级别下标，超过最大级别返回 -1
+     */
+    private static int classOf(final int len) {
+        if (len <= 1 << MIN_SHIFT) {
+            return 0;
+        }
+        int shift = 32 - Integer.numberOfLeadingZeros(len - 1);
+        return shift > MAX_SHIFT ? -1 : shift - MIN_SHIFT;
+    }
+
+    /**
+     * 长度恰好等于某一级时返回该级，否则返回 -1，不是池中分配的缓冲区不会被收下
+     */
+    private static int exactClassOf(final int len) {
+        if (Integer.bitCount(len) != 1) {
+            return -1;
+        }
+        int shift = Integer.numberOfTrailingZeros(len);
+        return shift < MIN_SHIFT || shift > MAX_SHIFT ? -1 : shift - MIN_SHIFT;
+    }
+
+    private static Object take(final SizeClass[] classes, final ThreadLocal<Object[][]> local, final int index) {
+        Object[] slots = local.get()[index];
+        for (int i = LOCAL_SLOTS - 1; i >= 0; i--) {
+            Object o = slots[i];
+            if (o != null) {
+                slots[i] = null;
+                return o;
+            }
+        }
+        SizeClass c = classes[index];
+        Object o = c.shared.poll();
+        if (o != null) {
+            c.sharedCount.decrementAndGet();
+        }
+        return o;
+    }
+
+    private static void give(final SizeClass[] classes, final ThreadLocal<Object[][]> local,
+                             final int index, final Object o) {
+        Object[] slots = local.get()[index];
+        for (int i = 0; i < LOCAL_SLOTS; i++) {
+            if (slots[i] == null) {
+                slots[i] = o;
+                return;
+            }
+        }
+        SizeClass c = classes[index];
+        if (c.sharedCount.incrementAndGet() <= c.sharedCapacity) {
+            c.shared.offer(o);
+        } else {
+            c.sharedCount.decrementAndGet();
+        }
+    }
+
+    private static void drain(final SizeClass c) {
+        while (c.shared.poll() != null) {
+            c.sharedCount.decrementAndGet();
+        }
+    }
+
+    private static SizeClass[] newClasses() {
+        SizeClass[] classes = new SizeClass[CLASS_COUNT];
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            int size = 1 << (i + MIN_SHIFT);
+            classes[i] = new SizeClass(Math.max(2, SHARED_BYTES_PER_CLASS / size));
+        }
+        return classes;
+    }
+
+    private static ThreadLocal<Object[][]> newLocal() {
+        return new ThreadLocal<Object[][]>() {
+            @Override
+            protected Object[][] initialValue() {
+                return new Object[CLASS_COUNT][LOCAL_SLOTS];
+            }
+        };
+    }
+
+    private static final class SizeClass {
+        final int sharedCapacity;
+        final ConcurrentLinkedQueue<Object> shared = new ConcurrentLinkedQueue<>();
+        final AtomicInteger sharedCount = new AtomicInteger();
+
+        SizeClass(final int sharedCapacity) {
+            this.sharedCapacity = sharedCapacity;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.liuhanze.iutil.lang;
+
+/**
+ * 缓冲池统计快照
+ */
+public final class BufferPoolStat {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long outstandingCount;
+
+    BufferPoolStat(final long hitCount, final long missCount, final long outstandingCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.outstandingCount = outstandingCount;
+    }
+
+    /**
+     * 从池中取到缓冲区的次数
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * 池中没有、新分配的次数，含超过最大级别的请求
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * 已取出尚未归还的缓冲区个数
+     */
+    public long getOutstandingCount() {
+        return outstandingCount;
+    }
+
+    /**
+     * 命中率
+     *
+     * @return 0 ~ 1，没有请求时为 0
+     */
+    public double getHitRate() {
+        long total = hitCount + missCount;
+        return total <= 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString() {
+        return "BufferPoolStat{" +
+                "hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", outstandingCount=" + outstandingCount +
+                ", hitRate=" + getHitRate() +
+                '}';
+    }
+}
@@ -0,0 +1,26 @@
+package com.liuhanze.iutil.lang;
+
+/**
+ * 取消标记
+ * <p>由调用方持有并在任意线程调用 {@link #cancel()}，耗时任务在处理每一项前检查 {@link #isCanceled()}。</p>
+ */
+public final class CancelToken {
+
+    private volatile boolean canceled;
+
+    /**
+     * 请求取消
+     */
+    public void cancel() {
+        canceled = true;
+    }
+
+    /**
+     * 是否已请求取消
+     *
+     * @return {@code true}: 已取消<br>{@code false}: 未取消
+     */
+    public boolean isCanceled() {
+        return canceled;
+    }
+}
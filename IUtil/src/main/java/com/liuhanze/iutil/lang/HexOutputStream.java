@@ -0,0 +1,75 @@
+package com.liuhanze.iutil.lang;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 16 进制编码输出流
+ * <p>写入的数据按块编码为 ASCII 16 进制写到下层流，输出与 {@link IHex#encode(byte[], boolean)} 一致。
+ * 编码缓冲取自 {@link BufferPool}，关闭时归还。</p>
+ */
+public final class HexOutputStream extends FilterOutputStream {
+
+    private static final int ENCODED_LEN = 8192;
+    private static final int CHUNK_LEN = ENCODED_LEN / 2;
+
+    private final boolean upperCase;
+    private final byte[] single = new byte[1];
+    private byte[] encoded;
+    private boolean closed;
+
+    /**
+     * @param out       下层输出流，关闭时一并关闭
+     * @param upperCase 是否大写
+     */
+    public HexOutputStream(final OutputStream out, final boolean upperCase) {
+        super(out);
+        this.upperCase = upperCase;
+        this.encoded = BufferPool.acquire(ENCODED_LEN);
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        ensureOpen();
+        single[0] = (byte) b;
+        IHex.encode(single, 0, 1, encoded, 0, upperCase);
+        out.write(encoded, 0, 2);
+    }
+
+    @Override
+    public void write(final byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if ((off | len) < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        while (len > 0) {
+            int n = Math.min(len, CHUNK_LEN);
+            int m = IHex.encode(b, off, n, encoded, 0, upperCase);
+            out.write(encoded, 0, m);
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            out.flush();
+        } finally {
+            BufferPool.release(encoded);
+            encoded = null;
+            out.close();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("stream closed");
+        }
+    }
+}
@@ -1,11 +1,7 @@
 package com.liuhanze.iutil.lang;
 
-import java.util.Locale;
-
 public final class IByte {
 
-    private static final char[] hexDigits = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'};
-
     private IByte(){
 
     }
@@ -28,60 +24,39 @@ public final class IByte {
         if (bytes == null) {
             return null;
         }
-        int len = bytes.length;
-        if (len <= 0) {
+        if (bytes.length <= 0) {
             return null;
         }
-        char[] ret = new char[len << 1];
-        for (int i = 0, j = 0; i < len; i++) {
-            ret[j++] = hexDigits[bytes[i] >>> 4 & 0x0f];
-            ret[j++] = hexDigits[bytes[i] & 0x0f];
-        }
-        return new String(ret);
+        return IHex.encode(bytes, true);
     }
 
     /***
      * byte[] 转16进制字符串
      * @param src
-     * @return
+     * @return 16进制小写字符串
      */
     public static String bytesToHexString(byte[] src) {
-        StringBuilder stringBuilder = new StringBuilder();
         if (src == null || src.length <= 0) {
             return null;
         }
-        for (byte b : src) {
-            int v = b & 0xFF;
-            String hv = Integer.toHexString(v);
-            if (hv.length() < 2) {
-                stringBuilder.append(0);
-            }
-            stringBuilder.append(hv);
-        }
-        return stringBuilder.toString();
+        return IHex.encode(src, false);
     }
 
     /**
      * byte[]数组转换为16进制的字符串
      *
      * @param data 要转换的字节数组
-     * @return 转换后的结果
+     * @return 转换后的结果，16进制大写
      */
     public static final String byteArrayToHexString(byte[] data) {
-        StringBuilder sb = new StringBuilder(data.length * 2);
-        for (byte b : data) {
-            int v = b & 0xff;
-            if (v < 16) {
-                sb.append('0');
-            }
-            sb.append(Integer.toHexString(v));
-        }
-        return sb.toString().toUpperCase(Locale.getDefault());
+        return IHex.encode(data, 0, data.length, true);
     }
 
     /**
      * 16进制表示的字符串转换为字节数组
      *
+     * <p>长度为奇数时在最前面补 0，非 16 进制字符跳过，见 {@link IHex#decodeLenient(CharSequence)}</p>
+     *
      * @param hexString 16进制表示的字符串
      * @return byte[] 字节数组
      */
@@ -89,24 +64,14 @@ public final class IByte {
         if (IString.isEmpty(hexString)) {
             return null;
         }
-        int len = hexString.length();
-        if (len % 2 != 0) {
-            hexString = "0" + hexString;
-            len = len + 1;
-        }
-        byte[] d = new byte[len / 2];
-        for (int i = 0; i < len; i += 2) {
-            // 两位一组，表示一个字节,把这样表示的16进制字符串，还原成一个进制字节
-            d[i / 2] = (byte) ((Character.digit(hexString.charAt(i), 16) << 4) + Character.digit(hexString.charAt(i + 1), 16));
-        }
-        return d;
+        return IHex.decodeLenient(hexString);
     }
 
     /**
      * hexString转byteArr
      *
      * @param hexString
-     * @return
+     * @return 字节数组，含非 16 进制字符时返回 null
      */
     public static byte[] hexStringToBytes(String hexString) {
         if (IString.isEmpty(hexString)) {
@@ -115,15 +80,7 @@ public final class IByte {
         if (hexString.length() % 2 != 0) {
             throw new IllegalArgumentException("长度不是偶数");
         }
-        hexString = hexString.toUpperCase();
-        int length = hexString.length() / 2;
-        char[] hexChars = hexString.toCharArray();
-        byte[] d = new byte[length];
-        for (int i = 0; i < length; i++) {
-            int pos = i * 2;
-            d[i] = (byte) (charToByte(hexChars[pos]) << 4 | charToByte(hexChars[pos + 1]));
-        }
-        return d;
+        return IHex.decode(hexString);
     }
     public static byte charToByte(char c) {
         return (byte) "0123456789ABCDEF".indexOf(c);
@@ -244,6 +201,120 @@ public final class IByte {
         return value;
     }
 
+    /**
+     * 将short数值填充至byte数组的指定位置，本方法适用于(【小端】低地址放低位，高地址放高位)的顺序
+     *
+     * @param value  填充的short值
+     * @param src    需要填充的byte数组
+     * @param offset 填充的位置
+     */
+    public static void fillShortToBytesLittleEndian(short value, byte[] src, int offset) {
+        src[offset] = (byte) value;
+        src[offset + 1] = (byte) (value >> 8);
+    }
+
+    /**
+     * 将short数值填充至byte数组的指定位置，本方法适用于(【大端】低地址放高位，高地址放低位)的顺序
+     *
+     * @param value  填充的short值
+     * @param src    需要填充的byte数组
+     * @param offset 填充的位置
+     */
+    public static void fillShortToBytesBigEndian(short value, byte[] src, int offset) {
+        src[offset] = (byte) (value >> 8);
+        src[offset + 1] = (byte) value;
+    }
+
+    /**
+     * byte数组中取short数值，本方法适用于(【小端】低地址放低位，高地址放高位)的顺序
+     *
+     * @param src    byte数组
+     * @param offset 从数组的第offset位开始
+     * @return short数值
+     */
+    public static short bytesToShortLittleEndian(byte[] src, int offset) {
+        return (short) ((src[offset] & 0xFF) | (src[offset + 1] << 8));
+    }
+
+    /**
+     * byte数组中取short数值，本方法适用于(【大端】低地址放高位，高地址放低位)的顺序
+     *
+     * @param src    byte数组
+     * @param offset 从数组的第offset位开始
+     * @return short数值
+     */
+    public static short bytesToShortBigEndian(byte[] src, int offset) {
+        return (short) ((src[offset] << 8) | (src[offset + 1] & 0xFF));
+    }
 
+    /**
+     * 将long数值转换为占八个字节的byte数组，本方法适用于(【小端】低地址放低位，高地址放高位)的顺序
+     *
+     * @param value 要转换的long值
+     * @return byte数组
+     */
+    public static byte[] longToBytesLittleEndian(long value) {
+        byte[] src = new byte[8];
+        fillLongToBytesLittleEndian(value, src, 0);
+        return src;
+    }
+
+    /**
+     * 将long数值转换为占八个字节的byte数组，本方法适用于(【大端】低地址放高位，高地址放低位)的顺序
+     *
+     * @param value 要转换的long值
+     * @return byte数组
+     */
+    public static byte[] longToBytesBigEndian(long value) {
+        byte[] src = new byte[8];
+        fillLongToBytesBigEndian(value, src, 0);
+        return src;
+    }
+
+    /**
+     * 将long数值填充至byte数组的指定位置，本方法适用于(【小端】低地址放低位，高地址放高位)的顺序
+     *
+     * @param value  填充的long值
+     * @param src    需要填充的byte数组
+     * @param offset 填充的位置
+     */
+    public static void fillLongToBytesLittleEndian(long value, byte[] src, int offset) {
+        fillIntToBytesLittleEndian((int) value, src, offset);
+        fillIntToBytesLittleEndian((int) (value >>> 32), src, offset + 4);
+    }
+
+    /**
+     * 将long数值填充至byte数组的指定位置，本方法适用于(【大端】低地址放高位，高地址放低位)的顺序
+     *
+     * @param value  填充的long值
+     * @param src    需要填充的byte数组
+     * @param offset 填充的位置
+     */
+    public static void fillLongToBytesBigEndian(long value, byte[] src, int offset) {
+        fillIntToBytesBigEndian((int) (value >>> 32), src, offset);
+        fillIntToBytesBigEndian((int) value, src, offset + 4);
+    }
+
+    /**
+     * byte数组中取long数值，本方法适用于(【小端】低地址放低位，高地址放高位)的顺序
+     *
+     * @param src    byte数组
+     * @param offset 从数组的第offset位开始
+     * @return long数值
+     */
+    public static long bytesToLongLittleEndian(byte[] src, int offset) {
+        return (bytesToIntLittleEndian(src, offset) & 0xFFFFFFFFL) | ((long) bytesToIntLittleEndian(src, offset + 4) << 32);
+    }
+
+    /**
+     * byte数组中取long数值，本方法适用于(【大端】低地址放高位，高地址放低位)的顺序
+     *
+     * @param src    byte数组
+     * @param offset 从数组的第offset位开始
+     * @return long数值
+     */
+    public static long bytesToLongBigEndian(byte[] src, int offset) {
+        return ((long) bytesToIntBigEndian(src, offset) << 32) | (bytesToIntBigEndian(src, offset + 4) & 0xFFFFFFFFL);
+    }
 
 }
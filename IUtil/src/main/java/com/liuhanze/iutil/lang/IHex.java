@@ -0,0 +1,275 @@
+package com.liuhanze.iutil.lang;
+
+/**
+ * 16 进制编解码
+ * <p>编码按字节查 256 项的字符对表，每字节两次数组读取，不经过 {@code Integer.toHexString} 与 StringBuilder；
+ * 解码查 128 项的数值表，每次处理两个字符：非 ASCII 字符不能查表，遇到即返回失败；
+ * 其余非法字符在表中为负值，按位或累积后在循环结束时统一判断，不逐个字符分支。</p>
+ * <p>严格解码要求偶数长度且只含 0-9、a-f、A-F；宽松解码跳过其余字符（空白、':'、'-' 等）与 "0x" 前缀，
+ * 数字个数为奇数时在最前面补 0。</p>
+ */
+public final class IHex {
+
+    private static final char[] UPPER_DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final char[] LOWER_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * 下标为 (b & 0xff) << 1 处起的两个字符即该字节的编码
+     */
+    private static final char[] UPPER_PAIRS = new char[512];
+    private static final char[] LOWER_PAIRS = new char[512];
+    /**
+     * 字符对应的数值，非 16 进制字符为 -1
+     */
+    private static final byte[] DIGITS = new byte[128];
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            UPPER_PAIRS[b << 1] = UPPER_DIGITS[b >>> 4];
+            UPPER_PAIRS[(b << 1) + 1] = UPPER_DIGITS[b & 0x0f];
+            LOWER_PAIRS[b << 1] = LOWER_DIGITS[b >>> 4];
+            LOWER_PAIRS[(b << 1) + 1] = LOWER_DIGITS[b & 0x0f];
+        }
+        for (int i = 0; i < DIGITS.length; i++) {
+            DIGITS[i] = -1;
+        }
+        for (int i = 0; i < 16; i++) {
+            DIGITS[UPPER_DIGITS[i]] = (byte) i;
+            DIGITS[LOWER_DIGITS[i]] = (byte) i;
+        }
+    }
+
+    private IHex() {
+
+    }
+
+    /**
+     * 编码为大写 16 进制字符串
+     *
+     * @param data 数据
+     * @return 16 进制字符串，data 为 {@code null} 时返回 {@code null}
+     */
+    public static String encode(byte[] data) {
+        return encode(data, true);
+    }
+
+    /**
+     * 编码为 16 进制字符串
+     *
+     * @param data      数据
+     * @param upperCase 是否大写
+     * @return 16 进制字符串，data 为 {@code null} 时返回 {@code null}
+     */
+    public static String encode(byte[] data, boolean upperCase) {
+        if (data == null) {
+            return null;
+        }
+        return encode(data, 0, data.length, upperCase);
+    }
+
+    /**
+     * 编码数组的一段为 16 进制字符串
+     *
+     * @param data      数据
+     * @param off       起始位置
+     * @param len       长度
+     * @param upperCase 是否大写
+     * @return 16 进制字符串
+     */
+    public static String encode(byte[] data, int off, int len, boolean upperCase) {
+        char[] out = new char[len << 1];
+        encodeInto(data, off, len, out, 0, upperCase ? UPPER_PAIRS : LOWER_PAIRS);
+        return new String(out);
+    }
+
+    /**
+     * 编码到调用方的字符数组
+     *
+     * @param src       数据
+     * @param srcOff    数据起始位置
+     * @param srcLen    数据长度
+     * @param dst       输出数组
+     * @param dstOff    输出起始位置
+     * @param upperCase 是否大写
+     * @return 写入的字符数，空间不足返回 -1
+     */
+    public static int encode(byte[] src, int srcOff, int srcLen, char[] dst, int dstOff, boolean upperCase) {
+        if (dst.length - dstOff < srcLen << 1) {
+            return -1;
+        }
+        encodeInto(src, srcOff, srcLen, dst, dstOff, upperCase ? UPPER_PAIRS : LOWER_PAIRS);
+        return srcLen << 1;
+    }
+
+    /**
+     * 编码为 ASCII 字节写入调用方数组
+     *
+     * @param src       数据
+     * @param srcOff    数据起始位置
+     * @param srcLen    数据长度
+     * @param dst       输出数组
+     * @param dstOff    输出起始位置
+     * @param upperCase 是否大写
+     * @return 写入的字节数，空间不足返回 -1
+     */
+    public static int encode(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, boolean upperCase) {
+        if (dst.length - dstOff < srcLen << 1) {
+            return -1;
+        }
+        char[] pairs = upperCase ? UPPER_PAIRS : LOWER_PAIRS;
+        for (int i = srcOff, end = srcOff + srcLen, j = dstOff; i < end; i++) {
+            int v = (src[i] & 0xff) << 1;
+            dst[j++] = (byte) pairs[v];
+            dst[j++] = (byte) pairs[v + 1];
+        }
+        return srcLen << 1;
+    }
+
+    /**
+     * 严格解码
+     *
+     * @param hex 16 进制字符串
+     * @return 数据，为 {@code null}、长度为奇数或含非法字符时返回 {@code null}
+     */
+    public static byte[] decode(CharSequence hex) {
+        if (hex == null || (hex.length() & 1) != 0) {
+            return null;
+        }
+        byte[] out = new byte[hex.length() >> 1];
+        return decode(hex, 0, hex.length(), out, 0) < 0 ? null : out;
+    }
+
+    /**
+     * 严格解码到调用方数组
+     * <p>失败时 dst 中可能已写入部分数据。</p>
+     *
+     * @param hex    16 进制字符
+     * @param off    起始位置
+     * @param len    字符数，须为偶数
+     * @param dst    输出数组
+     * @param dstOff 输出起始位置
+     * @return 写入的字节数，长度为奇数、含非法字符或空间不足返回 -1
+     */
+    public static int decode(CharSequence hex, int off, int len, byte[] dst, int dstOff) {
+        if ((len & 1) != 0 || dst.length - dstOff < len >> 1) {
+            return -1;
+        }
+        int bad = 0;
+        for (int i = off, end = off + len, j = dstOff; i < end; i += 2) {
+            char c0 = hex.charAt(i);
+            char c1 = hex.charAt(i + 1);
+            if (((c0 | c1) & ~0x7f) != 0) {
+                return -1;
+            }
+            int hi = DIGITS[c0];
+            int lo = DIGITS[c1];
+            bad |= hi | lo;
+            dst[j++] = (byte) (hi << 4 | lo);
+        }
+        return bad < 0 ? -1 : len >> 1;
+    }
+
+    /**
+     * 严格解码字符数组到调用方数组
+     *
+     * @return 写入的字节数，长度为奇数、含非法字符或空间不足返回 -1
+     * @see #decode(CharSequence, int, int, byte[], int)
+     */
+    public static int decode(char[] hex, int off, int len, byte[] dst, int dstOff) {
+        if ((len & 1) != 0 || dst.length - dstOff < len >> 1) {
+            return -1;
+        }
+        int bad = 0;
+        for (int i = off, end = off + len, j = dstOff; i < end; i += 2) {
+            char c0 = hex[i];
+            char c1 = hex[i + 1];
+            if (((c0 | c1) & ~0x7f) != 0) {
+                return -1;
+            }
+            int hi = DIGITS[c0];
+            int lo = DIGITS[c1];
+            bad |= hi | lo;
+            dst[j++] = (byte) (hi << 4 | lo);
+        }
+        return bad < 0 ? -1 : len >> 1;
+    }
+
+    /**
+     * 宽松解码，跳过非 16 进制字符与 "0x" 前缀，数字个数为奇数时在最前面补 0
+     * <p>例如 "0x1:a2 b3" 解码为 {0x01, 0xA2, 0xB3}。</p>
+     *
+     * @param hex 16 进制字符串
+     * @return 数据，hex 为 {@code null} 时返回 {@code null}
+     */
+    public static byte[] decodeLenient(CharSequence hex) {
+        if (hex == null) {
+            return null;
+        }
+        int len = hex.length();
+        int start = 0;
+        if (len >= 2 && hex.charAt(0) == '0' && (hex.charAt(1) == 'x' || hex.charAt(1) == 'X')) {
+            start = 2;
+        }
+        int count = 0;
+        for (int i = start; i < len; i++) {
+            if (digit(hex.charAt(i)) >= 0) {
+                count++;
+            }
+        }
+        byte[] out = new byte[(count + 1) >> 1];
+        // 奇数个数字时第一个数字单独成为第一个字节的低 4 位
+        int j = 0;
+        int acc = 0;
+        boolean high = (count & 1) == 0;
+        for (int i = start; i < len; i++) {
+            int v = digit(hex.charAt(i));
+            if (v < 0) {
+                continue;
+            }
+            if (high) {
+                acc = v << 4;
+            } else {
+                out[j++] = (byte) (acc | v);
+                acc = 0;
+            }
+            high = !high;
+        }
+        return out;
+    }
+
+    /**
+     * 是否是可以严格解码的 16 进制字符串
+     *
+     * @param hex 字符串
+     * @return {@code true}: 非空、偶数长度且只含 16 进制字符
+     */
+    public static boolean isHex(CharSequence hex) {
+        if (hex == null || hex.length() == 0 || (hex.length() & 1) != 0) {
+            return false;
+        }
+        for (int i = 0, len = hex.length(); i < len; i++) {
+            if (digit(hex.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 16 进制字符对应的数值
+     *
+     * @param c 字符
+     * @return 0 ~ 15，非 16 进制字符返回 -1
+     */
+    public static int digit(char c) {
+        return c < 128 ? DIGITS[c] : -1;
+    }
+
+    private static void encodeInto(byte[] src, int off, int len, char[] dst, int dstOff, char[] pairs) {
+        for (int i = off, end = off + len, j = dstOff; i < end; i++) {
+            int v = (src[i] & 0xff) << 1;
+            dst[j++] = pairs[v];
+            dst[j++] = pairs[v + 1];
+        }
+    }
+}
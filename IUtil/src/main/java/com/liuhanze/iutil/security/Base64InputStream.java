@@ -0,0 +1,212 @@
+package com.liuhanze.iutil.security;
+
+import com.liuhanze.iutil.lang.BufferPool;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Base64 解码输入流
+ * <p>从下层流按块读取编码文本并解码，只缓存一个块，内存占用与数据大小无关。
+ * 解码规则与 {@link IBase64#decode(String)} 一致：跳过字母表以外的字符，遇到第三、四位的 '=' 结束。</p>
+ * <p>证书模式下跳过以 '-' 开头的行（如 "-----BEGIN PUBLIC KEY-----"），
+ * 与 {@code IFile.readCertificateKeyInputStream} 读取后再 {@link IBase64#decodeCertificateKey(String)} 的结果相同。</p>
+ * <p>缓冲取自 {@link BufferPool}，关闭时归还。</p>
+ */
+public final class Base64InputStream extends FilterInputStream {
+
+    private static final int BUFFER_LEN = 8192;
+
+    private final boolean certificateKey;
+    /**
+     * 一块编码文本加上上次遗留的不完整分组，解码后不会超过这个长度
+     */
+    private static final int DECODED_LEN = BUFFER_LEN / 4 * 3 + 6;
+
+    private byte[] raw;
+    private byte[] decoded;
+    private int pos;
+    private int limit;
+    private int acc;
+    private int quantum;
+    private boolean lineStart = true;
+    private boolean skipLine;
+    private boolean eof;
+    private boolean closed;
+
+    /**
+     * @param in 下层输入流，关闭时一并关闭
+     */
+    public Base64InputStream(final InputStream in) {
+        this(in, false);
+    }
+
+    /**
+     * @param in             下层输入流，关闭时一并关闭
+     * @param certificateKey 是否跳过以 '-' 开头的行
+     */
+    public Base64InputStream(final InputStream in, final boolean certificateKey) {
+        super(in);
+        this.certificateKey = certificateKey;
+        this.raw = BufferPool.acquire(BUFFER_LEN);
+        this.decoded = BufferPool.acquire(DECODED_LEN);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return decoded[pos++] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if ((off | len) < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        int n = Math.min(len, limit - pos);
+        System.arraycopy(decoded, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        long remaining = n;
+        while (remaining > 0) {
+            if (pos == limit && !fill()) {
+                break;
+            }
+            int k = (int) Math.min(remaining, limit - pos);
+            pos += k;
+            remaining -= k;
+        }
+        return n - Math.max(0, remaining);
+    }
+
+    @Override
+    public int available() throws IOException {
+        ensureOpen();
+        return limit - pos;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void mark(final int readlimit) {
+
+    }
+
+    @Override
+    public void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        pos = 0;
+        limit = 0;
+        BufferPool.release(raw);
+        BufferPool.release(decoded);
+        raw = null;
+        decoded = null;
+        in.close();
+    }
+
+    /**
+     * 读取并解码下一块，直到得到数据或结束
+     *
+     * @return 是否有新数据
+     */
+    private boolean fill() throws IOException {
+        ensureOpen();
+        pos = 0;
+        limit = 0;
+        while (limit == 0) {
+            if (eof) {
+                return false;
+            }
+            int n = in.read(raw, 0, BUFFER_LEN);
+            if (n < 0) {
+                eof = true;
+                limit = flush(0);
+            } else {
+                limit = decode(n);
+            }
+        }
+        return true;
+    }
+
+    private int decode(final int n) {
+        byte[] table = IBase64.BASE_64_DECODE_CHARS;
+        int p = 0;
+        for (int i = 0; i < n; i++) {
+            int ch = raw[i] & 0xff;
+            if (certificateKey) {
+                if (ch == '\n' || ch == '\r') {
+                    lineStart = true;
+                    skipLine = false;
+                    continue;
+                }
+                if (skipLine) {
+                    continue;
+                }
+                if (lineStart) {
+                    lineStart = false;
+                    if (ch == '-') {
+                        skipLine = true;
+                        continue;
+                    }
+                }
+            }
+            if (ch == '=' && quantum >= 2) {
+                eof = true;
+                return flush(p);
+            }
+            int v = ch < 128 ? table[ch] : -1;
+            if (v < 0) {
+                continue;
+            }
+            acc = acc << 6 | v;
+            if (++quantum == 4) {
+                decoded[p++] = (byte) (acc >> 16);
+                decoded[p++] = (byte) (acc >> 8);
+                decoded[p++] = (byte) acc;
+                acc = 0;
+                quantum = 0;
+            }
+        }
+        return p;
+    }
+
+    /**
+     * 写出不完整的最后一组
+     */
+    private int flush(final int p) {
+        int end = IBase64.flushTail(acc, quantum, decoded, p);
+        acc = 0;
+        quantum = 0;
+        return end;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("stream closed");
+        }
+    }
+}
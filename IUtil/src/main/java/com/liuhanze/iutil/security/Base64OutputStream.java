@@ -0,0 +1,152 @@
+package com.liuhanze.iutil.security;
+
+import com.liuhanze.iutil.lang.BufferPool;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Base64 编码输出流
+ * <p>写入的原始数据按块编码为 ASCII 写到下层流，只缓存一个块，内存占用与数据大小无关。
+ * 输出与 {@link IBase64#encode(byte[], int)} 一致：每 width 个字符之间插入 '\n'，末尾不加换行。</p>
+ * <p>不足 3 字节的尾部要到 {@link #close()} 时才能补 '=' 写出，因此必须关闭；
+ * {@link #flush()} 只写出已凑满 3 字节的部分。缓冲取自 {@link BufferPool}，关闭时归还。</p>
+ */
+public final class Base64OutputStream extends FilterOutputStream {
+
+    /**
+     * 每次编码的原始字节数，须是 3 的倍数
+     */
+    private static final int CHUNK_LEN = 3 * 1024;
+    private static final int ENCODED_LEN = CHUNK_LEN / 3 * 4;
+
+    private final int width;
+    private byte[] pending;
+    private byte[] encoded;
+    private byte[] lined;
+    private int pendingLen;
+    private int column;
+    private boolean closed;
+
+    /**
+     * @param out   下层输出流，关闭时一并关闭
+     * @param width 行宽，0 表示不换行
+     */
+    public Base64OutputStream(final OutputStream out, final int width) {
+        super(out);
+        this.width = Math.max(0, width);
+        this.pending = BufferPool.acquire(CHUNK_LEN);
+        this.encoded = BufferPool.acquire(ENCODED_LEN);
+        this.lined = this.width > 0 ? BufferPool.acquire(ENCODED_LEN + ENCODED_LEN / this.width + 1) : null;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        ensureOpen();
+        if (pendingLen == CHUNK_LEN) {
+            emit(pending, 0, CHUNK_LEN);
+            pendingLen = 0;
+        }
+        pending[pendingLen++] = (byte) b;
+    }
+
+    @Override
+    public void write(final byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if ((off | len) < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        // 先凑满缓存中的块
+        if (pendingLen > 0) {
+            int n = Math.min(len, CHUNK_LEN - pendingLen);
+            System.arraycopy(b, off, pending, pendingLen, n);
+            pendingLen += n;
+            off += n;
+            len -= n;
+            if (pendingLen < CHUNK_LEN) {
+                return;
+            }
+            emit(pending, 0, CHUNK_LEN);
+            pendingLen = 0;
+        }
+        // 整块直接从调用方数组编码，不经过缓存
+        while (len >= CHUNK_LEN) {
+            emit(b, off, CHUNK_LEN);
+            off += CHUNK_LEN;
+            len -= CHUNK_LEN;
+        }
+        System.arraycopy(b, off, pending, 0, len);
+        pendingLen = len;
+    }
+
+    /**
+     * 写出已凑满 3 字节的部分并刷新下层流
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        int whole = pendingLen - pendingLen % 3;
+        if (whole > 0) {
+            emit(pending, 0, whole);
+            System.arraycopy(pending, whole, pending, 0, pendingLen - whole);
+            pendingLen -= whole;
+        }
+        out.flush();
+    }
+
+    /**
+     * 写出剩余数据与 '=' 后关闭下层流
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (pendingLen > 0) {
+                emit(pending, 0, pendingLen);
+                pendingLen = 0;
+            }
+            out.flush();
+        } finally {
+            BufferPool.release(pending);
+            BufferPool.release(encoded);
+            BufferPool.release(lined);
+            pending = null;
+            encoded = null;
+            lined = null;
+            out.close();
+        }
+    }
+
+    private void emit(final byte[] b, final int off, final int len) throws IOException {
+        int n = IBase64.encodeBytes(b, off, len, encoded, 0, 0, IBase64.BASE_64_ENCODE_CHARS, true, "");
+        if (width == 0) {
+            out.write(encoded, 0, n);
+            return;
+        }
+        // 换行位置接着上一块的列数计算
+        int p = 0;
+        int q = 0;
+        while (p < n) {
+            if (column == width) {
+                lined[q++] = '\n';
+                column = 0;
+            }
+            int run = Math.min(width - column, n - p);
+            System.arraycopy(encoded, p, lined, q, run);
+            p += run;
+            q += run;
+            column += run;
+        }
+        out.write(lined, 0, q);
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("stream closed");
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.liuhanze.iutil.security;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * 可复用的加解密会话
+ * <p>{@code Cipher.getInstance} 需要查找 Provider，对几百字节的小数据，这一步比加解密本身更耗时。
+ * 会话按（transformation、密钥、加密/解密）缓存已初始化的 {@link Cipher}，每个线程最多保留 16 个，最久未用的先淘汰；
+ * 再次使用时只有 IV 变化（或上次操作失败）才重新 init。</p>
+ * <p>会话属于取得它的线程，不能交给其他线程使用。缓存的会话由同一线程上所有使用相同参数的调用方共用，
+ * 每次 {@code doFinal} 都按传入的 IV 重新确定状态，调用方不能假定两次调用之间 Cipher 未被他人使用；
+ * 分段处理期间 {@link #obtain} 会另建不缓存的会话，不会取得正在使用的会话。</p>
+ * <p>CBC 等需要 IV 的模式不传 IV 时，加密由 Provider 生成随机 IV，每次调用都会重新 init 以取得新的随机 IV。
+ * GCM 等要求每次加密使用新 IV 的模式，以相同 IV 连续加密会失败，调用方需每次传入新的 IV。</p>
+ */
+public final class CipherSession {
+
+    private static final int MAX_SESSIONS_PER_THREAD = 16;
+    /**
+     * 结束分段处理时的空输入，只读不写，可以共用
+     */
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private static final ThreadLocal<Map<SessionKey, CipherSession>> SESSIONS =
+            new ThreadLocal<Map<SessionKey, CipherSession>>() {
+                @Override
+                protected Map<SessionKey, CipherSession> initialValue() {
+                    return new LinkedHashMap<SessionKey, CipherSession>(MAX_SESSIONS_PER_THREAD, 0.75f, true) {
+                        @Override
+                        protected boolean removeEldestEntry(Map.Entry<SessionKey, CipherSession> eldest) {
+                            return size() > MAX_SESSIONS_PER_THREAD;
+                        }
+                    };
+                }
+            };
+
+    private final Cipher cipher;
+    private final SecretKeySpec keySpec;
+    private final int mode;
+    /**
+     * 上次 init 使用的 IV，{@code null} 表示未使用 IV
+     */
+    private byte[] iv;
+    /**
+     * 是否需要在下次操作前重新 init：尚未 init、上次操作失败或分段处理未结束
+     */
+    private boolean dirty = true;
+    /**
+     * 是否正在分段处理，期间 {@link #obtain} 不再返回该会话
+     */
+    private boolean busy;
+    /**
+     * 上次 init 未传 IV 而由 Provider 生成了随机 IV，下次使用必须重新 init 以取得新的 IV
+     */
+    private boolean randomIv;
+
+    private CipherSession(final Cipher cipher, final SecretKeySpec keySpec, final boolean encrypt) {
+        this.cipher = cipher;
+        this.keySpec = keySpec;
+        this.mode = encrypt ? Cipher.ENCRYPT_MODE : Cipher.DECRYPT_MODE;
+    }
+
+    /**
+     * 取得当前线程的会话，没有时创建
+     *
+     * @param algorithm      密钥算法，例如：DES、DESede、AES
+     * @param transformation 算法/模式/填充，例如：DES/CBC/PKCS5Padding
+     * @param key            密钥
+     * @param encrypt        {@code true}: 加密 {@code false}: 解密
+     * @return 会话，参数为空或不支持该 transformation 时返回 {@code null}；
+     * 缓存的会话正在分段处理时返回一个不缓存的新会话
+     */
+    public static CipherSession obtain(final String algorithm,
+                                       final String transformation,
+                                       final byte[] key,
+                                       final boolean encrypt) {
+        if (algorithm == null || transformation == null || key == null || key.length == 0) {
+            return null;
+        }
+        Map<SessionKey, CipherSession> sessions = SESSIONS.get();
+        SessionKey sessionKey = new SessionKey(algorithm, transformation, key, encrypt);
+        CipherSession session = sessions.get(sessionKey);
+        if (session != null && !session.busy) {
+            return session;
+        }
+        try {
+            // 流式处理中途（例如在 read/write 回调里）再次取同一会话，不能重新 init 正在使用的 Cipher
+            CipherSession created = new CipherSession(Cipher.getInstance(transformation),
+                    new SecretKeySpec(key, algorithm), encrypt);
+            if (session == null) {
+                sessions.put(sessionKey, created);
+            }
+            return created;
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * 清空当前线程缓存的会话
+     */
+    public static void clear() {
+        SESSIONS.remove();
+    }
+
+    /**
+     * 一次完成加解密
+     *
+     * @param iv   初始化向量，{@code null} 或空表示不使用
+     * @param data 数据
+     * @return 结果，失败返回 {@code null}
+     */
+    public byte[] doFinal(final byte[] iv, final byte[] data) {
+        try {
+            prepare(iv);
+            return cipher.doFinal(data);
+        } catch (GeneralSecurityException | RuntimeException e) {
+            dirty = true;
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * 一次完成加解密，结果写入调用方数组
+     *
+     * @param iv     初始化向量，{@code null} 或空表示不使用
+     * @param in     数据
+     * @param inOff  数据起始位置
+     * @param inLen  数据长度
+     * @param out    输出数组，空间需不小于 {@link #getOutputSize(int)}
+     * @param outOff 输出起始位置
+     * @return 写入的字节数，失败或空间不足返回 -1
+     */
+    public int doFinal(final byte[] iv, final byte[] in, final int inOff, final int inLen,
+                       final byte[] out, final int outOff) {
+        try {
+            prepare(iv);
+            return cipher.doFinal(in, inOff, inLen, out, outOff);
+        } catch (GeneralSecurityException | RuntimeException e) {
+            dirty = true;
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * 处理 inLen 字节输入最多需要的输出空间，包括上次 update 未输出的数据
+     *
+     * @param inLen 输入长度
+     * @return 字节数
+     */
+    public int getOutputSize(final int inLen) {
+        return cipher.getOutputSize(inLen);
+    }
+
+    /**
+     * 块大小，流密码返回 0
+     */
+    public int getBlockSize() {
+        return cipher.getBlockSize();
+    }
+
+    /**
+     * 开始分段处理，之后依次 update 并以 finish 结束，无论成功与否最后都要调用 {@link #end()}
+     *
+     * @param iv 初始化向量，{@code null} 或空表示不使用
+     * @throws GeneralSecurityException init 失败时抛出
+     */
+    void begin(final byte[] iv) throws GeneralSecurityException {
+        busy = true;
+        prepare(iv);
+        // finish 之前出错或中途放弃时，下次使用必须重新 init
+        dirty = true;
+    }
+
+    /**
+     * 结束分段处理，会话重新可被 {@link #obtain} 取得
+     */
+    void end() {
+        busy = false;
+    }
+
+    int update(final byte[] in, final int inOff, final int inLen, final byte[] out, final int outOff)
+            throws GeneralSecurityException {
+        return cipher.update(in, inOff, inLen, out, outOff);
+    }
+
+    int update(final ByteBuffer in, final ByteBuffer out) throws GeneralSecurityException {
+        return cipher.update(in, out);
+    }
+
+    int finish(final byte[] out, final int outOff) throws GeneralSecurityException {
+        int n = cipher.doFinal(out, outOff);
+        dirty = false;
+        return n;
+    }
+
+    int finish(final ByteBuffer out) throws GeneralSecurityException {
+        int n = cipher.doFinal(EMPTY, out);
+        dirty = false;
+        return n;
+    }
+
+    /**
+     * 只有 IV 变化、上次使用了随机 IV 或上次操作未正常结束时才重新 init
+     */
+    private void prepare(final byte[] iv) throws GeneralSecurityException {
+        byte[] actual = iv == null || iv.length == 0 ? null : iv;
+        if (!dirty && !randomIv && Arrays.equals(actual, this.iv)) {
+            return;
+        }
+        dirty = true;
+        if (actual == null) {
+            cipher.init(mode, keySpec);
+            // ECB 等不需要 IV 的模式返回 null
+            randomIv = cipher.getIV() != null;
+        } else {
+            cipher.init(mode, keySpec, new IvParameterSpec(actual));
+            randomIv = false;
+        }
+        this.iv = actual == null ? null : actual.clone();
+        dirty = false;
+    }
+
+    private static final class SessionKey {
+        final String algorithm;
+        final String transformation;
+        final byte[] key;
+        final boolean encrypt;
+        final int hash;
+
+        SessionKey(final String algorithm, final String transformation, final byte[] key, final boolean encrypt) {
+            this.algorithm = algorithm;
+            this.transformation = transformation;
+            this.key = key.clone();
+            this.encrypt = encrypt;
+            this.hash = ((algorithm.hashCode() * 31 + transformation.hashCode()) * 31
+                    + Arrays.hashCode(key)) * 31 + (encrypt ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SessionKey)) {
+                return false;
+            }
+            SessionKey k = (SessionKey) o;
+            return hash == k.hash && encrypt == k.encrypt && algorithm.equals(k.algorithm)
+                    && transformation.equals(k.transformation) && Arrays.equals(key, k.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.liuhanze.iutil.security;
+
+import com.liuhanze.iutil.lang.CancelToken;
+
+import java.io.File;
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 批量文件摘要
+ * <p>文件在固定大小的线程池中计算，线程数即同时读取的文件数上限；每个工作线程复用自己的读缓冲与
+ * {@link MessageDigest}。结果按完成先后在调用线程中逐个回调，不需要等全部完成。</p>
+ */
+public final class DigestService {
+
+    public static final String MD5 = "MD5";
+    public static final String SHA1 = "SHA-1";
+    public static final String SHA224 = "SHA-224";
+    public static final String SHA256 = "SHA-256";
+    public static final String SHA384 = "SHA-384";
+    public static final String SHA512 = "SHA-512";
+
+    private final String algorithm;
+    private final int threadCount;
+
+    /**
+     * 线程数为 CPU 核数
+     *
+     * @param algorithm 摘要算法，如 {@link #MD5}、{@link #SHA256}
+     */
+    public DigestService(final String algorithm) {
+        this(algorithm, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param algorithm   摘要算法，如 {@link #MD5}、{@link #SHA256}
+     * @param threadCount 工作线程数
+     */
+    public DigestService(final String algorithm, final int threadCount) {
+        this.algorithm = algorithm;
+        this.threadCount = Math.max(1, threadCount);
+    }
+
+    /**
+     * 摘要算法
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * 计算所有文件的摘要
+     *
+     * @param files    文件集合
+     * @param listener 结果回调，在调用线程中执行
+     * @return 统计结果
+     */
+    public DigestStat digest(final Collection<File> files, final OnDigestListener listener) {
+        return digest(files, null, listener);
+    }
+
+    /**
+     * 计算所有文件的摘要
+     *
+     * @param files    文件集合
+     * @param token    取消标记，可为 {@code null}；取消后不再回调，返回已完成部分的统计
+     * @param listener 结果回调，在调用线程中执行
+     * @return 统计结果
+     */
+    public DigestStat digest(final Collection<File> files, final CancelToken token,
+                             final OnDigestListener listener) {
+        long start = System.currentTimeMillis();
+        int threads = Math.max(1, Math.min(threadCount, files.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CompletionService<Result> service = new ExecutorCompletionService<>(executor);
+        int done = 0;
+        int failed = 0;
+        long bytes = 0;
+        try {
+            for (final File file : files) {
+                service.submit(new Callable<Result>() {
+                    @Override
+                    public Result call() throws Exception {
+                        if (token != null && token.isCanceled()) {
+                            return new Result(file, null, 0);
+                        }
+                        try {
+                            MessageDigest md = HashPipeline.digest(algorithm);
+                            long length = HashPipeline.update(file, md);
+                            return new Result(file, md.digest(), length);
+                        } catch (Exception e) {
+                            e.printStackTrace();
+                            return new Result(file, null, 0);
+                        }
+                    }
+                });
+            }
+            for (int i = 0, n = files.size(); i < n; i++) {
+                if (token != null && token.isCanceled()) {
+                    break;
+                }
+                Result result = service.take().get();
+                done++;
+                bytes += result.length;
+                if (result.digest == null) {
+                    failed++;
+                }
+                if (listener != null) {
+                    listener.onDigest(result.file, result.digest);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        } finally {
+            executor.shutdownNow();
+        }
+        return new DigestStat(done, failed, bytes, System.currentTimeMillis() - start, threads);
+    }
+
+    private static final class Result {
+        final File file;
+        final byte[] digest;
+        final long length;
+
+        Result(final File file, final byte[] digest, final long length) {
+            this.file = file;
+            this.digest = digest;
+            this.length = length;
+        }
+    }
+
+    /**
+     * 摘要结果回调
+     */
+    public interface OnDigestListener {
+
+        /**
+         * 一个文件计算完成
+         *
+         * @param file   文件
+         * @param digest 摘要，读取失败时为 {@code null}
+         */
+        void onDigest(File file, byte[] digest);
+    }
+}
@@ -0,0 +1,85 @@
+package com.liuhanze.iutil.security;
+
+/**
+ * 批量摘要统计
+ */
+public final class DigestStat {
+
+    private final int fileCount;
+    private final int failedCount;
+    private final long totalBytes;
+    private final long elapsedMillis;
+    private final int threadCount;
+
+    DigestStat(final int fileCount, final int failedCount, final long totalBytes,
+               final long elapsedMillis, final int threadCount) {
+        this.fileCount = fileCount;
+        this.failedCount = failedCount;
+        this.totalBytes = totalBytes;
+        this.elapsedMillis = elapsedMillis;
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * 完成的文件数（含失败）
+     */
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    /**
+     * 失败的文件数
+     */
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * 读取的总字节数
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * 总耗时（毫秒）
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * 使用的工作线程数
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * 吞吐量
+     *
+     * @return 字节/秒
+     */
+    public long getThroughput() {
+        return elapsedMillis <= 0 ? totalBytes * 1000 : totalBytes * 1000 / elapsedMillis;
+    }
+
+    /**
+     * 每秒处理的文件数
+     */
+    public double getFilesPerSecond() {
+        return elapsedMillis <= 0 ? fileCount * 1000d : fileCount * 1000d / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "DigestStat{" +
+                "fileCount=" + fileCount +
+                ", failedCount=" + failedCount +
+                ", totalBytes=" + totalBytes +
+                ", elapsedMillis=" + elapsedMillis +
+                ", threadCount=" + threadCount +
+                ", throughput=" + getThroughput() +
+                '}';
+    }
+}
@@ -0,0 +1,270 @@
+package com.liuhanze.iutil.security;
+
+import com.liuhanze.iutil.lang.BufferPool;
+import com.liuhanze.iutil.lang.IHex;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 文件哈希的公共读取流程
+ * <p>按 {@link HashStrategy} 选择读取方式，把文件内容依次送入 {@link Sink}；
+ * 读缓冲取自 {@link BufferPool}，每个线程复用各算法的 {@link MessageDigest} 实例，批量哈希时不再为每个文件分配。</p>
+ */
+final class HashPipeline {
+
+    static final int HEAP_BUFFER_LEN = 256 * 1024;
+    private static final int DIRECT_BUFFER_LEN = 256 * 1024;
+    /**
+     * 不超过该大小的文件用堆缓冲，一次 read 即可读完
+     */
+    private static final long HEAP_THRESHOLD = HEAP_BUFFER_LEN;
+    /**
+     * 超过该大小的文件用内存映射
+     */
+    private static final long MAPPED_THRESHOLD = 32 * 1024 * 1024;
+    /**
+     * 每次映射的窗口大小，32 位进程的地址空间有限，不一次映射整个文件
+     */
+    private static final long MAPPED_WINDOW = 16 * 1024 * 1024;
+
+    /**
+     * 最长的摘要（SHA-512）字节数
+     */
+    private static final int MAX_DIGEST_LEN = 64;
+
+    private static final ThreadLocal<byte[]> SCRATCH = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[MAX_DIGEST_LEN];
+        }
+    };
+
+    private static final ThreadLocal<Map<String, MessageDigest>> DIGESTS =
+            new ThreadLocal<Map<String, MessageDigest>>() {
+                @Override
+                protected Map<String, MessageDigest> initialValue() {
+                    return new HashMap<>();
+                }
+            };
+
+    private HashPipeline() {
+
+    }
+
+    /**
+     * 获取当前线程的摘要实例，返回前已 reset
+     *
+     * @param algorithm 算法
+     * @return 摘要实例
+     * @throws NoSuchAlgorithmException 不支持该算法时抛出
+     */
+    static MessageDigest digest(final String algorithm) throws NoSuchAlgorithmException {
+        Map<String, MessageDigest> map = DIGESTS.get();
+        MessageDigest md = map.get(algorithm);
+        if (md == null) {
+            md = MessageDigest.getInstance(algorithm);
+            map.put(algorithm, md);
+        } else {
+            md.reset();
+        }
+        return md;
+    }
+
+    /**
+     * 计算摘要并写入调用方数组
+     *
+     * @return 写入的字节数，失败或 out 空间不足返回 -1
+     */
+    static int digestTo(final String algorithm, final byte[] data, final int off, final int len,
+                        final byte[] out, final int outOff) {
+        try {
+            MessageDigest md = digest(algorithm);
+            md.update(data, off, len);
+            return md.digest(out, outOff, out.length - outOff);
+        } catch (NoSuchAlgorithmException | DigestException e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * 计算摘要并以大写 16 进制写入调用方字符数组
+     *
+     * @return 写入的字符数，失败或 out 空间不足返回 -1
+     */
+    static int digestToHex(final String algorithm, final byte[] data, final int off, final int len,
+                           final char[] out, final int outOff) {
+        byte[] scratch = SCRATCH.get();
+        int n = digestTo(algorithm, data, off, len, scratch, 0);
+        if (n < 0) {
+            return -1;
+        }
+        return IHex.encode(scratch, 0, n, out, outOff, true);
+    }
+
+    /**
+     * 当前线程的摘要暂存区，长度足够放下任何摘要
+     */
+    static byte[] scratch() {
+        return SCRATCH.get();
+    }
+
+    /**
+     * 计算文件摘要，自动选择读取方式
+     *
+     * @param file      文件
+     * @param algorithm 算法
+     * @return 摘要，失败返回 {@code null}
+     */
+    static byte[] digestFile(final File file, final String algorithm) {
+        return digestFile(file, algorithm, HashStrategy.AUTO);
+    }
+
+    /**
+     * 计算文件摘要
+     *
+     * @param file      文件
+     * @param algorithm 算法
+     * @param strategy  读取方式
+     * @return 摘要，失败返回 {@code null}
+     */
+    static byte[] digestFile(final File file, final String algorithm, final int strategy) {
+        if (file == null) {
+            return null;
+        }
+        try {
+            MessageDigest md = digest(algorithm);
+            feed(file, strategy, sink(md));
+            return md.digest();
+        } catch (NoSuchAlgorithmException | IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * 把整个文件送入摘要，自动选择读取方式
+     *
+     * @param file 文件
+     * @param md   摘要
+     * @return 读取的字节数
+     * @throws IOException IO 错误时抛出
+     */
+    static long update(final File file, final MessageDigest md) throws IOException {
+        return feed(file, HashStrategy.AUTO, sink(md));
+    }
+
+    /**
+     * 按读取方式把整个文件送入 sink
+     *
+     * @param file     文件
+     * @param strategy 读取方式，见 {@link HashStrategy}
+     * @param sink     数据接收方
+     * @return 读取的字节数
+     * @throws IOException IO 错误时抛出
+     */
+    static long feed(final File file, final int strategy, final Sink sink) throws IOException {
+        try (FileInputStream fis = new FileInputStream(file)) {
+            FileChannel channel = fis.getChannel();
+            int actual = strategy;
+            if (actual == HashStrategy.AUTO) {
+                long size = channel.size();
+                actual = size <= HEAP_THRESHOLD ? HashStrategy.HEAP
+                        : size <= MAPPED_THRESHOLD ? HashStrategy.DIRECT : HashStrategy.MAPPED;
+            }
+            switch (actual) {
+                case HashStrategy.MAPPED:
+                    return feedMapped(channel, sink);
+                case HashStrategy.DIRECT:
+                    return feedDirect(channel, sink);
+                default:
+                    return feedHeap(fis, sink);
+            }
+        }
+    }
+
+    private static long feedHeap(final FileInputStream fis, final Sink sink) throws IOException {
+        byte[] buffer = BufferPool.acquire(HEAP_BUFFER_LEN);
+        try {
+            long total = 0;
+            int len;
+            while ((len = fis.read(buffer, 0, HEAP_BUFFER_LEN)) != -1) {
+                sink.update(buffer, 0, len);
+                total += len;
+            }
+            return total;
+        } finally {
+            BufferPool.release(buffer);
+        }
+    }
+
+    private static long feedDirect(final FileChannel channel, final Sink sink) throws IOException {
+        ByteBuffer buffer = BufferPool.acquireDirect(DIRECT_BUFFER_LEN);
+        try {
+            long total = 0;
+            while (true) {
+                buffer.clear();
+                int len = channel.read(buffer);
+                if (len < 0) {
+                    break;
+                }
+                buffer.flip();
+                sink.update(buffer);
+                total += len;
+            }
+            return total;
+        } finally {
+            BufferPool.release(buffer);
+        }
+    }
+
+    private static long feedMapped(final FileChannel channel, final Sink sink) throws IOException {
+        // 以打开时的大小为准，映射超出文件末尾的区域会扩展文件或出错
+        long size = channel.size();
+        long position = 0;
+        while (position < size) {
+            long len = Math.min(MAPPED_WINDOW, size - position);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, len);
+            sink.update(window);
+            position += len;
+        }
+        return size;
+    }
+
+    static Sink sink(final MessageDigest md) {
+        return new Sink() {
+            @Override
+            public void update(byte[] b, int off, int len) {
+                md.update(b, off, len);
+            }
+
+            @Override
+            public void update(ByteBuffer buffer) {
+                md.update(buffer);
+            }
+        };
+    }
+
+    /**
+     * 接收文件内容的哈希状态
+     */
+    interface Sink {
+
+        void update(byte[] b, int off, int len);
+
+        /**
+         * 消费 buffer 中 position 到 limit 的数据
+         */
+        void update(ByteBuffer buffer);
+    }
+}
@@ -0,0 +1,42 @@
+package com.liuhanze.iutil.security;
+
+import androidx.annotation.IntDef;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 文件哈希的读取方式
+ */
+public final class HashStrategy {
+
+    /**
+     * 按文件大小自动选择：小文件用 {@link #HEAP}，中等文件用 {@link #DIRECT}，大文件用 {@link #MAPPED}
+     */
+    public static final int AUTO = 0;
+    /**
+     * 读入取自 {@link com.liuhanze.iutil.lang.BufferPool} 的堆数组
+     */
+    public static final int HEAP = 1;
+    /**
+     * 通过 FileChannel 读入取自 {@link com.liuhanze.iutil.lang.BufferPool} 的直接缓冲区，
+     * 省去 FileInputStream 的一次堆拷贝
+     */
+    public static final int DIRECT = 2;
+    /**
+     * 按窗口内存映射文件，数据直接来自页缓存
+     */
+    public static final int MAPPED = 3;
+
+    private HashStrategy() {
+
+    }
+
+    @IntDef({AUTO, HEAP, DIRECT, MAPPED})
+    @Target(ElementType.PARAMETER)
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface Strategy {
+    }
+}
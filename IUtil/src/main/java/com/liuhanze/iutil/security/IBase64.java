@@ -1,16 +1,30 @@
 package com.liuhanze.iutil.security;
 
-import com.liuhanze.iutil.lang.IString;
-import com.liuhanze.iutil.log.ILog;
+import com.liuhanze.iutil.lang.BufferPool;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 
 public final class IBase64 {
 
     private static final Charset UTF_8 = Charset.forName("UTF-8");
 
+    /**
+     * MIME 格式的行宽
+     */
+    public static final int MIME_LINE_WIDTH = 76;
+
+    private static final String LINE_BREAK = "\n";
+    private static final String MIME_LINE_BREAK = "\r\n";
+
     /**
      * Don't let anyone instantiate this class.
      */
@@ -22,7 +36,7 @@ public final class IBase64 {
     /**
      * The Constant base64EncodeChars.
      */
-    private static final char[] BASE_64_ENCODE_CHARS = new char[]{'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I',
+    static final char[] BASE_64_ENCODE_CHARS = new char[]{'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I',
             'J', 'K', 'L', 'M', 'N', 'O', 'P', 'Q', 'R', 'S', 'T', 'U', 'V', 'W', 'X', 'Y', 'Z', 'a', 'b',
             'c', 'd', 'e', 'f', 'g', 'h', 'i', 'j', 'k', 'l', 'm', 'n', 'o', 'p', 'q', 'r', 's', 't', 'u',
             'v', 'w', 'x', 'y', 'z', '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', '+', '/'};
@@ -30,13 +44,30 @@ public final class IBase64 {
     /**
      * The Constant base64DecodeChars.
      */
-    private static final byte[] BASE_64_DECODE_CHARS = new byte[]{-1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+    static final byte[] BASE_64_DECODE_CHARS = new byte[]{-1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
             -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
             -1, -1, -1, -1, -1, -1, -1, -1, 62, -1, -1, -1, 63, 52, 53, 54, 55, 56, 57, 58, 59, 60, 61, -1,
             -1, -1, -1, -1, -1, -1, 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20,
             21, 22, 23, 24, 25, -1, -1, -1, -1, -1, -1, 26, 27, 28, 29, 30, 31, 32, 33, 34, 35, 36, 37, 38,
             39, 40, 41, 42, 43, 44, 45, 46, 47, 48, 49, 50, 51, -1, -1, -1, -1, -1};
 
+    /**
+     * URL 安全字母表，'+' '/' 换成 '-' '_'
+     */
+    private static final char[] URL_SAFE_ENCODE_CHARS = new char[64];
+    private static final byte[] URL_SAFE_DECODE_CHARS = new byte[128];
+
+    static {
+        System.arraycopy(BASE_64_ENCODE_CHARS, 0, URL_SAFE_ENCODE_CHARS, 0, 64);
+        URL_SAFE_ENCODE_CHARS[62] = '-';
+        URL_SAFE_ENCODE_CHARS[63] = '_';
+        System.arraycopy(BASE_64_DECODE_CHARS, 0, URL_SAFE_DECODE_CHARS, 0, 128);
+        URL_SAFE_DECODE_CHARS['+'] = -1;
+        URL_SAFE_DECODE_CHARS['/'] = -1;
+        URL_SAFE_DECODE_CHARS['-'] = 62;
+        URL_SAFE_DECODE_CHARS['_'] = 63;
+    }
+
     /**
      * Encode.(加密）
      *
@@ -96,186 +127,469 @@ public final class IBase64 {
 
     /**
      * Encode.
+     * <p>输出长度事先算好，一次写入同样大小的 char 数组，换行在同一遍中写出：
+     * 每 width 个字符之间插入 '\n'，末尾不加换行。</p>
+     *
      * @param width       the width
      * @return the string
      */
     public static String encode(byte[] data,int width) {
+        return encode(data, width, BASE_64_ENCODE_CHARS, true, LINE_BREAK);
+    }
 
-        int length = data.length;
-        int size = (int) Math.ceil(length * 1.36);
-        int splitsize = width > 0 ? size / width : 0;
-        StringBuffer sb = new StringBuffer(size + splitsize);
-        int r = length % 3;
-        int len = length - r;
-        int i = 0;
-        int c;
-        while (i < len) {
-            c = (0x000000ff & data[i++]) << 16 | (0x000000ff & data[i++]) << 8 | (0x000000ff & data[i++]);
-            sb.append(BASE_64_ENCODE_CHARS[c >> 18]);
-            sb.append(BASE_64_ENCODE_CHARS[c >> 12 & 0x3f]);
-            sb.append(BASE_64_ENCODE_CHARS[c >> 6 & 0x3f]);
-            sb.append(BASE_64_ENCODE_CHARS[c & 0x3f]);
-        }
-        if (r == 1) {
-            c = 0x000000ff & data[i++];
-            sb.append(BASE_64_ENCODE_CHARS[c >> 2]);
-            sb.append(BASE_64_ENCODE_CHARS[(c & 0x03) << 4]);
-            sb.append("==");
-        } else if (r == 2) {
-            c = (0x000000ff & data[i++]) << 8 | (0x000000ff & data[i++]);
-            sb.append(BASE_64_ENCODE_CHARS[c >> 10]);
-            sb.append(BASE_64_ENCODE_CHARS[c >> 4 & 0x3f]);
-            sb.append(BASE_64_ENCODE_CHARS[(c & 0x0f) << 2]);
-            sb.append("=");
+    /**
+     * URL 安全编码，使用 '-' '_'，不补 '='，不换行
+     *
+     * @param data 数据
+     * @return 编码结果
+     */
+    public static String encodeUrlSafe(byte[] data) {
+        return encode(data, 0, URL_SAFE_ENCODE_CHARS, false, LINE_BREAK);
+    }
+
+    /**
+     * MIME 编码，每 76 个字符以 "\r\n" 换行，末尾不加换行
+     *
+     * @param data 数据
+     * @return 编码结果
+     */
+    public static String encodeMime(byte[] data) {
+        return encode(data, MIME_LINE_WIDTH, BASE_64_ENCODE_CHARS, true, MIME_LINE_BREAK);
+    }
+
+    /**
+     * 编码后的字符数
+     *
+     * @param srcLen 原始数据长度
+     * @param width  行宽，行之间以 '\n' 分隔，0 表示不换行
+     * @return 字符数
+     */
+    public static int encodedLength(int srcLen, int width) {
+        return encodedLength(srcLen, width, true, 1);
+    }
+
+    /**
+     * 编码到调用方的字符数组，与 {@link #encode(byte[], int)} 的输出一致
+     *
+     * @param src    数据
+     * @param srcOff 数据起始位置
+     * @param srcLen 数据长度
+     * @param dst    输出数组，空间需不小于 {@link #encodedLength(int, int)}
+     * @param dstOff 输出起始位置
+     * @param width  行宽，0 表示不换行
+     * @return 写入的字符数，空间不足返回 -1
+     */
+    public static int encode(byte[] src, int srcOff, int srcLen, char[] dst, int dstOff, int width) {
+        int n = encodedLength(srcLen, width);
+        if (dst.length - dstOff < n) {
+            return -1;
         }
-        if (splitsize > 0) {
-            char split = '\n';
-            for (i = width; i < sb.length(); i++) {
-                sb.insert(i, split);
-                i += width;
-            }
+        encodeChars(src, srcOff, srcLen, dst, dstOff, width, BASE_64_ENCODE_CHARS, true, LINE_BREAK);
+        return n;
+    }
+
+    /**
+     * 编码为 ASCII 字节写入调用方数组，与 {@link #encode(byte[], int)} 的输出一致
+     *
+     * @param src    数据
+     * @param srcOff 数据起始位置
+     * @param srcLen 数据长度
+     * @param dst    输出数组，空间需不小于 {@link #encodedLength(int, int)}
+     * @param dstOff 输出起始位置
+     * @param width  行宽，0 表示不换行
+     * @return 写入的字节数，空间不足返回 -1
+     */
+    public static int encode(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int width) {
+        int n = encodedLength(srcLen, width);
+        if (dst.length - dstOff < n) {
+            return -1;
         }
-        return sb.toString();
+        encodeBytes(src, srcOff, srcLen, dst, dstOff, width, BASE_64_ENCODE_CHARS, true, LINE_BREAK);
+        return n;
     }
 
     /**
      * Decode.(解密）
+     * <p>逐字符解码，跳过字母表以外的字符（含换行与非 ASCII 字符），遇到第三、四位的 '=' 结束；
+     * 先数出有效字符再按准确长度分配结果数组。</p>
      *
      * @param str         the str
      * @param charsetName the charset name
      * @return the string
      */
     public static byte[] decode(String str, String charsetName) {
-        byte[] data = null;
         try {
-            data = str.getBytes(charsetName);
-        } catch (UnsupportedEncodingException e) {
+            if (!Charset.isSupported(charsetName)) {
+                return null;
+            }
+        } catch (IllegalArgumentException e) {
             e.printStackTrace();
             return null;
         }
-        int len = data.length;
-        ByteArrayOutputStream buf = new ByteArrayOutputStream((int) (len * 0.67));
-        int i = 0;
-        int b1, b2, b3, b4;
-        while (i < len) {
-            do {
-                if (i >= len) {
-                    b1 = -1;
-                    break;
-                }
-                b1 = BASE_64_DECODE_CHARS[data[i++]];
-            } while (i < len && b1 == -1);
+        return decode(str, BASE_64_DECODE_CHARS);
+    }
 
-            if (b1 == -1) {
-                break;
-            }
+    /**
+     * URL 安全解码，'=' 可有可无
+     *
+     * @param str 编码字符串
+     * @return 数据
+     */
+    public static byte[] decodeUrlSafe(String str) {
+        return decode(str, URL_SAFE_DECODE_CHARS);
+    }
+
+    /**
+     * 解码后的最大字节数
+     *
+     * @param srcLen 编码字符数
+     * @return 字节数上限
+     */
+    public static int decodedMaxLength(int srcLen) {
+        return (int) ((long) srcLen * 3 / 4) + 2;
+    }
+
+    /**
+     * 解码到调用方数组
+     *
+     * @param src    编码字符
+     * @param srcOff 起始位置
+     * @param srcLen 字符数
+     * @param dst    输出数组
+     * @param dstOff 输出起始位置
+     * @return 写入的字节数，空间不足返回 -1
+     */
+    public static int decode(char[] src, int srcOff, int srcLen, byte[] dst, int dstOff) {
+        CharSequence s = CharBuffer.wrap(src, srcOff, srcLen);
+        int n = decodedLength(s, BASE_64_DECODE_CHARS);
+        if (dst.length - dstOff < n) {
+            return -1;
+        }
+        decodeInto(s, BASE_64_DECODE_CHARS, dst, dstOff);
+        return n;
+    }
+
+    /**
+     * 解码 ASCII 字节到调用方数组，src 与 dst 可以是同一数组且 dstOff 不大于 srcOff
+     *
+     * @param src    编码后的 ASCII 字节
+     * @param srcOff 起始位置
+     * @param srcLen 字节数
+     * @param dst    输出数组
+     * @param dstOff 输出起始位置
+     * @return 写入的字节数，空间不足返回 -1
+     */
+    public static int decode(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff) {
+        int n = decodedLength(src, srcOff, srcLen, BASE_64_DECODE_CHARS);
+        if (dst.length - dstOff < n) {
+            return -1;
+        }
+        decodeInto(src, srcOff, srcLen, BASE_64_DECODE_CHARS, dst, dstOff);
+        return n;
+    }
+
+    public static byte[] decodeCertificateKey(String str) {
+        return decode(str, BASE_64_DECODE_CHARS);
+    }
 
-            do {
-                if (i >= len) {
-                    b2 = -1;
-                    break;
+    /**
+     * 从输入流解码证书密钥，跳过以 '-' 开头的行，不把整个文件读成字符串
+     *
+     * @param in 输入流，读取后关闭
+     * @return 密钥数据，读取失败返回 {@code null}
+     */
+    public static byte[] decodeCertificateKey(InputStream in) {
+        if (in == null) {
+            return null;
+        }
+        try (InputStream decoder = new Base64InputStream(in, true)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(32, in.available() / 4 * 3));
+            byte[] buffer = BufferPool.acquire(4096);
+            try {
+                int len;
+                while ((len = decoder.read(buffer)) != -1) {
+                    out.write(buffer, 0, len);
                 }
-                b2 = BASE_64_DECODE_CHARS[data[i++]];
-            } while (i < len && b2 == -1);
+            } finally {
+                BufferPool.release(buffer);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
 
-            if (b2 == -1) {
-                break;
+    /*------------------------------------ 流式编解码 ------------------------------------*/
+
+    /**
+     * 创建编码输出流，写入的数据编码后写到 out，须关闭才会写出末尾的 '='
+     *
+     * @param out   输出流，关闭编码流时一并关闭
+     * @param width 行宽，0 表示不换行
+     * @return 编码输出流
+     */
+    public static OutputStream newEncoder(OutputStream out, int width) {
+        return new Base64OutputStream(out, width);
+    }
+
+    /**
+     * 创建编码通道，写入的数据编码后写到 channel，须关闭才会写出末尾的 '='
+     *
+     * @param channel 通道，关闭编码通道时一并关闭
+     * @param width   行宽，0 表示不换行
+     * @return 编码通道
+     */
+    public static WritableByteChannel newEncoder(WritableByteChannel channel, int width) {
+        return Channels.newChannel(new Base64OutputStream(Channels.newOutputStream(channel), width));
+    }
+
+    /**
+     * 创建解码输入流，读出的是 in 中编码文本解码后的数据
+     *
+     * @param in 输入流，关闭解码流时一并关闭
+     * @return 解码输入流
+     */
+    public static InputStream newDecoder(InputStream in) {
+        return new Base64InputStream(in, false);
+    }
+
+    /**
+     * 创建解码通道
+     *
+     * @param channel 通道，关闭解码通道时一并关闭
+     * @return 解码通道
+     */
+    public static ReadableByteChannel newDecoder(ReadableByteChannel channel) {
+        return Channels.newChannel(new Base64InputStream(Channels.newInputStream(channel), false));
+    }
+
+    /**
+     * 创建证书密钥解码输入流，跳过以 '-' 开头的行
+     *
+     * @param in 输入流，关闭解码流时一并关闭
+     * @return 解码输入流
+     */
+    public static InputStream newCertificateKeyDecoder(InputStream in) {
+        return new Base64InputStream(in, true);
+    }
+
+    /**
+     * 创建证书密钥解码通道，跳过以 '-' 开头的行
+     *
+     * @param channel 通道，关闭解码通道时一并关闭
+     * @return 解码通道
+     */
+    public static ReadableByteChannel newCertificateKeyDecoder(ReadableByteChannel channel) {
+        return Channels.newChannel(new Base64InputStream(Channels.newInputStream(channel), true));
+    }
+
+    /*------------------------------------ 内部实现 ------------------------------------*/
+
+    static int encodedLength(int srcLen, int width, boolean pad, int lineBreakLen) {
+        long base = pad ? (srcLen + 2L) / 3 * 4 : (srcLen * 4L + 2) / 3;
+        long lines = width > 0 && base > 0 ? (base - 1) / width : 0;
+        long total = base + lines * lineBreakLen;
+        if (total > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("input too large: " + srcLen);
+        }
+        return (int) total;
+    }
+
+    private static String encode(byte[] data, int width, char[] alphabet, boolean pad, String lineBreak) {
+        if (data == null) {
+            return null;
+        }
+        char[] out = new char[encodedLength(data.length, width, pad, lineBreak.length())];
+        encodeChars(data, 0, data.length, out, 0, width, alphabet, pad, lineBreak);
+        return new String(out);
+    }
+
+    /**
+     * 编码到字符数组，换行在同一遍中写出
+     */
+    static int encodeChars(byte[] src, int off, int len, char[] dst, int dstOff,
+                           int width, char[] alphabet, boolean pad, String lineBreak) {
+        int p = dstOff;
+        int end = off + len - len % 3;
+        int col = 0;
+        int i = off;
+        int lineBreakLen = lineBreak.length();
+        while (i < end) {
+            int c = (src[i++] & 0xff) << 16 | (src[i++] & 0xff) << 8 | (src[i++] & 0xff);
+            for (int shift = 18; shift >= 0; shift -= 6) {
+                if (width > 0 && col == width) {
+                    for (int k = 0; k < lineBreakLen; k++) {
+                        dst[p++] = lineBreak.charAt(k);
+                    }
+                    col = 0;
+                }
+                dst[p++] = alphabet[c >> shift & 0x3f];
+                col++;
+            }
+        }
+        int r = len % 3;
+        if (r > 0) {
+            int c = r == 1 ? (src[i] & 0xff) << 16 : (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8;
+            int chars = pad ? 4 : r + 1;
+            for (int k = 0, shift = 18; k < chars; k++, shift -= 6) {
+                if (width > 0 && col == width) {
+                    for (int m = 0; m < lineBreakLen; m++) {
+                        dst[p++] = lineBreak.charAt(m);
+                    }
+                    col = 0;
+                }
+                dst[p++] = k <= r ? alphabet[c >> shift & 0x3f] : '=';
+                col++;
             }
+        }
+        return p - dstOff;
+    }
 
-            buf.write((b1 << 2) | ((b2 & 0x30) >>> 4));
-            do {
-                if (i >= len) {
-                    b3 = -1;
-                    break;
+    /**
+     * 编码为 ASCII 字节，逻辑与 {@link #encodeChars} 相同
+     */
+    static int encodeBytes(byte[] src, int off, int len, byte[] dst, int dstOff,
+                           int width, char[] alphabet, boolean pad, String lineBreak) {
+        int p = dstOff;
+        int end = off + len - len % 3;
+        int col = 0;
+        int i = off;
+        int lineBreakLen = lineBreak.length();
+        while (i < end) {
+            int c = (src[i++] & 0xff) << 16 | (src[i++] & 0xff) << 8 | (src[i++] & 0xff);
+            for (int shift = 18; shift >= 0; shift -= 6) {
+                if (width > 0 && col == width) {
+                    for (int k = 0; k < lineBreakLen; k++) {
+                        dst[p++] = (byte) lineBreak.charAt(k);
+                    }
+                    col = 0;
                 }
-                b3 = data[i++];
-                if (b3 == 61) {
-                    b3 = -1;
-                    break;
+                dst[p++] = (byte) alphabet[c >> shift & 0x3f];
+                col++;
+            }
+        }
+        int r = len % 3;
+        if (r > 0) {
+            int c = r == 1 ? (src[i] & 0xff) << 16 : (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8;
+            int chars = pad ? 4 : r + 1;
+            for (int k = 0, shift = 18; k < chars; k++, shift -= 6) {
+                if (width > 0 && col == width) {
+                    for (int m = 0; m < lineBreakLen; m++) {
+                        dst[p++] = (byte) lineBreak.charAt(m);
+                    }
+                    col = 0;
                 }
-                b3 = BASE_64_DECODE_CHARS[b3];
-            } while (i < len && b3 == -1);
+                dst[p++] = (byte) (k <= r ? alphabet[c >> shift & 0x3f] : '=');
+                col++;
+            }
+        }
+        return p - dstOff;
+    }
 
-            if (b3 == -1) {
+    private static byte[] decode(CharSequence s, byte[] table) {
+        if (s == null) {
+            return null;
+        }
+        byte[] out = new byte[decodedLength(s, table)];
+        decodeInto(s, table, out, 0);
+        return out;
+    }
+
+    /**
+     * 与 {@link #decodeInto(CharSequence, byte[], byte[], int)} 相同的规则数出结果长度
+     */
+    private static int decodedLength(CharSequence s, byte[] table) {
+        int valid = 0;
+        for (int i = 0, len = s.length(); i < len; i++) {
+            char ch = s.charAt(i);
+            if (ch == '=' && (valid & 3) >= 2) {
                 break;
             }
-            buf.write(((b2 & 0x0f) << 4) | ((b3 & 0x3c) >>> 2));
-            do {
-                if (i >= len) {
-                    b4 = -1;
-                    break;
-                }
-                b4 = data[i++];
-                if (b4 == 61) {
-                    b4 = -1;
-                    break;
-                }
-                b4 = BASE_64_DECODE_CHARS[b4];
-            } while (b4 == -1);
-            if (b4 == -1) {
+            if (ch < 128 && table[ch] >= 0) {
+                valid++;
+            }
+        }
+        return lengthOf(valid);
+    }
+
+    private static int decodedLength(byte[] src, int off, int len, byte[] table) {
+        int valid = 0;
+        for (int i = off, end = off + len; i < end; i++) {
+            byte ch = src[i];
+            if (ch == '=' && (valid & 3) >= 2) {
                 break;
             }
-            buf.write(((b3 & 0x03) << 6) | b4);
+            if (ch >= 0 && table[ch] >= 0) {
+                valid++;
+            }
         }
+        return lengthOf(valid);
+    }
 
-        return buf.toByteArray();
+    private static int lengthOf(int valid) {
+        int r = valid & 3;
+        return valid / 4 * 3 + (r == 2 ? 1 : r == 3 ? 2 : 0);
     }
 
-    public static byte[] decodeCertificateKey(String str) {
+    private static int decodeInto(CharSequence s, byte[] table, byte[] dst, int dstOff) {
+        int p = dstOff;
+        int acc = 0;
+        int q = 0;
+        for (int i = 0, len = s.length(); i < len; i++) {
+            char ch = s.charAt(i);
+            if (ch == '=' && q >= 2) {
+                break;
+            }
+            int v = ch < 128 ? table[ch] : -1;
+            if (v < 0) {
+                continue;
+            }
+            acc = acc << 6 | v;
+            if (++q == 4) {
+                dst[p++] = (byte) (acc >> 16);
+                dst[p++] = (byte) (acc >> 8);
+                dst[p++] = (byte) acc;
+                acc = 0;
+                q = 0;
+            }
+        }
+        return flushTail(acc, q, dst, p) - dstOff;
+    }
 
-        StringBuffer sb = new StringBuffer();
-        try {
-            byte[] data = str.getBytes("US-ASCII");
-            int len = data.length;
-            int i = 0;
-            int b1, b2, b3, b4;
-            while (i < len) {
-
-                do {
-                    b1 = BASE_64_DECODE_CHARS[data[i++]];
-                } while (i < len && b1 == -1);
-
-                if (b1 == -1)
-                    break;
-
-                do {
-                    b2 = BASE_64_DECODE_CHARS[data[i++]];
-                } while (i < len && b2 == -1);
-
-                if (b2 == -1)
-                    break;
-
-                sb.append((char) ((b1 << 2) | ((b2 & 0x30) >>> 4)));
-
-                do {
-                    b3 = data[i++];
-                    if (b3 == 61)
-                        return sb.toString().getBytes("iso8859-1");
-                    b3 = BASE_64_DECODE_CHARS[b3];
-                } while (i < len && b3 == -1);
-
-                if (b3 == -1)
-                    break;
-
-                sb.append((char) (((b2 & 0x0f) << 4) | ((b3 & 0x3c) >>> 2)));
-
-                do {
-                    b4 = data[i++];
-                    if (b4 == 61)
-                        return sb.toString().getBytes("iso8859-1");
-                    b4 = BASE_64_DECODE_CHARS[b4];
-                } while (i < len && b4 == -1);
-
-                if (b4 == -1)
-                    break;
-                sb.append((char) (((b3 & 0x03) << 6) | b4));
+    private static int decodeInto(byte[] src, int off, int len, byte[] table, byte[] dst, int dstOff) {
+        int p = dstOff;
+        int acc = 0;
+        int q = 0;
+        for (int i = off, end = off + len; i < end; i++) {
+            byte ch = src[i];
+            if (ch == '=' && q >= 2) {
+                break;
+            }
+            int v = ch >= 0 ? table[ch] : -1;
+            if (v < 0) {
+                continue;
+            }
+            acc = acc << 6 | v;
+            if (++q == 4) {
+                dst[p++] = (byte) (acc >> 16);
+                dst[p++] = (byte) (acc >> 8);
+                dst[p++] = (byte) acc;
+                acc = 0;
+                q = 0;
             }
+        }
+        return flushTail(acc, q, dst, p) - dstOff;
+    }
 
-            return sb.toString().getBytes("iso8859-1");
-        } catch (UnsupportedEncodingException e) {
-            e.printStackTrace();
-            return null;
+    static int flushTail(int acc, int q, byte[] dst, int p) {
+        if (q == 2) {
+            dst[p++] = (byte) (acc >> 4);
+        } else if (q == 3) {
+            dst[p++] = (byte) (acc >> 10);
+            dst[p++] = (byte) (acc >> 2);
         }
+        return p;
     }
 
 }
@@ -2,16 +2,28 @@ package com.liuhanze.iutil.security;
 
 import android.util.Base64;
 
+import com.liuhanze.iutil.lang.BufferPool;
+import com.liuhanze.iutil.lang.HexOutputStream;
 import com.liuhanze.iutil.lang.IByte;
 
-import java.security.spec.AlgorithmParameterSpec;
-
-import javax.crypto.Cipher;
-import javax.crypto.spec.IvParameterSpec;
-import javax.crypto.spec.SecretKeySpec;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.security.GeneralSecurityException;
 
 public final class IDES {
 
+    /**
+     * 流式加解密每次读取的字节数，留出最多两个分组的余量，使输出不超过同一级缓冲
+     */
+    private static final int STREAM_BUFFER_LEN = 64 * 1024;
+    private static final int STREAM_READ_LEN = STREAM_BUFFER_LEN - 32;
+
     private IDES(){
 
     }
@@ -82,6 +94,27 @@ public final class IDES {
         return desTemplate(data, key, DES_Algorithm, transformation, iv, true);
     }
 
+    /**
+     * DES 加密，密文写入调用方数组
+     *
+     * @param data           明文
+     * @param off            明文起始位置
+     * @param len            明文长度
+     * @param key            8 字节秘钥
+     * @param transformation 填充方式 例如：DES/ECB/NoPadding
+     * @param iv             初始化向量
+     * @param out            输出数组
+     * @param outOff         输出起始位置
+     * @return 写入的字节数，失败或空间不足返回 -1
+     */
+    public static int encryptDES(final byte[] data, final int off, final int len,
+                                 final byte[] key,
+                                 final String transformation,
+                                 final byte[] iv,
+                                 final byte[] out, final int outOff) {
+        return desTemplate(data, off, len, key, DES_Algorithm, transformation, iv, true, out, outOff);
+    }
+
     /**
      * DES 解密 Base64 编码密文
      *
@@ -130,6 +163,27 @@ public final class IDES {
         return desTemplate(data, key, DES_Algorithm, transformation, iv, false);
     }
 
+    /**
+     * DES 解密，明文写入调用方数组
+     *
+     * @param data           密文
+     * @param off            密文起始位置
+     * @param len            密文长度
+     * @param key            8 字节秘钥
+     * @param transformation 填充方式 例如：DES/ECB/NoPadding
+     * @param iv             初始化向量
+     * @param out            输出数组
+     * @param outOff         输出起始位置
+     * @return 写入的字节数，失败或空间不足返回 -1
+     */
+    public static int decryptDES(final byte[] data, final int off, final int len,
+                                 final byte[] key,
+                                 final String transformation,
+                                 final byte[] iv,
+                                 final byte[] out, final int outOff) {
+        return desTemplate(data, off, len, key, DES_Algorithm, transformation, iv, false, out, outOff);
+    }
+
     ///////////////////////////////////////////////////////////////////////////
     // 3DES 加密相关
     ///////////////////////////////////////////////////////////////////////////
@@ -190,23 +244,28 @@ public final class IDES {
                                      final byte[] key,
                                      final String transformation,
                                      final byte[] iv) {
-        byte[] mKey = null;
-
-
-        if(key != null && key.length == 16){
-            mKey = new byte[24];
-           System.arraycopy(key,0,mKey,0,8);
-           System.arraycopy(key,8,mKey,8,8);
-           System.arraycopy(key,0,mKey,16,8);
-
-        }else if(key != null && key.length == 24){
-            mKey = new byte[24];
-            System.arraycopy(key,0,mKey,0,8);
-            System.arraycopy(key,8,mKey,8,8);
-            System.arraycopy(key,16,mKey,16,8);
-        }
+        return desTemplate(data, tripleDESKey(key), TripleDES_Algorithm, transformation, iv, true);
+    }
 
-        return desTemplate(data, mKey, TripleDES_Algorithm, transformation, iv, true);
+    /**
+     * 3DES 加密，密文写入调用方数组
+     *
+     * @param data           明文
+     * @param off            明文起始位置
+     * @param len            明文长度
+     * @param key            16字节/24字节 密钥
+     * @param transformation  填充方式 例如：DESede/ECB/NoPadding
+     * @param iv             初始化向量
+     * @param out            输出数组
+     * @param outOff         输出起始位置
+     * @return 写入的字节数，失败或空间不足返回 -1
+     */
+    public static int encrypt3DES(final byte[] data, final int off, final int len,
+                                  final byte[] key,
+                                  final String transformation,
+                                  final byte[] iv,
+                                  final byte[] out, final int outOff) {
+        return desTemplate(data, off, len, tripleDESKey(key), TripleDES_Algorithm, transformation, iv, true, out, outOff);
     }
 
     /**
@@ -270,26 +329,298 @@ public final class IDES {
                                      final byte[] key,
                                      final String transformation,
                                      final byte[] iv) {
+        return desTemplate(data, tripleDESKey(key), TripleDES_Algorithm, transformation, iv, false);
+    }
 
-        byte[] mKey = null;
-        if(key != null && key.length == 16){
-            mKey = new byte[24];
-            System.arraycopy(key,0,mKey,0,8);
-            System.arraycopy(key,8,mKey,8,8);
-            System.arraycopy(key,0,mKey,16,8);
-
-        }else if(key != null && key.length == 24){
-            mKey = new byte[24];
-            System.arraycopy(key,0,mKey,0,8);
-            System.arraycopy(key,8,mKey,8,8);
-            System.arraycopy(key,16,mKey,16,8);
-        }
+    /**
+     * 3DES 解密，明文写入调用方数组
+     *
+     * @param data           密文
+     * @param off            密文起始位置
+     * @param len            密文长度
+     * @param key            16字节/24字节 密钥
+     * @param transformation  填充方式 例如：DESede/ECB/NoPadding
+     * @param iv             初始化向量
+     * @param out            输出数组
+     * @param outOff         输出起始位置
+     * @return 写入的字节数，失败或空间不足返回 -1
+     */
+    public static int decrypt3DES(final byte[] data, final int off, final int len,
+                                  final byte[] key,
+                                  final String transformation,
+                                  final byte[] iv,
+                                  final byte[] out, final int outOff) {
+        return desTemplate(data, off, len, tripleDESKey(key), TripleDES_Algorithm, transformation, iv, false, out, outOff);
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // 流式加解密
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * DES 流式加密，按块读取、加密并写出，内存占用与数据大小无关，不关闭输入输出流
+     *
+     * @param in             明文输入流
+     * @param out            密文输出流
+     * @param key            8 字节秘钥
+     * @param transformation 填充方式 例如：DES/CBC/PKCS5Padding
+     * @param iv             初始化向量
+     * @return 读取的明文字节数，失败返回 -1，此时 out 中可能已写入部分密文
+     */
+    public static long encryptDES(final InputStream in, final OutputStream out,
+                                  final byte[] key,
+                                  final String transformation,
+                                  final byte[] iv) {
+        return streamTemplate(in, out, key, DES_Algorithm, transformation, iv, true);
+    }
+
+    /**
+     * DES 流式解密，不关闭输入输出流
+     *
+     * @param in             密文输入流
+     * @param out            明文输出流
+     * @param key            8 字节秘钥
+     * @param transformation 填充方式 例如：DES/CBC/PKCS5Padding
+     * @param iv             初始化向量
+     * @return 读取的密文字节数，失败返回 -1
+     */
+    public static long decryptDES(final InputStream in, final OutputStream out,
+                                  final byte[] key,
+                                  final String transformation,
+                                  final byte[] iv) {
+        return streamTemplate(in, out, key, DES_Algorithm, transformation, iv, false);
+    }
+
+    /**
+     * DES 流式加密后以 Base64 编码写出，与 {@link #encryptDES2Base64(byte[], byte[], String, byte[])} 结果相同，不关闭输入输出流
+     *
+     * @param in             明文输入流
+     * @param out            Base64 密文输出流
+     * @param key            8 字节秘钥
+     * @param transformation 填充方式 例如：DES/CBC/PKCS5Padding
+     * @param iv             初始化向量
+     * @return 读取的明文字节数，失败返回 -1
+     */
+    public static long encryptDES2Base64(final InputStream in, final OutputStream out,
+                                         final byte[] key,
+                                         final String transformation,
+                                         final byte[] iv) {
+        return encodedStreamTemplate(in, out, key, DES_Algorithm, transformation, iv, true);
+    }
+
+    /**
+     * DES 流式加密后以大写 16 进制写出，与 {@link #encryptDES2HexString(byte[], byte[], String, byte[])} 结果相同，不关闭输入输出流
+     *
+     * @param in             明文输入流
+     * @param out            16 进制密文输出流
+     * @param key            8 字节秘钥
+     * @param transformation 填充方式 例如：DES/CBC/PKCS5Padding
+     * @param iv             初始化向量
+     * @return 读取的明文字节数，失败返回 -1
+     */
+    public static long encryptDES2HexString(final InputStream in, final OutputStream out,
+                                            final byte[] key,
+                                            final String transformation,
+                                            final byte[] iv) {
+        return encodedStreamTemplate(in, out, key, DES_Algorithm, transformation, iv, false);
+    }
+
+    /**
+     * DES 流式解密 Base64 编码密文，不关闭输入输出流
+     *
+     * @param in             Base64 密文输入流
+     * @param out            明文输出流
+     * @param key            8 字节秘钥
+     * @param transformation 填充方式 例如：DES/CBC/PKCS5Padding
+     * @param iv             初始化向量
+     * @return 解码后的密文字节数，失败返回 -1
+     */
+    public static long decryptBase64DES(final InputStream in, final OutputStream out,
+                                        final byte[] key,
+                                        final String transformation,
+                                        final byte[] iv) {
+        return base64StreamTemplate(in, out, key, DES_Algorithm, transformation, iv);
+    }
+
+    /**
+     * DES 通道加密，使用直接缓冲区，适合 FileChannel 之间的大文件加密，不关闭通道
+     *
+     * @param src            明文通道
+     * @param dst            密文通道
+     * @param key            8 字节秘钥
+     * @param transformation 填充方式 例如：DES/CBC/PKCS5Padding
+     * @param iv             初始化向量
+     * @return 读取的明文字节数，失败返回 -1
+     */
+    public static long encryptDES(final ReadableByteChannel src, final WritableByteChannel dst,
+                                  final byte[] key,
+                                  final String transformation,
+                                  final byte[] iv) {
+        return channelTemplate(src, dst, key, DES_Algorithm, transformation, iv, true);
+    }
+
+    /**
+     * DES 通道解密，不关闭通道
+     *
+     * @param src            密文通道
+     * @param dst            明文通道
+     * @param key            8 字节秘钥
+     * @param transformation 填充方式 例如：DES/CBC/PKCS5Padding
+     * @param iv             初始化向量
+     * @return 读取的密文字节数，失败返回 -1
+     */
+    public static long decryptDES(final ReadableByteChannel src, final WritableByteChannel dst,
+                                  final byte[] key,
+                                  final String transformation,
+                                  final byte[] iv) {
+        return channelTemplate(src, dst, key, DES_Algorithm, transformation, iv, false);
+    }
+
+    /**
+     * 3DES 流式加密，不关闭输入输出流
+     *
+     * @param in             明文输入流
+     * @param out            密文输出流
+     * @param key            16字节/24字节 密钥
+     * @param transformation 填充方式 例如：DESede/CBC/PKCS5Padding
+     * @param iv             初始化向量
+     * @return 读取的明文字节数，失败返回 -1
+     */
+    public static long encrypt3DES(final InputStream in, final OutputStream out,
+                                   final byte[] key,
+                                   final String transformation,
+                                   final byte[] iv) {
+        return streamTemplate(in, out, tripleDESKey(key), TripleDES_Algorithm, transformation, iv, true);
+    }
 
-        return desTemplate(data, mKey, TripleDES_Algorithm, transformation, iv, false);
+    /**
+     * 3DES 流式解密，不关闭输入输出流
+     *
+     * @param in             密文输入流
+     * @param out            明文输出流
+     * @param key            16字节/24字节 密钥
+     * @param transformation 填充方式 例如：DESede/CBC/PKCS5Padding
+     * @param iv             初始化向量
+     * @return 读取的密文字节数，失败返回 -1
+     */
+    public static long decrypt3DES(final InputStream in, final OutputStream out,
+                                   final byte[] key,
+                                   final String transformation,
+                                   final byte[] iv) {
+        return streamTemplate(in, out, tripleDESKey(key), TripleDES_Algorithm, transformation, iv, false);
+    }
+
+    /**
+     * 3DES 流式加密后以 Base64 编码写出，不关闭输入输出流
+     *
+     * @param in             明文输入流
+     * @param out            Base64 密文输出流
+     * @param key            16字节/24字节 密钥
+     * @param transformation 填充方式 例如：DESede/CBC/PKCS5Padding
+     * @param iv             初始化向量
+     * @return 读取的明文字节数，失败返回 -1
+     */
+    public static long encrypt3DES2Base64(final InputStream in, final OutputStream out,
+                                          final byte[] key,
+                                          final String transformation,
+                                          final byte[] iv) {
+        return encodedStreamTemplate(in, out, tripleDESKey(key), TripleDES_Algorithm, transformation, iv, true);
+    }
+
+    /**
+     * 3DES 流式加密后以大写 16 进制写出，不关闭输入输出流
+     *
+     * @param in             明文输入流
+     * @param out            16 进制密文输出流
+     * @param key            16字节/24字节 密钥
+     * @param transformation 填充方式 例如：DESede/CBC/PKCS5Padding
+     * @param iv             初始化向量
+     * @return 读取的明文字节数，失败返回 -1
+     */
+    public static long encrypt3DES2HexString(final InputStream in, final OutputStream out,
+                                             final byte[] key,
+                                             final String transformation,
+                                             final byte[] iv) {
+        return encodedStreamTemplate(in, out, tripleDESKey(key), TripleDES_Algorithm, transformation, iv, false);
+    }
+
+    /**
+     * 3DES 流式解密 Base64 编码密文，不关闭输入输出流
+     *
+     * @param in             Base64 密文输入流
+     * @param out            明文输出流
+     * @param key            16字节/24字节 密钥
+     * @param transformation 填充方式 例如：DESede/CBC/PKCS5Padding
+     * @param iv             初始化向量
+     * @return 解码后的密文字节数，失败返回 -1
+     */
+    public static long decryptBase64_3DES(final InputStream in, final OutputStream out,
+                                          final byte[] key,
+                                          final String transformation,
+                                          final byte[] iv) {
+        return base64StreamTemplate(in, out, tripleDESKey(key), TripleDES_Algorithm, transformation, iv);
+    }
+
+    /**
+     * 3DES 通道加密，不关闭通道
+     *
+     * @param src            明文通道
+     * @param dst            密文通道
+     * @param key            16字节/24字节 密钥
+     * @param transformation 填充方式 例如：DESede/CBC/PKCS5Padding
+     * @param iv             初始化向量
+     * @return 读取的明文字节数，失败返回 -1
+     */
+    public static long encrypt3DES(final ReadableByteChannel src, final WritableByteChannel dst,
+                                   final byte[] key,
+                                   final String transformation,
+                                   final byte[] iv) {
+        return channelTemplate(src, dst, tripleDESKey(key), TripleDES_Algorithm, transformation, iv, true);
+    }
+
+    /**
+     * 3DES 通道解密，不关闭通道
+     *
+     * @param src            密文通道
+     * @param dst            明文通道
+     * @param key            16字节/24字节 密钥
+     * @param transformation 填充方式 例如：DESede/CBC/PKCS5Padding
+     * @param iv             初始化向量
+     * @return 读取的密文字节数，失败返回 -1
+     */
+    public static long decrypt3DES(final ReadableByteChannel src, final WritableByteChannel dst,
+                                   final byte[] key,
+                                   final String transformation,
+                                   final byte[] iv) {
+        return channelTemplate(src, dst, tripleDESKey(key), TripleDES_Algorithm, transformation, iv, false);
+    }
+
+    /**
+     * 3DES 密钥统一为 24 字节：16 字节密钥按 K1 K2 K1 扩展
+     *
+     * @param key 16字节/24字节 密钥
+     * @return 24 字节密钥，长度不对时返回 {@code null}
+     */
+    static byte[] tripleDESKey(final byte[] key) {
+        if (key == null) {
+            return null;
+        }
+        if (key.length == 16) {
+            byte[] mKey = new byte[24];
+            System.arraycopy(key, 0, mKey, 0, 16);
+            System.arraycopy(key, 0, mKey, 16, 8);
+            return mKey;
+        }
+        if (key.length == 24) {
+            return key;
+        }
+        return null;
     }
 
     /**
      * DES 加密模板
+     * <p>Cipher 取自当前线程的 {@link CipherSession}，同一密钥与 transformation 重复使用时不再 getInstance，
+     * IV 不变时也不再 init。</p>
      *
      * @param data           数据
      * @param key            秘钥
@@ -307,21 +638,205 @@ public final class IDES {
         if (data == null || data.length == 0 || key == null || key.length == 0) {
             return null;
         }
+        CipherSession session = CipherSession.obtain(algorithm, transformation, key, isEncrypt);
+        return session == null ? null : session.doFinal(iv, data);
+    }
+
+    /**
+     * DES 加密模板，结果写入调用方数组
+     *
+     * @return 写入的字节数，失败或空间不足返回 -1
+     */
+    private static int desTemplate(final byte[] data, final int off, final int len,
+                                   final byte[] key,
+                                   final String algorithm,
+                                   final String transformation,
+                                   final byte[] iv,
+                                   final boolean isEncrypt,
+                                   final byte[] out, final int outOff) {
+        if (data == null || len <= 0 || key == null || key.length == 0 || out == null) {
+            return -1;
+        }
+        CipherSession session = CipherSession.obtain(algorithm, transformation, key, isEncrypt);
+        return session == null ? -1 : session.doFinal(iv, data, off, len, out, outOff);
+    }
+
+    /**
+     * 流式加解密模板，Cipher 取自 {@link CipherSession}，读写缓冲取自 {@link BufferPool}
+     *
+     * @return 读取的字节数，失败返回 -1
+     */
+    private static long streamTemplate(final InputStream in, final OutputStream out,
+                                       final byte[] key,
+                                       final String algorithm,
+                                       final String transformation,
+                                       final byte[] iv,
+                                       final boolean isEncrypt) {
+        if (in == null || out == null || key == null || key.length == 0) {
+            return -1;
+        }
+        CipherSession session = CipherSession.obtain(algorithm, transformation, key, isEncrypt);
+        if (session == null) {
+            return -1;
+        }
+        byte[] input = BufferPool.acquire(STREAM_BUFFER_LEN);
+        byte[] output = BufferPool.acquire(STREAM_BUFFER_LEN);
         try {
-            SecretKeySpec keySpec = new SecretKeySpec(key, algorithm);
-            Cipher cipher = Cipher.getInstance(transformation);
-            if (iv == null || iv.length == 0) {
-                cipher.init(isEncrypt ? Cipher.ENCRYPT_MODE : Cipher.DECRYPT_MODE, keySpec);
-            } else {
-                AlgorithmParameterSpec params = new IvParameterSpec(iv);
-                cipher.init(isEncrypt ? Cipher.ENCRYPT_MODE : Cipher.DECRYPT_MODE, keySpec, params);
+            session.begin(iv);
+            long total = 0;
+            int len;
+            while ((len = in.read(input, 0, STREAM_READ_LEN)) != -1) {
+                int n = session.update(input, 0, len, output, 0);
+                out.write(output, 0, n);
+                total += len;
             }
-            return cipher.doFinal(data);
-        } catch (Throwable e) {
+            int n = session.finish(output, 0);
+            out.write(output, 0, n);
+            return total;
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
             e.printStackTrace();
-            return null;
+            return -1;
+        } finally {
+            session.end();
+            BufferPool.release(input);
+            BufferPool.release(output);
         }
     }
 
+    /**
+     * 加密后经 Base64 或 16 进制编码写出
+     */
+    private static long encodedStreamTemplate(final InputStream in, final OutputStream out,
+                                              final byte[] key,
+                                              final String algorithm,
+                                              final String transformation,
+                                              final byte[] iv,
+                                              final boolean isBase64) {
+        if (out == null) {
+            return -1;
+        }
+        OutputStream encoder = isBase64 ? new Base64OutputStream(shield(out), 0)
+                : new HexOutputStream(shield(out), true);
+        long total = streamTemplate(in, encoder, key, algorithm, transformation, iv, true);
+        try {
+            // 写出 Base64 末尾的 '=' 并归还编码缓冲，out 不会被关闭
+            encoder.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return -1;
+        }
+        return total;
+    }
 
+    /**
+     * Base64 解码后解密
+     */
+    private static long base64StreamTemplate(final InputStream in, final OutputStream out,
+                                             final byte[] key,
+                                             final String algorithm,
+                                             final String transformation,
+                                             final byte[] iv) {
+        if (in == null) {
+            return -1;
+        }
+        InputStream decoder = new Base64InputStream(shield(in));
+        long total = streamTemplate(decoder, out, key, algorithm, transformation, iv, false);
+        try {
+            decoder.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return total;
+    }
+
+    /**
+     * 通道加解密模板，使用直接缓冲区
+     *
+     * @return 读取的字节数，失败返回 -1
+     */
+    private static long channelTemplate(final ReadableByteChannel src, final WritableByteChannel dst,
+                                        final byte[] key,
+                                        final String algorithm,
+                                        final String transformation,
+                                        final byte[] iv,
+                                        final boolean isEncrypt) {
+        if (src == null || dst == null || key == null || key.length == 0) {
+            return -1;
+        }
+        CipherSession session = CipherSession.obtain(algorithm, transformation, key, isEncrypt);
+        if (session == null) {
+            return -1;
+        }
+        ByteBuffer input = BufferPool.acquireDirect(STREAM_BUFFER_LEN);
+        ByteBuffer output = BufferPool.acquireDirect(STREAM_BUFFER_LEN);
+        try {
+            session.begin(iv);
+            long total = 0;
+            input.limit(STREAM_READ_LEN);
+            int len;
+            while ((len = src.read(input)) != -1) {
+                if (len == 0 && input.hasRemaining()) {
+                    continue;
+                }
+                input.flip();
+                total += input.remaining();
+                output.clear();
+                session.update(input, output);
+                output.flip();
+                writeFully(dst, output);
+                input.clear();
+                input.limit(STREAM_READ_LEN);
+            }
+            input.flip();
+            total += input.remaining();
+            output.clear();
+            session.update(input, output);
+            session.finish(output);
+            output.flip();
+            writeFully(dst, output);
+            return total;
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            e.printStackTrace();
+            return -1;
+        } finally {
+            session.end();
+            BufferPool.release(input);
+            BufferPool.release(output);
+        }
+    }
+
+    private static void writeFully(final WritableByteChannel dst, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            dst.write(buffer);
+        }
+    }
+
+    /**
+     * 包装输出流，关闭时只 flush，不关闭调用方的流
+     */
+    private static OutputStream shield(final OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                out.flush();
+            }
+        };
+    }
+
+    /**
+     * 包装输入流，关闭时不关闭调用方的流
+     */
+    private static InputStream shield(final InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public void close() {
+                // 由调用方关闭
+            }
+        };
+    }
 }
@@ -0,0 +1,521 @@
+package com.liuhanze.iutil.security;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 非加密快速哈希
+ * <p>xxHash64、Murmur3 x64 128 位与 CRC32C，适合缓存键、去重等不需要抗碰撞攻击的场景，速度远高于 MD5/SHA。</p>
+ * <p>{@link CharSequence} 按 UTF-16LE 逐字符计算（等同于对 {@code s.getBytes("UTF-16LE")} 计算），
+ * 不做编码转换也不分配数组；文件与 {@link IMD5} 共用同一套读取流程。</p>
+ */
+public final class IFastHash {
+
+    private static final int CHAR_CHUNK = 2048;
+
+    private static final ThreadLocal<byte[]> SCRATCH = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[CHAR_CHUNK * 2];
+        }
+    };
+
+    private IFastHash() {
+
+    }
+
+    /*------------------------------------ xxHash64 ------------------------------------*/
+
+    /**
+     * xxHash64，种子为 0
+     *
+     * @param data 数据
+     * @return 哈希值
+     */
+    public static long xxHash64(final byte[] data) {
+        return xxHash64(data, 0, data.length, 0);
+    }
+
+    /**
+     * xxHash64
+     *
+     * @param data 数据
+     * @param off  起始位置
+     * @param len  长度
+     * @param seed 种子
+     * @return 哈希值
+     */
+    public static long xxHash64(final byte[] data, final int off, final int len, final long seed) {
+        XxHash64 h = new XxHash64(seed);
+        h.update(data, off, len);
+        return h.value();
+    }
+
+    /**
+     * xxHash64，计算 position 到 limit 的数据，不改变 buffer 的 position
+     *
+     * @param buffer 数据
+     * @param seed   种子
+     * @return 哈希值
+     */
+    public static long xxHash64(final ByteBuffer buffer, final long seed) {
+        XxHash64 h = new XxHash64(seed);
+        h.update(buffer.duplicate());
+        return h.value();
+    }
+
+    /**
+     * xxHash64，按 UTF-16LE 计算
+     *
+     * @param s    字符序列
+     * @param seed 种子
+     * @return 哈希值
+     */
+    public static long xxHash64(final CharSequence s, final long seed) {
+        XxHash64 h = new XxHash64(seed);
+        feedChars(s, h);
+        return h.value();
+    }
+
+    /**
+     * 文件的 xxHash64
+     *
+     * @param file 文件
+     * @param seed 种子
+     * @return 哈希值
+     * @throws IOException IO 错误时抛出
+     */
+    public static long xxHash64(final File file, final long seed) throws IOException {
+        XxHash64 h = new XxHash64(seed);
+        HashPipeline.feed(file, HashStrategy.AUTO, h);
+        return h.value();
+    }
+
+    /*------------------------------------ Murmur3 ------------------------------------*/
+
+    /**
+     * Murmur3 x64 128 位，种子为 0
+     *
+     * @param data 数据
+     * @param out  长度至少为 2 的数组，out[0] 为 h1，out[1] 为 h2
+     */
+    public static void murmur3_128(final byte[] data, final long[] out) {
+        murmur3_128(data, 0, data.length, 0, out);
+    }
+
+    /**
+     * Murmur3 x64 128 位
+     *
+     * @param data 数据
+     * @param off  起始位置
+     * @param len  长度
+     * @param seed 种子
+     * @param out  长度至少为 2 的数组，out[0] 为 h1，out[1] 为 h2
+     */
+    public static void murmur3_128(final byte[] data, final int off, final int len, final int seed,
+                                   final long[] out) {
+        Murmur3 h = new Murmur3(seed);
+        h.update(data, off, len);
+        h.value(out);
+    }
+
+    /**
+     * Murmur3 x64 128 位，计算 position 到 limit 的数据，不改变 buffer 的 position
+     *
+     * @param buffer 数据
+     * @param seed   种子
+     * @param out    长度至少为 2 的数组，out[0] 为 h1，out[1] 为 h2
+     */
+    public static void murmur3_128(final ByteBuffer buffer, final int seed, final long[] out) {
+        Murmur3 h = new Murmur3(seed);
+        h.update(buffer.duplicate());
+        h.value(out);
+    }
+
+    /**
+     * Murmur3 x64 128 位，按 UTF-16LE 计算
+     *
+     * @param s    字符序列
+     * @param seed 种子
+     * @param out  长度至少为 2 的数组，out[0] 为 h1，out[1] 为 h2
+     */
+    public static void murmur3_128(final CharSequence s, final int seed, final long[] out) {
+        Murmur3 h = new Murmur3(seed);
+        feedChars(s, h);
+        h.value(out);
+    }
+
+    /**
+     * 文件的 Murmur3 x64 128 位哈希
+     *
+     * @param file 文件
+     * @param seed 种子
+     * @param out  长度至少为 2 的数组，out[0] 为 h1，out[1] 为 h2
+     * @throws IOException IO 错误时抛出
+     */
+    public static void murmur3_128(final File file, final int seed, final long[] out) throws IOException {
+        Murmur3 h = new Murmur3(seed);
+        HashPipeline.feed(file, HashStrategy.AUTO, h);
+        h.value(out);
+    }
+
+    /*------------------------------------ CRC32C ------------------------------------*/
+
+    /**
+     * CRC32C（Castagnoli）
+     *
+     * @param data 数据
+     * @return 校验值
+     */
+    public static int crc32c(final byte[] data) {
+        return crc32c(data, 0, data.length);
+    }
+
+    /**
+     * CRC32C（Castagnoli）
+     *
+     * @param data 数据
+     * @param off  起始位置
+     * @param len  长度
+     * @return 校验值
+     */
+    public static int crc32c(final byte[] data, final int off, final int len) {
+        Crc32c h = new Crc32c();
+        h.update(data, off, len);
+        return h.value();
+    }
+
+    /**
+     * CRC32C，计算 position 到 limit 的数据，不改变 buffer 的 position
+     *
+     * @param buffer 数据
+     * @return 校验值
+     */
+    public static int crc32c(final ByteBuffer buffer) {
+        Crc32c h = new Crc32c();
+        h.update(buffer.duplicate());
+        return h.value();
+    }
+
+    /**
+     * CRC32C，按 UTF-16LE 计算
+     *
+     * @param s 字符序列
+     * @return 校验值
+     */
+    public static int crc32c(final CharSequence s) {
+        Crc32c h = new Crc32c();
+        feedChars(s, h);
+        return h.value();
+    }
+
+    /**
+     * 文件的 CRC32C
+     *
+     * @param file 文件
+     * @return 校验值
+     * @throws IOException IO 错误时抛出
+     */
+    public static int crc32c(final File file) throws IOException {
+        Crc32c h = new Crc32c();
+        HashPipeline.feed(file, HashStrategy.AUTO, h);
+        return h.value();
+    }
+
+    /*------------------------------------ 内部实现 ------------------------------------*/
+
+    private static void feedChars(final CharSequence s, final HashPipeline.Sink sink) {
+        byte[] scratch = SCRATCH.get();
+        int length = s.length();
+        for (int start = 0; start < length; start += CHAR_CHUNK) {
+            int end = Math.min(length, start + CHAR_CHUNK);
+            int p = 0;
+            for (int i = start; i < end; i++) {
+                char c = s.charAt(i);
+                scratch[p++] = (byte) c;
+                scratch[p++] = (byte) (c >>> 8);
+            }
+            sink.update(scratch, 0, p);
+        }
+    }
+
+    private static long getLongLE(final byte[] b, final int i) {
+        return (b[i] & 0xFFL)
+                | (b[i + 1] & 0xFFL) << 8
+                | (b[i + 2] & 0xFFL) << 16
+                | (b[i + 3] & 0xFFL) << 24
+                | (b[i + 4] & 0xFFL) << 32
+                | (b[i + 5] & 0xFFL) << 40
+                | (b[i + 6] & 0xFFL) << 48
+                | (b[i + 7] & 0xFFL) << 56;
+    }
+
+    private static long getIntLE(final byte[] b, final int i) {
+        return (b[i] & 0xFFL)
+                | (b[i + 1] & 0xFFL) << 8
+                | (b[i + 2] & 0xFFL) << 16
+                | (b[i + 3] & 0xFFL) << 24;
+    }
+
+    /**
+     * 按块处理的哈希基类，负责缓存不足一块的数据
+     */
+    private abstract static class BlockHash implements HashPipeline.Sink {
+
+        final byte[] tail;
+        int tailLen;
+        long total;
+
+        BlockHash(final int blockSize) {
+            tail = new byte[blockSize];
+        }
+
+        abstract void block(byte[] b, int off);
+
+        @Override
+        public void update(final byte[] b, final int off, final int len) {
+            int blockSize = tail.length;
+            int p = off;
+            int end = off + len;
+            total += len;
+            if (tailLen > 0) {
+                int n = Math.min(blockSize - tailLen, len);
+                System.arraycopy(b, p, tail, tailLen, n);
+                tailLen += n;
+                p += n;
+                if (tailLen < blockSize) {
+                    return;
+                }
+                block(tail, 0);
+                tailLen = 0;
+            }
+            while (end - p >= blockSize) {
+                block(b, p);
+                p += blockSize;
+            }
+            tailLen = end - p;
+            System.arraycopy(b, p, tail, 0, tailLen);
+        }
+
+        @Override
+        public void update(final ByteBuffer buffer) {
+            if (buffer.hasArray()) {
+                update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                buffer.position(buffer.limit());
+                return;
+            }
+            byte[] scratch = SCRATCH.get();
+            while (buffer.hasRemaining()) {
+                int n = Math.min(scratch.length, buffer.remaining());
+                buffer.get(scratch, 0, n);
+                update(scratch, 0, n);
+            }
+        }
+    }
+
+    private static final class XxHash64 extends BlockHash {
+
+        private static final long P1 = 0x9E3779B185EBCA87L;
+        private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+        private static final long P3 = 0x165667B19E3779F9L;
+        private static final long P4 = 0x85EBCA77C2B2AE63L;
+        private static final long P5 = 0x27D4EB2F165667C5L;
+
+        private final long seed;
+        private long v1;
+        private long v2;
+        private long v3;
+        private long v4;
+
+        XxHash64(final long seed) {
+            super(32);
+            this.seed = seed;
+            v1 = seed + P1 + P2;
+            v2 = seed + P2;
+            v3 = seed;
+            v4 = seed - P1;
+        }
+
+        @Override
+        void block(final byte[] b, final int off) {
+            v1 = round(v1, getLongLE(b, off));
+            v2 = round(v2, getLongLE(b, off + 8));
+            v3 = round(v3, getLongLE(b, off + 16));
+            v4 = round(v4, getLongLE(b, off + 24));
+        }
+
+        long value() {
+            long h;
+            if (total >= 32) {
+                h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+                h = merge(h, v1);
+                h = merge(h, v2);
+                h = merge(h, v3);
+                h = merge(h, v4);
+            } else {
+                h = seed + P5;
+            }
+            h += total;
+            int p = 0;
+            for (; p + 8 <= tailLen; p += 8) {
+                h ^= round(0, getLongLE(tail, p));
+                h = Long.rotateLeft(h, 27) * P1 + P4;
+            }
+            if (p + 4 <= tailLen) {
+                h ^= getIntLE(tail, p) * P1;
+                h = Long.rotateLeft(h, 23) * P2 + P3;
+                p += 4;
+            }
+            for (; p < tailLen; p++) {
+                h ^= (tail[p] & 0xFFL) * P5;
+                h = Long.rotateLeft(h, 11) * P1;
+            }
+            h ^= h >>> 33;
+            h *= P2;
+            h ^= h >>> 29;
+            h *= P3;
+            h ^= h >>> 32;
+            return h;
+        }
+
+        private static long round(long acc, final long lane) {
+            acc += lane * P2;
+            acc = Long.rotateLeft(acc, 31);
+            return acc * P1;
+        }
+
+        private static long merge(long acc, final long val) {
+            acc ^= round(0, val);
+            return acc * P1 + P4;
+        }
+    }
+
+    private static final class Murmur3 extends BlockHash {
+
+        private static final long C1 = 0x87c37b91114253d5L;
+        private static final long C2 = 0x4cf5ad432745937fL;
+
+        private long h1;
+        private long h2;
+
+        Murmur3(final int seed) {
+            super(16);
+            h1 = seed & 0xFFFFFFFFL;
+            h2 = h1;
+        }
+
+        @Override
+        void block(final byte[] b, final int off) {
+            long k1 = getLongLE(b, off);
+            long k2 = getLongLE(b, off + 8);
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        void value(final long[] out) {
+            long a = h1;
+            long b = h2;
+            long k1 = 0;
+            long k2 = 0;
+            for (int i = tailLen - 1; i >= 8; i--) {
+                k2 = k2 << 8 | (tail[i] & 0xFFL);
+            }
+            for (int i = Math.min(tailLen, 8) - 1; i >= 0; i--) {
+                k1 = k1 << 8 | (tail[i] & 0xFFL);
+            }
+            if (tailLen > 8) {
+                b ^= mixK2(k2);
+            }
+            if (tailLen > 0) {
+                a ^= mixK1(k1);
+            }
+            a ^= total;
+            b ^= total;
+            a += b;
+            b += a;
+            a = fmix64(a);
+            b = fmix64(b);
+            a += b;
+            b += a;
+            out[0] = a;
+            out[1] = b;
+        }
+
+        private static long mixK1(long k1) {
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            return k1 * C2;
+        }
+
+        private static long mixK2(long k2) {
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            return k2 * C1;
+        }
+
+        private static long fmix64(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+    }
+
+    /**
+     * slicing-by-8 查表实现，每次处理 8 个字节
+     */
+    private static final class Crc32c extends BlockHash {
+
+        private static final int[][] TABLE = new int[8][256];
+
+        static {
+            for (int n = 0; n < 256; n++) {
+                int c = n;
+                for (int k = 0; k < 8; k++) {
+                    c = (c & 1) != 0 ? (c >>> 1) ^ 0x82F63B78 : c >>> 1;
+                }
+                TABLE[0][n] = c;
+            }
+            for (int n = 0; n < 256; n++) {
+                int c = TABLE[0][n];
+                for (int t = 1; t < 8; t++) {
+                    c = TABLE[0][c & 0xFF] ^ (c >>> 8);
+                    TABLE[t][n] = c;
+                }
+            }
+        }
+
+        private int crc = 0xFFFFFFFF;
+
+        Crc32c() {
+            super(8);
+        }
+
+        @Override
+        void block(final byte[] b, final int off) {
+            int[][] t = TABLE;
+            int lo = crc ^ ((b[off] & 0xFF) | (b[off + 1] & 0xFF) << 8
+                    | (b[off + 2] & 0xFF) << 16 | (b[off + 3] & 0xFF) << 24);
+            crc = t[7][lo & 0xFF] ^ t[6][(lo >>> 8) & 0xFF] ^ t[5][(lo >>> 16) & 0xFF] ^ t[4][lo >>> 24]
+                    ^ t[3][b[off + 4] & 0xFF] ^ t[2][b[off + 5] & 0xFF]
+                    ^ t[1][b[off + 6] & 0xFF] ^ t[0][b[off + 7] & 0xFF];
+        }
+
+        int value() {
+            int c = crc;
+            for (int i = 0; i < tailLen; i++) {
+                c = TABLE[0][(c ^ tail[i]) & 0xFF] ^ (c >>> 8);
+            }
+            return ~c;
+        }
+    }
+}
@@ -3,11 +3,9 @@ package com.liuhanze.iutil.security;
 import com.liuhanze.iutil.lang.IByte;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
 
 public final class IMD5 {
 
@@ -37,6 +35,61 @@ public final class IMD5 {
         return IByte.bytes2HexString(enCodeToByte(data));
     }
 
+    /**
+     * MD5 加密，结果写入调用方数组，不分配新数组
+     *
+     * @param data   明文字节数组
+     * @param off    明文起始位置
+     * @param len    明文长度
+     * @param out    输出数组，从 outOff 起至少 16 字节
+     * @param outOff 输出起始位置
+     * @return 写入的字节数 16，失败返回 -1
+     */
+    public static int enCodeTo(final byte[] data, final int off, final int len,
+                               final byte[] out, final int outOff) {
+        return HashPipeline.digestTo(MD5, data, off, len, out, outOff);
+    }
+
+    /**
+     * MD5 加密，结果以两个 long 返回，适合直接作为缓存键
+     *
+     * @param data 明文字节数组
+     * @param off  明文起始位置
+     * @param len  明文长度
+     * @param out  长度至少为 2 的数组，out[0] 为前 8 字节，out[1] 为后 8 字节，均按大端序
+     * @return {@code true}: 成功<br>{@code false}: 失败
+     */
+    public static boolean enCodeToLongs(final byte[] data, final int off, final int len, final long[] out) {
+        byte[] scratch = HashPipeline.scratch();
+        if (HashPipeline.digestTo(MD5, data, off, len, scratch, 0) < 0) {
+            return false;
+        }
+        long high = 0;
+        long low = 0;
+        for (int i = 0; i < 8; i++) {
+            high = high << 8 | (scratch[i] & 0xFF);
+            low = low << 8 | (scratch[i + 8] & 0xFF);
+        }
+        out[0] = high;
+        out[1] = low;
+        return true;
+    }
+
+    /**
+     * MD5 加密，大写 16 进制结果写入调用方字符数组，可与 {@code new String(out, 0, 32)} 配合或直接比较
+     *
+     * @param data   明文字节数组
+     * @param off    明文起始位置
+     * @param len    明文长度
+     * @param out    输出数组，从 outOff 起至少 32 个字符
+     * @param outOff 输出起始位置
+     * @return 写入的字符数 32，失败返回 -1
+     */
+    public static int enCodeToHex(final byte[] data, final int off, final int len,
+                                  final char[] out, final int outOff) {
+        return HashPipeline.digestToHex(MD5, data, off, len, out, outOff);
+    }
+
     /**
      * MD5 加密
      *
@@ -127,36 +180,53 @@ public final class IMD5 {
     }
 
 
+    /**
+     * 批量计算文件的 MD5 校验码，线程数为 CPU 核数
+     *
+     * @param files    文件集合
+     * @param listener 结果回调，按完成先后在调用线程中执行
+     * @return 统计结果
+     */
+    public static DigestStat encodeFiles(final Collection<File> files,
+                                         final DigestService.OnDigestListener listener) {
+        return new DigestService(MD5).digest(files, listener);
+    }
+
+    /**
+     * MD5 加密文件，指定读取方式
+     *
+     * @param file     文件
+     * @param strategy 读取方式，见 {@link HashStrategy}
+     * @return 文件的 MD5 校验码
+     */
+    public static byte[] encodeFileToByte(final File file, @HashStrategy.Strategy final int strategy) {
+        return HashPipeline.digestFile(file, MD5, strategy);
+    }
+
     /**
      * MD5 加密文件
+     * <p>按文件大小自动选择读取方式：小文件读入堆缓冲，中等文件经 FileChannel 读入直接缓冲区，
+     * 大文件按窗口内存映射后直接送入 {@link MessageDigest#update(java.nio.ByteBuffer)}。</p>
      *
      * @param file 文件
      * @return 文件的 MD5 校验码
      */
     private static byte[] encodeFile(final File file,String mode) {
-        if (file == null) {
-            return null;
-        }
-
-        try(FileInputStream fis = new FileInputStream(file);
-            DigestInputStream digestInputStream = new DigestInputStream(fis, MessageDigest.getInstance(mode))) {
+        return HashPipeline.digestFile(file, mode);
+    }
 
-            byte[] buffer = new byte[256 * 1024];  //一次读入 256KB
-            while (true) {
-                if (!(digestInputStream.read(buffer) > 0)) {
-                    break;
-                }
-            }
-            MessageDigest md  = digestInputStream.getMessageDigest();
-            return md.digest();
-        } catch (NoSuchAlgorithmException | IOException e) {
-            e.printStackTrace();
-            return null;
-        }
+    /**
+     * 创建可续算的 MD5 哈希，状态可保存后恢复继续计算
+     *
+     * @return 哈希实例
+     */
+    public static ResumableHasher newResumableHasher() {
+        return ResumableHasher.newInstance(MD5);
     }
 
     /**
      * hash 加密模板
+     * <p>摘要实例按线程复用，不再每次 getInstance</p>
      *
      * @param data      数据
      * @param algorithm 加密算法
@@ -167,7 +237,7 @@ public final class IMD5 {
             return null;
         }
         try {
-            MessageDigest md = MessageDigest.getInstance(algorithm);
+            MessageDigest md = HashPipeline.digest(algorithm);
             md.update(data);
             return md.digest();
         } catch (NoSuchAlgorithmException e) {
@@ -2,8 +2,10 @@ package com.liuhanze.iutil.security;
 
 import com.liuhanze.iutil.lang.IByte;
 
+import java.io.File;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
 
 public final class ISHA {
 
@@ -161,8 +163,164 @@ public final class ISHA {
         return hashTemplate(data, "SHA512");
     }
 
+    /**
+     * SHA1 加密文件
+     *
+     * @param file 文件
+     * @return 文件的 16 进制 SHA1 校验码
+     */
+    public static String encryptSHA1FileToString(final File file) {
+        return IByte.bytes2HexString(encryptSHA1File(file));
+    }
+
+    /**
+     * SHA1 加密文件
+     *
+     * @param file 文件
+     * @return 文件的 SHA1 校验码
+     */
+    public static byte[] encryptSHA1File(final File file) {
+        return HashPipeline.digestFile(file, DigestService.SHA1);
+    }
+
+    /**
+     * SHA224 加密文件
+     *
+     * @param file 文件
+     * @return 文件的 16 进制 SHA224 校验码
+     */
+    public static String encryptSHA224FileToString(final File file) {
+        return IByte.bytes2HexString(encryptSHA224File(file));
+    }
+
+    /**
+     * SHA224 加密文件
+     *
+     * @param file 文件
+     * @return 文件的 SHA224 校验码
+     */
+    public static byte[] encryptSHA224File(final File file) {
+        return HashPipeline.digestFile(file, DigestService.SHA224);
+    }
+
+    /**
+     * SHA256 加密文件
+     *
+     * @param file 文件
+     * @return 文件的 16 进制 SHA256 校验码
+     */
+    public static String encryptSHA256FileToString(final File file) {
+        return IByte.bytes2HexString(encryptSHA256File(file));
+    }
+
+    /**
+     * SHA256 加密文件
+     *
+     * @param file 文件
+     * @return 文件的 SHA256 校验码
+     */
+    public static byte[] encryptSHA256File(final File file) {
+        return HashPipeline.digestFile(file, DigestService.SHA256);
+    }
+
+    /**
+     * SHA384 加密文件
+     *
+     * @param file 文件
+     * @return 文件的 16 进制 SHA384 校验码
+     */
+    public static String encryptSHA384FileToString(final File file) {
+        return IByte.bytes2HexString(encryptSHA384File(file));
+    }
+
+    /**
+     * SHA384 加密文件
+     *
+     * @param file 文件
+     * @return 文件的 SHA384 校验码
+     */
+    public static byte[] encryptSHA384File(final File file) {
+        return HashPipeline.digestFile(file, DigestService.SHA384);
+    }
+
+    /**
+     * SHA512 加密文件
+     *
+     * @param file 文件
+     * @return 文件的 16 进制 SHA512 校验码
+     */
+    public static String encryptSHA512FileToString(final File file) {
+        return IByte.bytes2HexString(encryptSHA512File(file));
+    }
+
+    /**
+     * SHA512 加密文件
+     *
+     * @param file 文件
+     * @return 文件的 SHA512 校验码
+     */
+    public static byte[] encryptSHA512File(final File file) {
+        return HashPipeline.digestFile(file, DigestService.SHA512);
+    }
+
+    /**
+     * 批量计算文件的 SHA 校验码，线程数为 CPU 核数
+     *
+     * @param files     文件集合
+     * @param algorithm 算法，{@link DigestService#SHA1} 至 {@link DigestService#SHA512}
+     * @param listener  结果回调，按完成先后在调用线程中执行
+     * @return 统计结果
+     */
+    public static DigestStat encryptFiles(final Collection<File> files, final String algorithm,
+                                          final DigestService.OnDigestListener listener) {
+        return new DigestService(algorithm).digest(files, listener);
+    }
+
+    /**
+     * SHA 加密，结果写入调用方数组，不分配新数组
+     *
+     * @param algorithm 算法，{@link DigestService#SHA1} 至 {@link DigestService#SHA512}
+     * @param data      明文字节数组
+     * @param off       明文起始位置
+     * @param len       明文长度
+     * @param out       输出数组，空间需不小于摘要长度
+     * @param outOff    输出起始位置
+     * @return 写入的字节数，失败返回 -1
+     */
+    public static int encryptTo(final String algorithm, final byte[] data, final int off, final int len,
+                                final byte[] out, final int outOff) {
+        return HashPipeline.digestTo(algorithm, data, off, len, out, outOff);
+    }
+
+    /**
+     * SHA 加密，大写 16 进制结果写入调用方字符数组
+     *
+     * @param algorithm 算法，{@link DigestService#SHA1} 至 {@link DigestService#SHA512}
+     * @param data      明文字节数组
+     * @param off       明文起始位置
+     * @param len       明文长度
+     * @param out       输出数组，空间需不小于摘要长度的两倍
+     * @param outOff    输出起始位置
+     * @return 写入的字符数，失败返回 -1
+     */
+    public static int encryptToHex(final String algorithm, final byte[] data, final int off, final int len,
+                                   final char[] out, final int outOff) {
+        return HashPipeline.digestToHex(algorithm, data, off, len, out, outOff);
+    }
+
+    /**
+     * 创建可续算的 SHA 哈希，状态可保存后恢复继续计算
+     *
+     * @param algorithm 算法，{@link DigestService#SHA1} 至 {@link DigestService#SHA512}
+     * @return 哈希实例，不支持的算法返回 {@code null}
+     */
+    public static ResumableHasher newResumableHasher(final String algorithm) {
+        return ResumableHasher.newInstance(algorithm);
+    }
+
     /**
      * hash 加密模板
+     * <p>摘要实例按线程复用，不再每次 getInstance</p>
      *
      * @param data      数据
      * @param algorithm 加密算法
@@ -173,7 +331,7 @@ public final class ISHA {
             return null;
         }
         try {
-            MessageDigest md = MessageDigest.getInstance(algorithm);
+            MessageDigest md = HashPipeline.digest(algorithm);
             md.update(data);
             return md.digest();
         } catch (NoSuchAlgorithmException e) {
@@ -0,0 +1,596 @@
+package com.liuhanze.iutil.security;
+
+import com.liuhanze.iutil.lang.IByte;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 可续算的哈希
+ * <p>纯 Java 实现的 MD5、SHA-1、SHA-224、SHA-256、SHA-384、SHA-512，内部状态可以随时 {@link #snapshot()} 为字节数组
+ * 保存到磁盘，之后用 {@link #restore(byte[])} 恢复后继续 {@link #update(byte[])}，
+ * 分段下载的文件在下载过程中即可算完摘要，不需要下载完成后再读一遍。</p>
+ * <p>{@link #digest()} 不改变当前状态，可以先取中间结果再继续追加数据。实例不是线程安全的。</p>
+ */
+public final class ResumableHasher {
+
+    private static final int STATE_VERSION = 1;
+
+    private static final int ALG_MD5 = 1;
+    private static final int ALG_SHA1 = 2;
+    private static final int ALG_SHA224 = 3;
+    private static final int ALG_SHA256 = 4;
+    private static final int ALG_SHA384 = 5;
+    private static final int ALG_SHA512 = 6;
+
+    private static final int[] MD5_T = {
+            0xd76aa478, 0xe8c7b756, 0x242070db, 0xc1bdceee, 0xf57c0faf, 0x4787c62a, 0xa8304613, 0xfd469501,
+            0x698098d8, 0x8b44f7af, 0xffff5bb1, 0x895cd7be, 0x6b901122, 0xfd987193, 0xa679438e, 0x49b40821,
+            0xf61e2562, 0xc040b340, 0x265e5a51, 0xe9b6c7aa, 0xd62f105d, 0x02441453, 0xd8a1e681, 0xe7d3fbc8,
+            0x21e1cde6, 0xc33707d6, 0xf4d50d87, 0x455a14ed, 0xa9e3e905, 0xfcefa3f8, 0x676f02d9, 0x8d2a4c8a,
+            0xfffa3942, 0x8771f681, 0x6d9d6122, 0xfde5380c, 0xa4beea44, 0x4bdecfa9, 0xf6bb4b60, 0xbebfbc70,
+            0x289b7ec6, 0xeaa127fa, 0xd4ef3085, 0x04881d05, 0xd9d4d039, 0xe6db99e5, 0x1fa27cf8, 0xc4ac5665,
+            0xf4292244, 0x432aff97, 0xab9423a7, 0xfc93a039, 0x655b59c3, 0x8f0ccc92, 0xffeff47d, 0x85845dd1,
+            0x6fa87e4f, 0xfe2ce6e0, 0xa3014314, 0x4e0811a1, 0xf7537e82, 0xbd3af235, 0x2ad7d2bb, 0xeb86d391
+    };
+
+    private static final int[] MD5_S = {
+            7, 12, 17, 22, 5, 9, 14, 20, 4, 11, 16, 23, 6, 10, 15, 21
+    };
+
+    private static final int[] SHA256_K = {
+            0x428a2f98, 0x71374491, 0xb5c0fbcf, 0xe9b5dba5, 0x3956c25b, 0x59f111f1, 0x923f82a4, 0xab1c5ed5,
+            0xd807aa98, 0x12835b01, 0x243185be, 0x550c7dc3, 0x72be5d74, 0x80deb1fe, 0x9bdc06a7, 0xc19bf174,
+            0xe49b69c1, 0xefbe4786, 0x0fc19dc6, 0x240ca1cc, 0x2de92c6f, 0x4a7484aa, 0x5cb0a9dc, 0x76f988da,
+            0x983e5152, 0xa831c66d, 0xb00327c8, 0xbf597fc7, 0xc6e00bf3, 0xd5a79147, 0x06ca6351, 0x14292967,
+            0x27b70a85, 0x2e1b2138, 0x4d2c6dfc, 0x53380d13, 0x650a7354, 0x766a0abb, 0x81c2c92e, 0x92722c85,
+            0xa2bfe8a1, 0xa81a664b, 0xc24b8b70, 0xc76c51a3, 0xd192e819, 0xd6990624, 0xf40e3585, 0x106aa070,
+            0x19a4c116, 0x1e376c08, 0x2748774c, 0x34b0bcb5, 0x391c0cb3, 0x4ed8aa4a, 0x5b9cca4f, 0x682e6ff3,
+            0x748f82ee, 0x78a5636f, 0x84c87814, 0x8cc70208, 0x90befffa, 0xa4506ceb, 0xbef9a3f7, 0xc67178f2
+    };
+
+    private static final long[] SHA512_K = {
+            0x428a2f98d728ae22L, 0x7137449123ef65cdL, 0xb5c0fbcfec4d3b2fL, 0xe9b5dba58189dbbcL,
+            0x3956c25bf348b538L, 0x59f111f1b605d019L, 0x923f82a4af194f9bL, 0xab1c5ed5da6d8118L,
+            0xd807aa98a3030242L, 0x12835b0145706fbeL, 0x243185be4ee4b28cL, 0x550c7dc3d5ffb4e2L,
+            0x72be5d74f27b896fL, 0x80deb1fe3b1696b1L, 0x9bdc06a725c71235L, 0xc19bf174cf692694L,
+            0xe49b69c19ef14ad2L, 0xefbe4786384f25e3L, 0x0fc19dc68b8cd5b5L, 0x240ca1cc77ac9c65L,
+            0x2de92c6f592b0275L, 0x4a7484aa6ea6e483L, 0x5cb0a9dcbd41fbd4L, 0x76f988da831153b5L,
+            0x983e5152ee66dfabL, 0xa831c66d2db43210L, 0xb00327c898fb213fL, 0xbf597fc7beef0ee4L,
+            0xc6e00bf33da88fc2L, 0xd5a79147930aa725L, 0x06ca6351e003826fL, 0x142929670a0e6e70L,
+            0x27b70a8546d22ffcL, 0x2e1b21385c26c926L, 0x4d2c6dfc5ac42aedL, 0x53380d139d95b3dfL,
+            0x650a73548baf63deL, 0x766a0abb3c77b2a8L, 0x81c2c92e47edaee6L, 0x92722c851482353bL,
+            0xa2bfe8a14cf10364L, 0xa81a664bbc423001L, 0xc24b8b70d0f89791L, 0xc76c51a30654be30L,
+            0xd192e819d6ef5218L, 0xd69906245565a910L, 0xf40e35855771202aL, 0x106aa07032bbd1b8L,
+            0x19a4c116b8d2d0c8L, 0x1e376c085141ab53L, 0x2748774cdf8eeb99L, 0x34b0bcb5e19b48a8L,
+            0x391c0cb3c5c95a63L, 0x4ed8aa4ae3418acbL, 0x5b9cca4f7763e373L, 0x682e6ff3d6b2b8a3L,
+            0x748f82ee5defb2fcL, 0x78a5636f43172f60L, 0x84c87814a1f0ab72L, 0x8cc702081a6439ecL,
+            0x90befffa23631e28L, 0xa4506cebde82bde9L, 0xbef9a3f7b2c67915L, 0xc67178f2e372532bL,
+            0xca273eceea26619cL, 0xd186b8c721c0c207L, 0xeada7dd6cde0eb1eL, 0xf57d4f7fee6ed178L,
+            0x06f067aa72176fbaL, 0x0a637dc5a2c898a6L, 0x113f9804bef90daeL, 0x1b710b35131c471bL,
+            0x28db77f523047d84L, 0x32caab7b40c72493L, 0x3c9ebe0a15c9bebcL, 0x431d67c49c100d4cL,
+            0x4cc5d4becb3e42b6L, 0x597f299cfc657e2aL, 0x5fcb6fab3ad6faecL, 0x6c44198c4a475817L
+    };
+
+    private final int alg;
+    private final int blockSize;
+    private final int digestLength;
+    private final int[] h32;
+    private final long[] h64;
+    private final byte[] block;
+    private final int[] w32;
+    private final long[] w64;
+    private int blockLen;
+    private long length;
+
+    private ResumableHasher(final int alg) {
+        this.alg = alg;
+        boolean wide = alg == ALG_SHA384 || alg == ALG_SHA512;
+        this.blockSize = wide ? 128 : 64;
+        this.block = new byte[blockSize];
+        if (wide) {
+            h32 = null;
+            w32 = null;
+            h64 = new long[8];
+            w64 = new long[80];
+        } else {
+            h32 = new int[alg == ALG_MD5 ? 4 : alg == ALG_SHA1 ? 5 : 8];
+            w32 = new int[alg == ALG_MD5 ? 16 : alg == ALG_SHA1 ? 80 : 64];
+            h64 = null;
+            w64 = null;
+        }
+        switch (alg) {
+            case ALG_MD5:
+                digestLength = 16;
+                break;
+            case ALG_SHA1:
+                digestLength = 20;
+                break;
+            case ALG_SHA224:
+                digestLength = 28;
+                break;
+            case ALG_SHA256:
+                digestLength = 32;
+                break;
+            case ALG_SHA384:
+                digestLength = 48;
+                break;
+            default:
+                digestLength = 64;
+                break;
+        }
+        reset();
+    }
+
+    /**
+     * 创建哈希实例
+     *
+     * @param algorithm 算法，{@link DigestService#MD5}、{@link DigestService#SHA1} 至 {@link DigestService#SHA512}，
+     *                  也接受不带 '-' 的写法
+     * @return 哈希实例，不支持的算法返回 {@code null}
+     */
+    public static ResumableHasher newInstance(final String algorithm) {
+        int alg = algorithmId(algorithm);
+        return alg == 0 ? null : new ResumableHasher(alg);
+    }
+
+    /**
+     * 从 {@link #snapshot()} 得到的字节数组恢复
+     *
+     * @param state 状态
+     * @return 哈希实例，状态格式不正确返回 {@code null}
+     */
+    public static ResumableHasher restore(final byte[] state) {
+        if (state == null || state.length < 11 || state[0] != STATE_VERSION) {
+            return null;
+        }
+        int alg = state[1];
+        if (alg < ALG_MD5 || alg > ALG_SHA512) {
+            return null;
+        }
+        ResumableHasher hasher = new ResumableHasher(alg);
+        int p = 2;
+        long length = 0;
+        for (int i = 0; i < 8; i++) {
+            length = length << 8 | (state[p++] & 0xFF);
+        }
+        int blockLen = state[p++] & 0xFF;
+        int words = hasher.h32 != null ? hasher.h32.length * 4 : hasher.h64.length * 8;
+        if (blockLen >= hasher.blockSize || length < 0 || length % hasher.blockSize != blockLen
+                || state.length != p + words + blockLen) {
+            return null;
+        }
+        if (hasher.h32 != null) {
+            for (int i = 0; i < hasher.h32.length; i++, p += 4) {
+                hasher.h32[i] = IByte.bytesToIntBigEndian(state, p);
+            }
+        } else {
+            for (int i = 0; i < hasher.h64.length; i++, p += 8) {
+                hasher.h64[i] = (long) IByte.bytesToIntBigEndian(state, p) << 32
+                        | (IByte.bytesToIntBigEndian(state, p + 4) & 0xFFFFFFFFL);
+            }
+        }
+        System.arraycopy(state, p, hasher.block, 0, blockLen);
+        hasher.blockLen = blockLen;
+        hasher.length = length;
+        return hasher;
+    }
+
+    /**
+     * 保存当前状态，可随时调用，不影响后续计算
+     * <p>格式：版本(1) 算法(1) 已处理长度(8, 大端) 缓冲长度(1) 链值 缓冲数据</p>
+     *
+     * @return 状态字节数组
+     */
+    public byte[] snapshot() {
+        int words = h32 != null ? h32.length * 4 : h64.length * 8;
+        byte[] state = new byte[11 + words + blockLen];
+        int p = 0;
+        state[p++] = STATE_VERSION;
+        state[p++] = (byte) alg;
+        for (int i = 56; i >= 0; i -= 8) {
+            state[p++] = (byte) (length >>> i);
+        }
+        state[p++] = (byte) blockLen;
+        if (h32 != null) {
+            for (int v : h32) {
+                IByte.fillIntToBytesBigEndian(v, state, p);
+                p += 4;
+            }
+        } else {
+            for (long v : h64) {
+                IByte.fillIntToBytesBigEndian((int) (v >>> 32), state, p);
+                IByte.fillIntToBytesBigEndian((int) v, state, p + 4);
+                p += 8;
+            }
+        }
+        System.arraycopy(block, 0, state, p, blockLen);
+        return state;
+    }
+
+    /**
+     * 已处理的字节数
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * 摘要长度（字节）
+     */
+    public int getDigestLength() {
+        return digestLength;
+    }
+
+    /**
+     * 回到初始状态
+     */
+    public void reset() {
+        blockLen = 0;
+        length = 0;
+        switch (alg) {
+            case ALG_MD5:
+                setState(0x67452301, 0xefcdab89, 0x98badcfe, 0x10325476);
+                break;
+            case ALG_SHA1:
+                setState(0x67452301, 0xefcdab89, 0x98badcfe, 0x10325476, 0xc3d2e1f0);
+                break;
+            case ALG_SHA224:
+                setState(0xc1059ed8, 0x367cd507, 0x3070dd17, 0xf70e5939,
+                        0xffc00b31, 0x68581511, 0x64f98fa7, 0xbefa4fa4);
+                break;
+            case ALG_SHA256:
+                setState(0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a,
+                        0x510e527f, 0x9b05688c, 0x1f83d9ab, 0x5be0cd19);
+                break;
+            case ALG_SHA384:
+                setState(0xcbbb9d5dc1059ed8L, 0x629a292a367cd507L, 0x9159015a3070dd17L, 0x152fecd8f70e5939L,
+                        0x67332667ffc00b31L, 0x8eb44a8768581511L, 0xdb0c2e0d64f98fa7L, 0x47b5481dbefa4fa4L);
+                break;
+            default:
+                setState(0x6a09e667f3bcc908L, 0xbb67ae8584caa73bL, 0x3c6ef372fe94f82bL, 0xa54ff53a5f1d36f1L,
+                        0x510e527fade682d1L, 0x9b05688c2b3e6c1fL, 0x1f83d9abfb41bd6bL, 0x5be0cd19137e2179L);
+                break;
+        }
+    }
+
+    /**
+     * 追加数据
+     *
+     * @param data 数据
+     * @return this
+     */
+    public ResumableHasher update(final byte[] data) {
+        return update(data, 0, data.length);
+    }
+
+    /**
+     * 追加数据
+     *
+     * @param data 数据
+     * @param off  起始位置
+     * @param len  长度
+     * @return this
+     */
+    public ResumableHasher update(final byte[] data, final int off, final int len) {
+        int p = off;
+        int end = off + len;
+        length += len;
+        if (blockLen > 0) {
+            int n = Math.min(blockSize - blockLen, len);
+            System.arraycopy(data, p, block, blockLen, n);
+            blockLen += n;
+            p += n;
+            if (blockLen < blockSize) {
+                return this;
+            }
+            compress(block, 0);
+            blockLen = 0;
+        }
+        while (end - p >= blockSize) {
+            compress(data, p);
+            p += blockSize;
+        }
+        blockLen = end - p;
+        System.arraycopy(data, p, block, 0, blockLen);
+        return this;
+    }
+
+    /**
+     * 追加 buffer 中 position 到 limit 的数据，buffer 的 position 移到 limit
+     *
+     * @param buffer 数据
+     * @return this
+     */
+    public ResumableHasher update(final ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            int len = buffer.remaining();
+            update(buffer.array(), buffer.arrayOffset() + buffer.position(), len);
+            buffer.position(buffer.limit());
+            return this;
+        }
+        byte[] chunk = new byte[blockSize * 64];
+        while (buffer.hasRemaining()) {
+            int n = Math.min(chunk.length, buffer.remaining());
+            buffer.get(chunk, 0, n);
+            update(chunk, 0, n);
+        }
+        return this;
+    }
+
+    /**
+     * 计算当前已追加数据的摘要，不改变状态
+     *
+     * @return 摘要
+     */
+    public byte[] digest() {
+        ResumableHasher copy = restore(snapshot());
+        //noinspection ConstantConditions
+        return copy.finish();
+    }
+
+    /**
+     * 计算当前已追加数据的摘要，不改变状态
+     *
+     * @return 16 进制大写摘要
+     */
+    public String digestToHexString() {
+        return IByte.bytes2HexString(digest());
+    }
+
+    private byte[] finish() {
+        long bits = length << 3;
+        boolean md5 = alg == ALG_MD5;
+        int lengthBytes = blockSize == 128 ? 16 : 8;
+        byte[] pad = new byte[blockSize * 2];
+        pad[0] = (byte) 0x80;
+        int padLen = blockSize - blockLen;
+        if (padLen < lengthBytes + 1) {
+            padLen += blockSize;
+        }
+        int p = padLen - 8;
+        for (int i = 0; i < 8; i++) {
+            // MD5 的长度按小端写，SHA 按大端写
+            pad[p + i] = (byte) (md5 ? bits >>> (8 * i) : bits >>> (56 - 8 * i));
+        }
+        if (lengthBytes == 16) {
+            // 128 位长度字段的高 64 位只可能含有字节数换算成位数时溢出的 3 位
+            pad[p - 1] = (byte) (length >>> 61);
+        }
+        long saved = length;
+        update(pad, 0, padLen);
+        length = saved;
+
+        byte[] out = new byte[digestLength];
+        if (h64 != null) {
+            for (int i = 0; i < digestLength; i++) {
+                out[i] = (byte) (h64[i >> 3] >>> (56 - 8 * (i & 7)));
+            }
+        } else if (md5) {
+            for (int i = 0; i < digestLength; i++) {
+                out[i] = (byte) (h32[i >> 2] >>> (8 * (i & 3)));
+            }
+        } else {
+            for (int i = 0; i < digestLength; i++) {
+                out[i] = (byte) (h32[i >> 2] >>> (24 - 8 * (i & 3)));
+            }
+        }
+        return out;
+    }
+
+    private void setState(final int... values) {
+        System.arraycopy(values, 0, h32, 0, values.length);
+    }
+
+    private void setState(final long... values) {
+        System.arraycopy(values, 0, h64, 0, values.length);
+    }
+
+    private void compress(final byte[] b, final int off) {
+        switch (alg) {
+            case ALG_MD5:
+                compressMd5(b, off);
+                break;
+            case ALG_SHA1:
+                compressSha1(b, off);
+                break;
+            case ALG_SHA224:
+            case ALG_SHA256:
+                compressSha256(b, off);
+                break;
+            default:
+                compressSha512(b, off);
+                break;
+        }
+    }
+
+    private void compressMd5(final byte[] b, final int off) {
+        int[] x = w32;
+        for (int i = 0; i < 16; i++) {
+            x[i] = IByte.bytesToIntLittleEndian(b, off + i * 4);
+        }
+        int a = h32[0];
+        int bb = h32[1];
+        int c = h32[2];
+        int d = h32[3];
+        for (int i = 0; i < 64; i++) {
+            int f;
+            int g;
+            if (i < 16) {
+                f = (bb & c) | (~bb & d);
+                g = i;
+            } else if (i < 32) {
+                f = (d & bb) | (~d & c);
+                g = (5 * i + 1) & 15;
+            } else if (i < 48) {
+                f = bb ^ c ^ d;
+                g = (3 * i + 5) & 15;
+            } else {
+                f = c ^ (bb | ~d);
+                g = (7 * i) & 15;
+            }
+            int t = d;
+            d = c;
+            c = bb;
+            bb = bb + Integer.rotateLeft(a + f + MD5_T[i] + x[g], MD5_S[(i >> 4) * 4 + (i & 3)]);
+            a = t;
+        }
+        h32[0] += a;
+        h32[1] += bb;
+        h32[2] += c;
+        h32[3] += d;
+    }
+
+    private void compressSha1(final byte[] b, final int off) {
+        int[] w = w32;
+        for (int i = 0; i < 16; i++) {
+            w[i] = IByte.bytesToIntBigEndian(b, off + i * 4);
+        }
+        for (int i = 16; i < 80; i++) {
+            w[i] = Integer.rotateLeft(w[i - 3] ^ w[i - 8] ^ w[i - 14] ^ w[i - 16], 1);
+        }
+        int a = h32[0];
+        int bb = h32[1];
+        int c = h32[2];
+        int d = h32[3];
+        int e = h32[4];
+        for (int i = 0; i < 80; i++) {
+            int f;
+            int k;
+            if (i < 20) {
+                f = (bb & c) | (~bb & d);
+                k = 0x5a827999;
+            } else if (i < 40) {
+                f = bb ^ c ^ d;
+                k = 0x6ed9eba1;
+            } else if (i < 60) {
+                f = (bb & c) | (bb & d) | (c & d);
+                k = 0x8f1bbcdc;
+            } else {
+                f = bb ^ c ^ d;
+                k = 0xca62c1d6;
+            }
+            int t = Integer.rotateLeft(a, 5) + f + e + k + w[i];
+            e = d;
+            d = c;
+            c = Integer.rotateLeft(bb, 30);
+            bb = a;
+            a = t;
+        }
+        h32[0] += a;
+        h32[1] += bb;
+        h32[2] += c;
+        h32[3] += d;
+        h32[4] += e;
+    }
+
+    private void compressSha256(final byte[] b, final int off) {
+        int[] w = w32;
+        for (int i = 0; i < 16; i++) {
+            w[i] = IByte.bytesToIntBigEndian(b, off + i * 4);
+        }
+        for (int i = 16; i < 64; i++) {
+            int s0 = Integer.rotateRight(w[i - 15], 7) ^ Integer.rotateRight(w[i - 15], 18) ^ (w[i - 15] >>> 3);
+            int s1 = Integer.rotateRight(w[i - 2], 17) ^ Integer.rotateRight(w[i - 2], 19) ^ (w[i - 2] >>> 10);
+            w[i] = w[i - 16] + s0 + w[i - 7] + s1;
+        }
+        int a = h32[0];
+        int bb = h32[1];
+        int c = h32[2];
+        int d = h32[3];
+        int e = h32[4];
+        int f = h32[5];
+        int g = h32[6];
+        int h = h32[7];
+        for (int i = 0; i < 64; i++) {
+            int s1 = Integer.rotateRight(e, 6) ^ Integer.rotateRight(e, 11) ^ Integer.rotateRight(e, 25);
+            int ch = (e & f) ^ (~e & g);
+            int t1 = h + s1 + ch + SHA256_K[i] + w[i];
+            int s0 = Integer.rotateRight(a, 2) ^ Integer.rotateRight(a, 13) ^ Integer.rotateRight(a, 22);
+            int maj = (a & bb) ^ (a & c) ^ (bb & c);
+            int t2 = s0 + maj;
+            h = g;
+            g = f;
+            f = e;
+            e = d + t1;
+            d = c;
+            c = bb;
+            bb = a;
+            a = t1 + t2;
+        }
+        h32[0] += a;
+        h32[1] += bb;
+        h32[2] += c;
+        h32[3] += d;
+        h32[4] += e;
+        h32[5] += f;
+        h32[6] += g;
+        h32[7] += h;
+    }
+
+    private void compressSha512(final byte[] b, final int off) {
+        long[] w = w64;
+        for (int i = 0; i < 16; i++) {
+            int p = off + i * 8;
+            w[i] = (long) IByte.bytesToIntBigEndian(b, p) << 32 | (IByte.bytesToIntBigEndian(b, p + 4) & 0xFFFFFFFFL);
+        }
+        for (int i = 16; i < 80; i++) {
+            long s0 = Long.rotateRight(w[i - 15], 1) ^ Long.rotateRight(w[i - 15], 8) ^ (w[i - 15] >>> 7);
+            long s1 = Long.rotateRight(w[i - 2], 19) ^ Long.rotateRight(w[i - 2], 61) ^ (w[i - 2] >>> 6);
+            w[i] = w[i - 16] + s0 + w[i - 7] + s1;
+        }
+        long a = h64[0];
+        long bb = h64[1];
+        long c = h64[2];
+        long d = h64[3];
+        long e = h64[4];
+        long f = h64[5];
+        long g = h64[6];
+        long h = h64[7];
+        for (int i = 0; i < 80; i++) {
+            long s1 = Long.rotateRight(e, 14) ^ Long.rotateRight(e, 18) ^ Long.rotateRight(e, 41);
+            long ch = (e & f) ^ (~e & g);
+            long t1 = h + s1 + ch + SHA512_K[i] + w[i];
+            long s0 = Long.rotateRight(a, 28) ^ Long.rotateRight(a, 34) ^ Long.rotateRight(a, 39);
+            long maj = (a & bb) ^ (a & c) ^ (bb & c);
+            long t2 = s0 + maj;
+            h = g;
+            g = f;
+            f = e;
+            e = d + t1;
+            d = c;
+            c = bb;
+            bb = a;
+            a = t1 + t2;
+        }
+        h64[0] += a;
+        h64[1] += bb;
+        h64[2] += c;
+        h64[3] += d;
+        h64[4] += e;
+        h64[5] += f;
+        h64[6] += g;
+        h64[7] += h;
+    }
+
+    private static int algorithmId(final String algorithm) {
+        if (algorithm == null) {
+            return 0;
+        }
+        switch (algorithm.toUpperCase().replace("-", "")) {
+            case "MD5":
+                return ALG_MD5;
+            case "SHA1":
+                return ALG_SHA1;
+            case "SHA224":
+                return ALG_SHA224;
+            case "SHA256":
+                return ALG_SHA256;
+            case "SHA384":
+                return ALG_SHA384;
+            case "SHA512":
+                return ALG_SHA512;
+            default:
+                return 0;
+        }
+    }
+}
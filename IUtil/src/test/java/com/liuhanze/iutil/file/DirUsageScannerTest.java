@@ -0,0 +1,70 @@
+package com.liuhanze.iutil.file;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link DirUsageScanner} 的统计结果与符号链接判断
+ */
+public class DirUsageScannerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void clearCache() {
+        DirUsageScanner.clear();
+    }
+
+    @Test
+    public void scan_countsNestedFiles() throws Exception {
+        File root = folder.getRoot();
+        write(new File(root, "a.bin"), 100);
+        File sub = new File(root, "sub");
+        assertTrue(new File(sub, "deep").mkdirs());
+        write(new File(sub, "b.bin"), 300);
+        write(new File(sub, "deep/c.bin"), 200);
+
+        DirUsage usage = DirUsageScanner.scan(root, 2, 2);
+        assertEquals(600, usage.getTotalBytes());
+        assertEquals(3, usage.getFileCount());
+        assertEquals(2, usage.getDirCount());
+        assertEquals(2, usage.getLargestFiles().size());
+        assertEquals(300, usage.getLargestFiles().get(0).getLength());
+        assertEquals(200, usage.getLargestFiles().get(1).getLength());
+    }
+
+    @Test
+    public void isRealDir_fromFilesystemRoot() throws Exception {
+        for (File root : File.listRoots()) {
+            String canonical = root.getCanonicalPath();
+            String[] names = root.list();
+            if (names == null) {
+                continue;
+            }
+            for (String name : names) {
+                File child = new File(root, name);
+                if (!child.isDirectory()) {
+                    continue;
+                }
+                // 根目录下的普通子目录必须可以进入
+                boolean link = !child.getCanonicalPath().equals(child.getAbsolutePath());
+                assertEquals(child.getPath(), !link, DirUsageScanner.isRealDir(child, canonical, name));
+            }
+        }
+    }
+
+    private static void write(final File file, final int length) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[length]);
+        }
+    }
+}
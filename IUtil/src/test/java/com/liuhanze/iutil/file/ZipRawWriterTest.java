@@ -0,0 +1,281 @@
+package com.liuhanze.iutil.file;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link ZipRawWriter} 写出的压缩文件能被 {@link ZipFile} 与 {@link ZipInputStream} 读取
+ */
+public class ZipRawWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void storedAndDeflatedEntries_readableByZipFile() throws IOException {
+        byte[] stored = randomBytes(5000, 1);
+        byte[] text = repeat("hello zip ", 1000);
+        byte[] deflated = deflate(text);
+        long time = time(2021, 6, 15, 10, 20, 30);
+
+        File zip = folder.newFile("a.zip");
+        try (ZipRawWriter writer = new ZipRawWriter(new FileOutputStream(zip))) {
+            writer.writeEntry("stored.bin", null, ZipEntry.STORED, time, crc(stored), stored.length,
+                    stored, 0, stored.length);
+            writer.writeEntry("dir/deflated.txt", "entry comment", ZipEntry.DEFLATED, time, crc(text), text.length,
+                    deflated.length, new ByteArrayInputStream(deflated));
+            writer.writeDirectory("empty/", null, time);
+            assertEquals(3, writer.getEntryCount());
+            writer.finish("archive comment");
+        }
+
+        try (ZipFile zf = new ZipFile(zip)) {
+            assertEquals(3, zf.size());
+            assertEquals("archive comment", zf.getComment());
+
+            ZipEntry e = zf.getEntry("stored.bin");
+            assertEquals(ZipEntry.STORED, e.getMethod());
+            assertEquals(stored.length, e.getSize());
+            assertArrayEquals(stored, readAll(zf.getInputStream(e)));
+            assertEquals(time, e.getTime());
+
+            e = zf.getEntry("dir/deflated.txt");
+            assertEquals(ZipEntry.DEFLATED, e.getMethod());
+            assertEquals(deflated.length, e.getCompressedSize());
+            assertEquals("entry comment", e.getComment());
+            assertArrayEquals(text, readAll(zf.getInputStream(e)));
+
+            assertTrue(zf.getEntry("empty/").isDirectory());
+        }
+    }
+
+    @Test
+    public void output_readableByZipInputStream() throws IOException {
+        byte[] data = repeat("abc", 500);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipRawWriter writer = new ZipRawWriter(out)) {
+            writer.writeEntry("中文名.txt", null, ZipEntry.DEFLATED, System.currentTimeMillis(), crc(data), data.length,
+                    deflate(data), 0, deflate(data).length);
+            writer.finish(null);
+            assertEquals(out.size(), writer.getOffset());
+        }
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry e = zis.getNextEntry();
+            assertEquals("中文名.txt", e.getName());
+            assertArrayEquals(data, readAll(zis));
+            assertNull(zis.getNextEntry());
+        }
+    }
+
+    @Test
+    public void writeRawEntry_copiesCompressedData() throws IOException {
+        byte[] a = repeat("first entry ", 300);
+        byte[] b = randomBytes(2000, 2);
+        File source = folder.newFile("source.zip");
+        try (ZipRawWriter writer = new ZipRawWriter(new FileOutputStream(source))) {
+            byte[] deflated = deflate(a);
+            writer.writeEntry("a.txt", null, ZipEntry.DEFLATED, time(2020, 1, 2, 3, 4, 6), crc(a), a.length,
+                    deflated, 0, deflated.length);
+            writer.writeEntry("b.bin", null, ZipEntry.STORED, time(2020, 1, 2, 3, 4, 6), crc(b), b.length,
+                    b, 0, b.length);
+            writer.finish(null);
+        }
+
+        ZipIndex index = ZipIndex.read(source);
+        File copy = folder.newFile("copy.zip");
+        try (RandomAccessFile raf = new RandomAccessFile(source, "r");
+             ZipRawWriter writer = new ZipRawWriter(new FileOutputStream(copy))) {
+            writer.writeRawEntry("renamed/b.bin", null, index, index.indexOf("b.bin"), raf);
+            writer.writeRawEntry("a.txt", null, index, index.indexOf("a.txt"), raf);
+            writer.finish(null);
+        }
+
+        try (ZipFile zf = new ZipFile(copy)) {
+            assertArrayEquals(b, readAll(zf.getInputStream(zf.getEntry("renamed/b.bin"))));
+            ZipEntry e = zf.getEntry("a.txt");
+            assertEquals(ZipEntry.DEFLATED, e.getMethod());
+            assertEquals(time(2020, 1, 2, 3, 4, 6), e.getTime());
+            assertArrayEquals(a, readAll(zf.getInputStream(e)));
+        }
+    }
+
+    @Test
+    public void writeRawEntry_refusesEncryptedEntry() throws IOException {
+        byte[] data = repeat("secret ", 100);
+        File source = folder.newFile("encrypted.zip");
+        try (ZipRawWriter writer = new ZipRawWriter(new FileOutputStream(source))) {
+            writer.writeEntry("plain.txt", null, ZipEntry.STORED, 0, crc(data), data.length, data, 0, data.length);
+            writer.writeEntry("secret.txt", null, ZipEntry.STORED, 0, crc(data), data.length, data, 0, data.length);
+            writer.finish(null);
+        }
+        setEncryptedFlag(source, 1);
+
+        ZipIndex index = ZipIndex.read(source);
+        assertFalse(index.isEncrypted(index.indexOf("plain.txt")));
+        assertTrue(index.isEncrypted(index.indexOf("secret.txt")));
+        assertEquals(1, index.getFlags(index.indexOf("secret.txt")) & 1);
+        try (RandomAccessFile raf = new RandomAccessFile(source, "r");
+             ZipRawWriter writer = new ZipRawWriter(new ByteArrayOutputStream())) {
+            writer.writeRawEntry("plain.txt", null, index, index.indexOf("plain.txt"), raf);
+            try {
+                writer.writeRawEntry("secret.txt", null, index, index.indexOf("secret.txt"), raf);
+                fail();
+            } catch (ZipException expected) {
+                // 加密条目不能原样拷贝
+            }
+        }
+    }
+
+    @Test
+    public void writeStoredEntry_failsWhenDataChanged() throws IOException {
+        byte[] data = randomBytes(4096, 3);
+        long crc = crc(data);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipRawWriter writer = new ZipRawWriter(out)) {
+            writer.writeStoredEntry("ok.bin", null, 0, crc, data.length, new ByteArrayInputStream(data));
+            writer.finish(null);
+        }
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            zis.getNextEntry();
+            assertArrayEquals(data, readAll(zis));
+        }
+
+        byte[] modified = data.clone();
+        modified[100] ^= 1;
+        assertStoredEntryFails(crc, data.length, modified);
+        assertStoredEntryFails(crc, data.length, Arrays.copyOf(data, data.length + 1));
+        assertStoredEntryFails(crc, data.length, Arrays.copyOf(data, data.length - 1));
+    }
+
+    @Test
+    public void finish_isIdempotentAndBlocksFurtherEntries() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipRawWriter writer = new ZipRawWriter(out)) {
+            writer.writeDirectory("d/", null, 0);
+            writer.finish(null);
+            long size = writer.getOffset();
+            writer.finish(null);
+            assertEquals(size, writer.getOffset());
+            try {
+                writer.writeDirectory("e/", null, 0);
+                fail();
+            } catch (IOException expected) {
+                // 已经写出中央目录
+            }
+        }
+    }
+
+    @Test
+    public void javaToDosTime() {
+        int dos = ZipRawWriter.javaToDosTime(time(2021, 6, 15, 10, 20, 31));
+        assertEquals(2021 - 1980, dos >>> 25);
+        assertEquals(6, dos >> 21 & 0x0F);
+        assertEquals(15, dos >> 16 & 0x1F);
+        assertEquals(10, dos >> 11 & 0x1F);
+        assertEquals(20, dos >> 5 & 0x3F);
+        // 秒按 2 秒精度保存
+        assertEquals(15, dos & 0x1F);
+        // 早于 1980 年按 1980-01-01 处理
+        assertEquals((1 << 21) | (1 << 16), ZipRawWriter.javaToDosTime(0));
+    }
+
+    private static void assertStoredEntryFails(final long crc, final int size, final byte[] actual)
+            throws IOException {
+        try (ZipRawWriter writer = new ZipRawWriter(new ByteArrayOutputStream())) {
+            writer.writeStoredEntry("changed.bin", null, 0, crc, size, new ByteArrayInputStream(actual));
+            fail();
+        } catch (ZipException expected) {
+            // 数据与 CRC、长度不一致
+        }
+    }
+
+    /**
+     * 置位第 n 个中央目录项的加密标志
+     */
+    private static void setEncryptedFlag(final File zip, final int n) throws IOException {
+        byte[] data = Files.readAllBytes(zip.toPath());
+        int found = -1;
+        for (int p = 0; p + 4 <= data.length; p++) {
+            if (data[p] == 'P' && data[p + 1] == 'K' && data[p + 2] == 1 && data[p + 3] == 2 && ++found == n) {
+                data[p + 8] |= 1;
+                try (FileOutputStream out = new FileOutputStream(zip)) {
+                    out.write(data);
+                }
+                return;
+            }
+        }
+        fail("central directory header not found");
+    }
+
+    private static long time(int year, int month, int day, int hour, int minute, int second) {
+        Calendar c = Calendar.getInstance();
+        c.clear();
+        c.set(year, month - 1, day, hour, minute, second);
+        return c.getTimeInMillis();
+    }
+
+    private static long crc(final byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+        return crc.getValue();
+    }
+
+    private static byte[] deflate(final byte[] data) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    private static byte[] readAll(final InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] repeat(final String s, final int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(s);
+        }
+        return sb.toString().getBytes();
+    }
+
+    private static byte[] randomBytes(final int len, final long seed) {
+        byte[] data = new byte[len];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+}
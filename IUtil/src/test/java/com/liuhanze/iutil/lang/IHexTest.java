@@ -0,0 +1,124 @@
+package com.liuhanze.iutil.lang;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link IHex} 编解码
+ */
+public class IHexTest {
+
+    @Test
+    public void encode_allByteValues() {
+        byte[] data = new byte[256];
+        StringBuilder upper = new StringBuilder();
+        for (int i = 0; i < 256; i++) {
+            data[i] = (byte) i;
+            upper.append(String.format("%02X", i));
+        }
+        assertEquals(upper.toString(), IHex.encode(data));
+        assertEquals(upper.toString().toLowerCase(), IHex.encode(data, false));
+        assertEquals("", IHex.encode(new byte[0]));
+        assertNull(IHex.encode(null));
+    }
+
+    @Test
+    public void encode_range() {
+        byte[] data = {0x00, 0x1F, (byte) 0xA0, (byte) 0xFF};
+        assertEquals("1fa0", IHex.encode(data, 1, 2, false));
+    }
+
+    @Test
+    public void encode_intoCallerBuffer() {
+        byte[] data = {0x12, (byte) 0xAB};
+        char[] chars = new char[6];
+        assertEquals(4, IHex.encode(data, 0, 2, chars, 1, true));
+        assertEquals("12AB", new String(chars, 1, 4));
+        assertEquals(-1, IHex.encode(data, 0, 2, new char[3], 0, true));
+
+        byte[] bytes = new byte[4];
+        assertEquals(4, IHex.encode(data, 0, 2, bytes, 0, false));
+        assertArrayEquals(new byte[]{'1', '2', 'a', 'b'}, bytes);
+        assertEquals(-1, IHex.encode(data, 0, 2, bytes, 1, false));
+    }
+
+    @Test
+    public void decode_roundTrip() {
+        Random random = new Random(1);
+        for (int len = 0; len < 100; len++) {
+            byte[] data = new byte[len];
+            random.nextBytes(data);
+            assertArrayEquals(data, IHex.decode(IHex.encode(data)));
+            assertArrayEquals(data, IHex.decode(IHex.encode(data, false)));
+        }
+    }
+
+    @Test
+    public void decode_mixedCase() {
+        assertArrayEquals(new byte[]{(byte) 0xAB, (byte) 0xCD, (byte) 0xEF}, IHex.decode("aBcDeF"));
+    }
+
+    @Test
+    public void decode_rejectsInvalidInput() {
+        assertNull(IHex.decode(null));
+        assertNull(IHex.decode("ABC"));
+        assertNull(IHex.decode("0G"));
+        assertNull(IHex.decode("0x12"));
+        assertNull(IHex.decode("12 34"));
+        // 非 ASCII 字符不能越界查表
+        assertNull(IHex.decode("1١"));
+        assertNull(IHex.decode("1ａ"));
+    }
+
+    @Test
+    public void decode_intoCallerBuffer() {
+        byte[] out = new byte[4];
+        assertEquals(2, IHex.decode("xx12ab", 2, 4, out, 1));
+        assertArrayEquals(new byte[]{0, 0x12, (byte) 0xAB, 0}, out);
+        assertEquals(2, IHex.decode("12ab".toCharArray(), 0, 4, out, 2));
+        assertEquals(-1, IHex.decode("12ab", 0, 4, out, 3));
+        assertEquals(-1, IHex.decode("12a", 0, 3, out, 0));
+        assertEquals(-1, IHex.decode("1z".toCharArray(), 0, 2, out, 0));
+    }
+
+    @Test
+    public void decodeLenient_skipsSeparatorsAndPrefix() {
+        assertArrayEquals(new byte[]{0x01, (byte) 0xA2, (byte) 0xB3}, IHex.decodeLenient("0x1:a2 b3"));
+        assertArrayEquals(new byte[]{0x12, 0x34}, IHex.decodeLenient("12-34"));
+        assertArrayEquals(new byte[0], IHex.decodeLenient("zz"));
+        assertNull(IHex.decodeLenient(null));
+    }
+
+    @Test
+    public void isHex() {
+        assertTrue(IHex.isHex("00ff"));
+        assertFalse(IHex.isHex(""));
+        assertFalse(IHex.isHex("0ff"));
+        assertFalse(IHex.isHex("0g"));
+        assertFalse(IHex.isHex(null));
+    }
+
+    @Test
+    public void digit() {
+        String digits = "0123456789abcdef";
+        for (int i = 0; i < 16; i++) {
+            assertEquals(i, IHex.digit(digits.charAt(i)));
+            assertEquals(i, IHex.digit(Character.toUpperCase(digits.charAt(i))));
+        }
+        assertEquals(-1, IHex.digit('g'));
+        assertEquals(-1, IHex.digit('/'));
+        assertEquals(-1, IHex.digit('٠'));
+    }
+
+    @Test
+    public void byteHelpers_delegateToIHex() {
+        byte[] data = {0x0A, (byte) 0xF0};
+        assertEquals("0AF0", IByte.bytes2HexString(data));
+        assertEquals("0A", IByte.byte2HexString((byte) 0x0A));
+        assertEquals("0af0", IByte.bytesToHexString(data));
+        assertNull(IByte.bytes2HexString(new byte[0]));
+    }
+}
@@ -0,0 +1,78 @@
+package com.liuhanze.iutil.security;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link CipherSession} 的复用与流式处理
+ */
+public class CipherSessionTest {
+
+    private static final String CBC = "DES/CBC/PKCS5Padding";
+    private static final byte[] KEY = {1, 2, 3, 4, 5, 6, 7, 8};
+    private static final byte[] IV = {8, 7, 6, 5, 4, 3, 2, 1};
+
+    @After
+    public void clearSessions() {
+        CipherSession.clear();
+    }
+
+    @Test
+    public void obtain_reusesSessionOnSameThread() {
+        CipherSession a = CipherSession.obtain("DES", CBC, KEY, true);
+        assertNotNull(a);
+        assertSame(a, CipherSession.obtain("DES", CBC, KEY.clone(), true));
+        assertNotSame(a, CipherSession.obtain("DES", CBC, KEY, false));
+        assertNull(CipherSession.obtain("DES", "DES/XYZ/NoPadding", KEY, true));
+    }
+
+    @Test
+    public void stream_notCorruptedByOneShotCallInsideRead() {
+        final byte[] data = new byte[100000];
+        new Random(1).nextBytes(data);
+        final byte[] otherIv = {0, 0, 0, 0, 0, 0, 0, 1};
+        InputStream in = new FilterInputStream(new ByteArrayInputStream(data)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                // 同一线程、同一密钥与 transformation 的一次性加解密
+                assertNotNull(IDES.encryptDES(new byte[16], KEY, CBC, otherIv));
+                return super.read(b, off, Math.min(len, 1000));
+            }
+        };
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(data.length, IDES.encryptDES(in, out, KEY, CBC, IV));
+        assertArrayEquals(IDES.encryptDES(data, KEY, CBC, IV), out.toByteArray());
+        // 流结束后缓存的会话重新可用
+        assertSame(CipherSession.obtain("DES", CBC, KEY, true), CipherSession.obtain("DES", CBC, KEY, true));
+    }
+
+    @Test
+    public void doFinal_reinitsWhenIvChanges() {
+        byte[] data = "0123456789abcdef".getBytes();
+        CipherSession session = CipherSession.obtain("DES", CBC, KEY, true);
+        byte[] first = session.doFinal(IV, data);
+        byte[] other = session.doFinal(new byte[8], data);
+        assertFalse(Arrays.equals(first, other));
+        assertArrayEquals(first, session.doFinal(IV, data));
+    }
+
+    @Test
+    public void doFinal_withoutIv_usesNewRandomIvEachTime() {
+        byte[] data = "0123456789abcdef".getBytes();
+        CipherSession cbc = CipherSession.obtain("DES", CBC, KEY, true);
+        assertFalse(Arrays.equals(cbc.doFinal(null, data), cbc.doFinal(null, data)));
+        // 不需要 IV 的模式结果不变
+        CipherSession ecb = CipherSession.obtain("DES", "DES/ECB/PKCS5Padding", KEY, true);
+        assertArrayEquals(ecb.doFinal(null, data), ecb.doFinal(null, data));
+    }
+}
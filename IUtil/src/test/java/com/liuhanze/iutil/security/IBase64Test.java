@@ -0,0 +1,185 @@
+package com.liuhanze.iutil.security;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link IBase64} 与 {@link Base64} 的结果对比，以及流式编解码
+ */
+public class IBase64Test {
+
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+
+    @Test
+    public void encode_matchesJdk() {
+        Random random = new Random(1);
+        for (int len = 0; len < 200; len++) {
+            byte[] data = randomBytes(random, len);
+            assertEquals("len=" + len, Base64.getEncoder().encodeToString(data), IBase64.encode(data));
+        }
+    }
+
+    @Test
+    public void encode_withWidth() {
+        Random random = new Random(2);
+        int[] widths = {1, 4, 10, 64, 76};
+        for (int width : widths) {
+            for (int len = 0; len < 150; len++) {
+                byte[] data = randomBytes(random, len);
+                String expected = wrap(Base64.getEncoder().encodeToString(data), width, "\n");
+                String actual = IBase64.encode(data, width);
+                assertEquals("width=" + width + " len=" + len, expected, actual);
+                assertEquals(actual.length(), IBase64.encodedLength(len, width));
+            }
+        }
+    }
+
+    @Test
+    public void encodeMime_matchesJdk() {
+        Random random = new Random(3);
+        for (int len = 0; len < 300; len += 7) {
+            byte[] data = randomBytes(random, len);
+            assertEquals(Base64.getMimeEncoder().encodeToString(data), IBase64.encodeMime(data));
+        }
+    }
+
+    @Test
+    public void urlSafe_matchesJdk() {
+        Random random = new Random(4);
+        for (int len = 0; len < 100; len++) {
+            byte[] data = randomBytes(random, len);
+            String encoded = IBase64.encodeUrlSafe(data);
+            assertEquals(Base64.getUrlEncoder().withoutPadding().encodeToString(data), encoded);
+            assertArrayEquals(data, IBase64.decodeUrlSafe(encoded));
+            assertArrayEquals(data, IBase64.decodeUrlSafe(Base64.getUrlEncoder().encodeToString(data)));
+        }
+    }
+
+    @Test
+    public void decode_roundTrip() {
+        Random random = new Random(5);
+        for (int len = 0; len < 200; len++) {
+            byte[] data = randomBytes(random, len);
+            assertArrayEquals(data, IBase64.decode(Base64.getEncoder().encodeToString(data)));
+            assertArrayEquals(data, IBase64.decode(IBase64.encode(data, 10)));
+            assertArrayEquals(data, IBase64.decode(IBase64.encodeMime(data)));
+        }
+    }
+
+    @Test
+    public void decode_skipsCharactersOutsideAlphabet() {
+        assertArrayEquals("hello".getBytes(US_ASCII), IBase64.decode(" aGVs\r\nbG8= "));
+        assertArrayEquals("hello".getBytes(US_ASCII), IBase64.decode("aGVs中bG8="));
+        // 第三、四位的 '=' 之后的内容不再解码
+        assertArrayEquals("he".getBytes(US_ASCII), IBase64.decode("aGU=aGVsbG8="));
+    }
+
+    @Test
+    public void encode_intoCallerBuffer() {
+        byte[] data = "any carnal pleasure.".getBytes(US_ASCII);
+        String expected = IBase64.encode(data, 8);
+        int n = IBase64.encodedLength(data.length, 8);
+
+        char[] chars = new char[n + 2];
+        assertEquals(n, IBase64.encode(data, 0, data.length, chars, 2, 8));
+        assertEquals(expected, new String(chars, 2, n));
+        assertEquals(-1, IBase64.encode(data, 0, data.length, new char[n - 1], 0, 8));
+
+        byte[] bytes = new byte[n];
+        assertEquals(n, IBase64.encode(data, 0, data.length, bytes, 0, 8));
+        assertEquals(expected, new String(bytes, US_ASCII));
+        assertEquals(-1, IBase64.encode(data, 0, data.length, bytes, 1, 8));
+    }
+
+    @Test
+    public void decode_intoCallerBuffer() {
+        byte[] data = "any carnal pleasure".getBytes(US_ASCII);
+        String encoded = IBase64.encode(data, 8);
+
+        byte[] out = new byte[IBase64.decodedMaxLength(encoded.length())];
+        int n = IBase64.decode(encoded.toCharArray(), 0, encoded.length(), out, 0);
+        assertEquals(data.length, n);
+        assertArrayEquals(data, Arrays.copyOf(out, n));
+        assertEquals(-1, IBase64.decode(encoded.toCharArray(), 0, encoded.length(), new byte[n - 1], 0));
+
+        // 原地解码
+        byte[] inPlace = encoded.getBytes(US_ASCII);
+        n = IBase64.decode(inPlace, 0, inPlace.length, inPlace, 0);
+        assertEquals(data.length, n);
+        assertArrayEquals(data, Arrays.copyOf(inPlace, n));
+    }
+
+    @Test
+    public void decodeCertificateKey_skipsPemLines() throws Exception {
+        byte[] key = randomBytes(new Random(6), 294);
+        String pem = "-----BEGIN PUBLIC KEY-----\n"
+                + IBase64.encode(key, 64)
+                + "\n-----END PUBLIC KEY-----\n";
+        InputStream in = new ByteArrayInputStream(pem.getBytes(US_ASCII));
+        assertArrayEquals(key, IBase64.decodeCertificateKey(in));
+    }
+
+    @Test
+    public void streams_matchArrayApi() throws Exception {
+        Random random = new Random(7);
+        int[] lengths = {0, 1, 2, 3, 3071, 3072, 3073, 10000, 50000};
+        int[] widths = {0, 64, 76};
+        for (int width : widths) {
+            for (int len : lengths) {
+                byte[] data = randomBytes(random, len);
+                ByteArrayOutputStream sink = new ByteArrayOutputStream();
+                OutputStream encoder = IBase64.newEncoder(sink, width);
+                int off = 0;
+                while (off < len) {
+                    int n = Math.min(len - off, random.nextInt(5000));
+                    if (n == 1) {
+                        encoder.write(data[off]);
+                    } else {
+                        encoder.write(data, off, n);
+                    }
+                    off += n;
+                }
+                encoder.close();
+                String expected = IBase64.encode(data, width);
+                assertEquals("width=" + width + " len=" + len, expected, new String(sink.toByteArray(), US_ASCII));
+
+                InputStream decoder = IBase64.newDecoder(new ByteArrayInputStream(sink.toByteArray()));
+                ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+                byte[] buffer = new byte[777];
+                int n;
+                while ((n = decoder.read(buffer)) != -1) {
+                    decoded.write(buffer, 0, n);
+                }
+                decoder.close();
+                assertArrayEquals(data, decoded.toByteArray());
+            }
+        }
+    }
+
+    private static String wrap(final String s, final int width, final String lineBreak) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < s.length(); i += width) {
+            if (i > 0) {
+                sb.append(lineBreak);
+            }
+            sb.append(s, i, Math.min(s.length(), i + width));
+        }
+        return sb.toString();
+    }
+
+    private static byte[] randomBytes(final Random random, final int len) {
+        byte[] data = new byte[len];
+        random.nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,177 @@
+package com.liuhanze.iutil.security;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link ResumableHasher} 与 {@link MessageDigest} 的结果对比，以及快照格式
+ */
+public class ResumableHasherTest {
+
+    private static final String[] ALGORITHMS = {
+            DigestService.MD5, DigestService.SHA1, DigestService.SHA224,
+            DigestService.SHA256, DigestService.SHA384, DigestService.SHA512
+    };
+
+    /**
+     * 64 字节分组的填充边界为 55/56、63/64，128 字节分组为 111/112、127/128
+     */
+    private static final int[] BOUNDARY_LENGTHS = {
+            0, 1, 55, 56, 57, 63, 64, 65, 111, 112, 113, 127, 128, 129, 1000
+    };
+
+    @Test
+    public void boundaryLengths_matchMessageDigest() throws Exception {
+        byte[] data = randomBytes(1000, 1);
+        for (String algorithm : ALGORITHMS) {
+            for (int len : BOUNDARY_LENGTHS) {
+                ResumableHasher hasher = ResumableHasher.newInstance(algorithm);
+                hasher.update(data, 0, len);
+                assertArrayEquals(algorithm + " len=" + len, expected(algorithm, data, len), hasher.digest());
+                assertEquals(len, hasher.getLength());
+            }
+        }
+    }
+
+    @Test
+    public void randomChunking_matchesMessageDigest() throws Exception {
+        Random random = new Random(2);
+        byte[] data = randomBytes(20000, 3);
+        for (String algorithm : ALGORITHMS) {
+            for (int round = 0; round < 5; round++) {
+                ResumableHasher hasher = ResumableHasher.newInstance(algorithm);
+                int off = 0;
+                while (off < data.length) {
+                    int n = Math.min(data.length - off, random.nextInt(300));
+                    switch (random.nextInt(3)) {
+                        case 0:
+                            hasher.update(data, off, n);
+                            break;
+                        case 1:
+                            hasher.update(ByteBuffer.wrap(data, off, n));
+                            break;
+                        default:
+                            ByteBuffer direct = ByteBuffer.allocateDirect(n);
+                            direct.put(data, off, n).flip();
+                            hasher.update(direct);
+                            break;
+                    }
+                    off += n;
+                }
+                assertArrayEquals(algorithm, expected(algorithm, data, data.length), hasher.digest());
+            }
+        }
+    }
+
+    @Test
+    public void digest_doesNotChangeState() throws Exception {
+        byte[] data = randomBytes(300, 4);
+        for (String algorithm : ALGORITHMS) {
+            ResumableHasher hasher = ResumableHasher.newInstance(algorithm);
+            hasher.update(data, 0, 130);
+            assertArrayEquals(expected(algorithm, data, 130), hasher.digest());
+            hasher.update(data, 130, 170);
+            assertArrayEquals(expected(algorithm, data, 300), hasher.digest());
+        }
+    }
+
+    @Test
+    public void snapshotRestore_atEverySplit() throws Exception {
+        byte[] data = randomBytes(300, 5);
+        for (String algorithm : ALGORITHMS) {
+            byte[] want = expected(algorithm, data, data.length);
+            for (int split : BOUNDARY_LENGTHS) {
+                if (split > data.length) {
+                    continue;
+                }
+                ResumableHasher first = ResumableHasher.newInstance(algorithm);
+                first.update(data, 0, split);
+                byte[] state = first.snapshot();
+                ResumableHasher resumed = ResumableHasher.restore(state);
+                assertNotNull(algorithm + " split=" + split, resumed);
+                assertEquals(split, resumed.getLength());
+                resumed.update(data, split, data.length - split);
+                assertArrayEquals(algorithm + " split=" + split, want, resumed.digest());
+                // 快照之后原实例可以继续使用
+                first.update(data, split, data.length - split);
+                assertArrayEquals(want, first.digest());
+            }
+        }
+    }
+
+    @Test
+    public void snapshot_formatIsStable() {
+        ResumableHasher hasher = ResumableHasher.newInstance(DigestService.MD5);
+        hasher.update(new byte[]{'a', 'b', 'c'});
+        byte[] want = {
+                1, 1,
+                0, 0, 0, 0, 0, 0, 0, 3,
+                3,
+                0x67, 0x45, 0x23, 0x01, (byte) 0xef, (byte) 0xcd, (byte) 0xab, (byte) 0x89,
+                (byte) 0x98, (byte) 0xba, (byte) 0xdc, (byte) 0xfe, 0x10, 0x32, 0x54, 0x76,
+                'a', 'b', 'c'
+        };
+        assertArrayEquals(want, hasher.snapshot());
+        assertEquals("900150983CD24FB0D6963F7D28E17F72", ResumableHasher.restore(want).digestToHexString());
+    }
+
+    @Test
+    public void snapshot_lengthPerAlgorithm() {
+        int[] words = {16, 20, 32, 32, 64, 64};
+        for (int i = 0; i < ALGORITHMS.length; i++) {
+            ResumableHasher hasher = ResumableHasher.newInstance(ALGORITHMS[i]);
+            hasher.update(new byte[10]);
+            assertEquals(ALGORITHMS[i], 11 + words[i] + 10, hasher.snapshot().length);
+        }
+    }
+
+    @Test
+    public void restore_rejectsInvalidState() {
+        ResumableHasher hasher = ResumableHasher.newInstance(DigestService.SHA256);
+        hasher.update(new byte[70]);
+        byte[] state = hasher.snapshot();
+
+        assertNull(ResumableHasher.restore(null));
+        assertNull(ResumableHasher.restore(new byte[5]));
+        assertNull(ResumableHasher.restore(Arrays.copyOf(state, state.length - 1)));
+        assertNull(ResumableHasher.restore(Arrays.copyOf(state, state.length + 1)));
+
+        byte[] badVersion = state.clone();
+        badVersion[0] = 2;
+        assertNull(ResumableHasher.restore(badVersion));
+
+        byte[] badAlgorithm = state.clone();
+        badAlgorithm[1] = 7;
+        assertNull(ResumableHasher.restore(badAlgorithm));
+
+        // 已处理长度与缓冲长度不一致
+        byte[] badLength = state.clone();
+        badLength[9]++;
+        assertNull(ResumableHasher.restore(badLength));
+    }
+
+    @Test
+    public void newInstance_acceptsNamesWithoutDash() {
+        assertNotNull(ResumableHasher.newInstance("sha256"));
+        assertNull(ResumableHasher.newInstance("SHA-3"));
+        assertNull(ResumableHasher.newInstance(null));
+    }
+
+    private static byte[] expected(final String algorithm, final byte[] data, final int len) throws Exception {
+        MessageDigest md = MessageDigest.getInstance(algorithm);
+        md.update(data, 0, len);
+        return md.digest();
+    }
+
+    private static byte[] randomBytes(final int len, final long seed) {
+        byte[] data = new byte[len];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+}